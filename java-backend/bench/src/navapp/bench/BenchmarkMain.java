@@ -0,0 +1,21 @@
+package src.navapp.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the suite with the GC profiler attached (the equivalent of `-prof gc`), so every result
+// carries its allocation rate next to the latency percentiles. An optional argument narrows the
+// run to benchmarks matching that regex, e.g. `SolverBenchmark`.
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "src\\.navapp\\.bench\\..*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("bench_output.json")
+                .build()).run();
+    }
+}
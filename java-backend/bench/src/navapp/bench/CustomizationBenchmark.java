@@ -0,0 +1,51 @@
+package src.navapp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.navapp.service.CustomizableHierarchy;
+import src.navapp.service.Graph;
+import src.navapp.service.GraphSnapshot;
+import src.navapp.service.SyntheticGraphs;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Topology preprocessing runs once per map; customization runs after every batch of events and is
+// the number that has to stay well under a second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CustomizationBenchmark {
+    @Param({ "grid", "geometric" })
+    public String shape;
+
+    @Param({ "10000", "100000" })
+    public int nodes;
+
+    @Param({ "4" })
+    public int degree;
+
+    private Graph graph;
+    private CustomizableHierarchy hierarchy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new Graph(List.of(SyntheticGraphs.generate(shape, nodes, degree, 42).toString()));
+        hierarchy = CustomizableHierarchy.build(graph.snapshot());
+    }
+
+    @Benchmark
+    public CustomizableHierarchy buildTopology() {
+        return CustomizableHierarchy.build(graph.snapshot());
+    }
+
+    @Benchmark
+    public CustomizableHierarchy.Metric customize() {
+        graph.simulateRandomEvent("mixcommute");
+        graph.flush();
+        GraphSnapshot snapshot = graph.snapshot();
+        return hierarchy.customize(snapshot);
+    }
+}
@@ -0,0 +1,60 @@
+package src.navapp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.navapp.model.DistanceMatrix;
+import src.navapp.service.DistanceMatrixSolver;
+import src.navapp.service.Graph;
+import src.navapp.service.GraphSnapshot;
+import src.navapp.service.SyntheticGraphs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceMatrixBenchmark {
+    @Param({ "grid", "geometric" })
+    public String shape;
+
+    @Param({ "100000" })
+    public int nodes;
+
+    @Param({ "4" })
+    public int degree;
+
+    // origins x destinations: one depot to its stops, and a square dispatch matrix.
+    @Param({ "1x500", "50x50" })
+    public String size;
+
+    private Graph graph;
+    private final DistanceMatrixSolver solver = new DistanceMatrixSolver();
+    private List<String> origins, destinations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new Graph(List.of(SyntheticGraphs.generate(shape, nodes, degree, 42).toString()));
+        GraphSnapshot snapshot = graph.snapshot();
+        Random rand = new Random(7);
+        String[] dims = size.split("x");
+        origins = pick(snapshot, rand, Integer.parseInt(dims[0]));
+        destinations = pick(snapshot, rand, Integer.parseInt(dims[1]));
+    }
+
+    private static List<String> pick(GraphSnapshot snapshot, Random rand, int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            names.add(snapshot.nodeName(rand.nextInt(snapshot.nodeCount())));
+        return names;
+    }
+
+    @Benchmark
+    public DistanceMatrix solve() {
+        return solver.solve(graph.snapshot(), origins, destinations);
+    }
+}
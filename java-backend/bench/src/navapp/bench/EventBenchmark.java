@@ -0,0 +1,52 @@
+package src.navapp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.navapp.model.SimulationEvent;
+import src.navapp.service.Graph;
+import src.navapp.service.SyntheticGraphs;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Every trial starts from a fresh graph: closures accumulate, and a long run on one graph would
+// end up measuring a map with no open roads left.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventBenchmark {
+    @Param({ "grid", "geometric" })
+    public String shape;
+
+    @Param({ "10000", "100000" })
+    public int nodes;
+
+    @Param({ "4" })
+    public int degree;
+
+    private List<String> files;
+    private Graph graph;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        files = List.of(SyntheticGraphs.generate(shape, nodes, degree, 42).toString());
+    }
+
+    @Setup(Level.Iteration)
+    public void load() {
+        graph = new Graph(files);
+    }
+
+    @Benchmark
+    public SimulationEvent simulateRandomEvent() {
+        return graph.simulateRandomEvent("mixcommute");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SimulationEvent simulateRandomEventContended() {
+        return graph.simulateRandomEvent("mixcommute");
+    }
+}
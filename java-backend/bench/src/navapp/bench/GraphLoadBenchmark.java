@@ -0,0 +1,51 @@
+package src.navapp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.navapp.service.Graph;
+import src.navapp.service.SyntheticGraphs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GraphLoadBenchmark {
+    @Param({ "grid", "geometric" })
+    public String shape;
+
+    @Param({ "100000", "1000000" })
+    public int nodes;
+
+    @Param({ "4" })
+    public int degree;
+
+    private List<String> csv;
+    private List<String> snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path file = SyntheticGraphs.generate(shape, nodes, degree, 42);
+        csv = List.of(file.toString());
+        Path binary = Files.createTempFile("graph", ".navg");
+        binary.toFile().deleteOnExit();
+        new Graph(csv).writeSnapshot(binary.toString());
+        snapshot = List.of(binary.toString());
+    }
+
+    @Benchmark
+    public Graph loadFromCSV() {
+        return new Graph(csv);
+    }
+
+    @Benchmark
+    public Graph loadFromSnapshot() {
+        return new Graph(snapshot);
+    }
+}
@@ -0,0 +1,45 @@
+package src.navapp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.navapp.model.PathResult;
+import src.navapp.service.Graph;
+import src.navapp.service.GraphSnapshot;
+import src.navapp.service.PathSolver;
+import src.navapp.service.SyntheticGraphs;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// BackTrackAlgo enumerates every simple path, so it only gets grids small enough to finish;
+// corner-to-corner is its worst case and what the fast solvers are compared against.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ReferenceSolverBenchmark {
+    @Param({ "3", "4", "5" })
+    public int side;
+
+    @Param({ "backtrack", "backtrack-parallel", "astar", "dijkstra" })
+    public String solver;
+
+    private GraphSnapshot snapshot;
+    private PathSolver pathSolver;
+    private String start, end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Graph graph = new Graph(List.of(SyntheticGraphs.grid(side, 42).toString()));
+        snapshot = graph.snapshot();
+        pathSolver = SolverBenchmark.solver(solver, graph);
+        start = "G0_0";
+        end = "G" + (side - 1) + "_" + (side - 1);
+    }
+
+    @Benchmark
+    public PathResult cornerToCorner() {
+        return pathSolver.findShortestPath(snapshot, start, end);
+    }
+}
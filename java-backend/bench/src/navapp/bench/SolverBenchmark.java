@@ -0,0 +1,130 @@
+package src.navapp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.navapp.model.PathResult;
+import src.navapp.service.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    private static final int PAIRS = 1024;
+
+    @Param({ "grid", "geometric" })
+    public String shape;
+
+    @Param({ "10000", "100000" })
+    public int nodes;
+
+    @Param({ "4" })
+    public int degree;
+
+    @Param({ "astar", "dijkstra", "bidirectional", "incremental", "ch", "cch", "alt", "mld" })
+    public String solver;
+
+    // "long" pairs each start with the node farthest from it in hops: cross-city trips, where a
+    // unidirectional search covers most of the map.
+    @Param({ "random", "long" })
+    public String trip;
+
+    private Graph graph;
+    private PathSolver pathSolver;
+    private String[] starts, ends;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new Graph(List.of(SyntheticGraphs.generate(shape, nodes, degree, 42).toString()));
+        pathSolver = solver(solver, graph);
+        GraphSnapshot snapshot = graph.snapshot();
+        Random rand = new Random(7);
+        starts = new String[PAIRS];
+        ends = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            int start = rand.nextInt(snapshot.nodeCount());
+            starts[i] = snapshot.nodeName(start);
+            ends[i] = snapshot.nodeName(trip.equals("long") ? farthest(snapshot, start) : rand.nextInt(snapshot.nodeCount()));
+        }
+    }
+
+    private static int farthest(GraphSnapshot snapshot, int start) {
+        int[] queue = new int[snapshot.nodeCount()];
+        boolean[] seen = new boolean[snapshot.nodeCount()];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        seen[start] = true;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int a = snapshot.firstArc(u); a < snapshot.endArc(u); a++) {
+                int v = snapshot.arcTarget(a);
+                if (!seen[v]) {
+                    seen[v] = true;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return queue[tail - 1];
+    }
+
+    @Benchmark
+    public PathResult findShortestPath(Cursor cursor) {
+        int i = cursor.next();
+        return pathSolver.findShortestPath(graph.snapshot(), starts[i], ends[i]);
+    }
+
+    static PathSolver solver(String name, Graph graph) {
+        return switch (name) {
+            case "astar" -> new AStarSolver();
+            case "dijkstra" -> new DijkstraSolver();
+            case "bidirectional" -> new BidirectionalDijkstraSolver();
+            case "incremental" -> new IncrementalSolver(graph);
+            case "backtrack" -> new BackTrackAlgo();
+            case "backtrack-parallel" -> new ParallelBackTrackAlgo();
+            case "ch" -> {
+                ContractionHierarchySolver ch = new ContractionHierarchySolver(graph);
+                yield await(ch, () -> ch.getHierarchy() != null);
+            }
+            case "cch" -> {
+                CustomizableHierarchySolver cch = new CustomizableHierarchySolver(graph);
+                yield await(cch, () -> cch.getMetric() != null);
+            }
+            case "alt" -> {
+                LandmarkSolver alt = new LandmarkSolver(graph);
+                yield await(alt, () -> alt.getTable() != null);
+            }
+            case "mld" -> {
+                PartitionedSolver mld = new PartitionedSolver(graph);
+                yield await(mld, () -> mld.getOverlay() != null);
+            }
+            default -> throw new IllegalArgumentException("Invalid solver: " + name);
+        };
+    }
+
+    // Preprocessing runs in the background; measure queries, not the fallback.
+    private static PathSolver await(PathSolver solver, BooleanSupplier ready) {
+        try {
+            while (!ready.getAsBoolean())
+                Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return solver;
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        int next() {
+            index = (index + 1) & (PAIRS - 1);
+            return index;
+        }
+    }
+}
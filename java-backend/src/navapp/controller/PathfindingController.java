@@ -1,40 +1,382 @@
 package src.navapp.controller;
 
+import src.navapp.model.DistanceMatrix;
+import src.navapp.model.PathResult;
+import src.navapp.model.RouteAlternatives;
+import src.navapp.model.RouteResponse;
 import src.navapp.model.Step;
+import src.navapp.model.TravelMode;
+import src.navapp.service.AStarSolver;
+import src.navapp.service.AlternativeRouteFinder;
 import src.navapp.service.BackTrackAlgo;
+import src.navapp.service.BidirectionalDijkstraSolver;
+import src.navapp.service.ContractionHierarchySolver;
+import src.navapp.service.CustomizableHierarchySolver;
+import src.navapp.service.DijkstraSolver;
+import src.navapp.service.DistanceMatrixSolver;
+import src.navapp.service.EventSimulator;
 import src.navapp.service.Graph;
+import src.navapp.service.GraphSnapshot;
+import src.navapp.service.Histogram;
+import src.navapp.service.IncrementalSolver;
+import src.navapp.service.LandmarkSolver;
+import src.navapp.service.Metrics;
+import src.navapp.service.MultimodalSolver;
+import src.navapp.service.NodeCoordinates;
+import src.navapp.service.ParallelBackTrackAlgo;
+import src.navapp.service.PathSolver;
+import src.navapp.service.RouteCache;
+import src.navapp.service.SearchEffort;
+import src.navapp.service.SolverExecutor;
+import src.navapp.service.TransferPolicy;
 import src.navapp.model.SimulationEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 public class PathfindingController {
 
+    // Upper bounds on what one request may ask for; larger values are clamped.
+    private static final int MAX_ALTERNATIVES = 10;
+    private static final long MAX_BUDGET_MILLIS = 10_000;
+    // A matrix is one search per origin and one row of results per cell, so larger ones are
+    // refused rather than clamped.
+    private static final long MAX_MATRIX_CELLS = 10_000;
+
     private final Graph graph;
-    private final BackTrackAlgo solver;
-    private final String mode = "mixsrcmute";
+    private final Map<String, PathSolver> solvers;
+    private final RouteCache cache;
+    private final EventSimulator simulator;
+    private final DistanceMatrixSolver matrixSolver = new DistanceMatrixSolver();
+    private final AlternativeRouteFinder alternativeFinder = new AlternativeRouteFinder();
+    private final Metrics metrics = new Metrics();
+    private final SolverExecutor solverExecutor = new SolverExecutor(Runtime.getRuntime().availableProcessors(), 64);
+    // Backtracking forks its branches here rather than into the common pool, which parallel
+    // streams and other libraries in the process share.
+    private final ForkJoinPool backtrackPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private final TransferPolicy transferPolicy = TransferPolicy.defaults();
+    private final String mode = "mixcommute";
 
-    public PathfindingController() {
+    // Traffic events arrive from a background simulator at navapp.events.per-second (0 turns it
+    // off); setting navapp.events.seed makes the event sequence reproducible.
+    public PathfindingController(@Value("${navapp.events.per-second:1}") double eventsPerSecond,
+            @Value("${navapp.events.seed:#{null}}") Long eventSeed) {
         List<String> files = List.of("C:/Users/johnr/Downloads/big_map.csv");
         this.graph = new Graph(files);
-        this.solver = new BackTrackAlgo(graph);
+        LandmarkSolver landmarks = new LandmarkSolver(graph);
+        this.solvers = Map.of(
+                "astar", new AStarSolver(),
+                "dijkstra", new DijkstraSolver(),
+                "bidirectional", new BidirectionalDijkstraSolver(),
+                "incremental", new IncrementalSolver(graph),
+                "alt", landmarks,
+                "multimodal", new MultimodalSolver(transferPolicy, landmarks),
+                "ch", new ContractionHierarchySolver(graph,
+                        Path.of(files.get(0) + ContractionHierarchySolver.FILE_EXTENSION)),
+                "cch", new CustomizableHierarchySolver(graph),
+                "backtrack", new BackTrackAlgo(),
+                "backtrack-parallel", new ParallelBackTrackAlgo(backtrackPool));
+        this.cache = new RouteCache(graph, 10_000, Duration.ofMinutes(5));
+        this.simulator = new EventSimulator(graph, mode, eventSeed);
+        registerMetrics();
+        simulator.start(eventsPerSecond);
+    }
+
+    private void registerMetrics() {
+        metrics.gauge("navapp.graph.nodes", "Nodes in the current graph version", "nodes",
+                () -> graph.snapshot().nodeCount());
+        metrics.gauge("navapp.graph.edges", "Edges in the current graph version", "edges",
+                () -> graph.snapshot().edgeCount());
+        metrics.gauge("navapp.graph.version", "Current graph version", null, () -> graph.snapshot().getVersion());
+        metrics.gauge("navapp.graph.load.time", "Time spent loading the graph at startup", "seconds",
+                () -> graph.getLoadReport().getElapsedMillis() / 1000.0);
+        metrics.gauge("navapp.simulator.events", "Events published by the background simulator", "events",
+                simulator::getGenerated);
+        metrics.timer("navapp.graph.events.latency", "Time to apply an event batch and notify listeners",
+                graph.getEventLatency());
+        metrics.gauge("navapp.solver.queue.depth", "Route requests waiting for a solver thread", "requests",
+                solverExecutor::getQueueDepth);
+        metrics.gauge("navapp.solver.active", "Solver threads busy with a route request", "threads",
+                solverExecutor::getActiveCount);
+        metrics.gauge("navapp.solver.rejected", "Route requests refused because the queue was full", "requests",
+                solverExecutor::getRejected);
+        metrics.gauge("navapp.solver.abandoned", "Searches interrupted for overrunning their budget", "requests",
+                solverExecutor::getAbandoned);
+        metrics.gauge("navapp.cache.size", "Routes held by the route cache", "routes", cache::size);
+        metrics.gauge("navapp.cache.hits", "Route cache hits", null, cache::getHits);
+        metrics.gauge("navapp.cache.misses", "Route cache misses", null, cache::getMisses);
+        metrics.gauge("navapp.cache.evictions", "Routes evicted to stay within capacity", null, cache::getEvictions);
+        metrics.gauge("navapp.cache.expirations", "Routes dropped after their TTL", null, cache::getExpirations);
+        metrics.gauge("navapp.cache.invalidations", "Routes dropped because an event touched them", null,
+                cache::getInvalidations);
     }
 
+    // format=compact returns node ids and mode ordinals instead of names; decode them with
+    // /api/nodes for the same topology version.
     @GetMapping("/shortest-path")
-    public Map<String, Object> getShortestPath(@RequestParam String start, @RequestParam String end) {
-        graph.simulateRandomEvent(mode);
-        solver.findShortestPath(start, end);
+    public ResponseEntity<StreamingResponseBody> getShortestPath(@RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "astar") String algorithm,
+            @RequestParam(required = false) List<String> modes,
+            @RequestParam(defaultValue = "2000") long budgetMillis,
+            @RequestParam(defaultValue = "names") String format) {
+        boolean compact = switch (format) {
+            case "names" -> false;
+            case "compact" -> true;
+            default -> throw new IllegalArgumentException("Invalid format: " + format);
+        };
+        PathSolver solver = solvers.get(algorithm);
+        if (solver == null)
+            throw new IllegalArgumentException("Invalid algorithm: " + algorithm);
+
+        String policy = algorithm;
+        if (modes != null && solver instanceof MultimodalSolver) {
+            Set<TravelMode> available = EnumSet.noneOf(TravelMode.class);
+            for (String label : modes)
+                available.add(TravelMode.fromLabel(label));
+            solver = ((MultimodalSolver) solver).withPolicy(transferPolicy.withAvailable(available));
+            policy = algorithm + ":" + ((MultimodalSolver) solver).getPolicy().describe();
+        }
+
+        long requestedAt = System.nanoTime();
+        GraphSnapshot snapshot = graph.snapshot();
+        PathSolver chosen = solver;
+        String cacheKey = policy;
+        PathResult result;
+        try {
+            result = solverExecutor.solve(() -> solve(snapshot, cacheKey, start, end, chosen, algorithm),
+                    budget(budgetMillis));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many route requests queued");
+        }
+
+        RouteResponse response = new RouteResponse(lastEventMessage(), snapshot.getVersion(),
+                snapshot.getTopologyVersion(), result, solver instanceof MultimodalSolver);
+        requestTimer("shortest-path").record(System.nanoTime() - requestedAt);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(out -> RouteJsonWriter.writeRoute(response, snapshot, compact, out));
+    }
+
+    @GetMapping("/nodes")
+    public ResponseEntity<StreamingResponseBody> getNodeDictionary() {
+        GraphSnapshot snapshot = graph.snapshot();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(out -> RouteJsonWriter.writeDictionary(snapshot, out));
+    }
+
+    // Snaps a coordinate to the closest node that has a position, so clients can route from a
+    // map tap or GPS fix without knowing node names.
+    @GetMapping("/nearest")
+    public Map<String, Object> getNearestNode(@RequestParam double lat, @RequestParam double lon) {
+        long requestedAt = System.nanoTime();
+        GraphSnapshot snapshot = graph.snapshot();
+        NodeCoordinates coordinates = locatedCoordinates(snapshot);
+        Map<String, Object> response = nearestNode(snapshot, coordinates, lat, lon);
+        requestTimer("nearest").record(System.nanoTime() - requestedAt);
+        return response;
+    }
+
+    // Body: {"points": [[lat, lon], ...]}. Results come back in the same order.
+    @PostMapping("/nearest")
+    public Map<String, Object> getNearestNodes(@RequestBody Map<String, List<List<Double>>> body) {
+        long requestedAt = System.nanoTime();
+        GraphSnapshot snapshot = graph.snapshot();
+        NodeCoordinates coordinates = locatedCoordinates(snapshot);
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        for (List<Double> point : body.getOrDefault("points", List.of())) {
+            if (point == null || point.size() != 2 || point.get(0) == null || point.get(1) == null)
+                throw new IllegalArgumentException("Each point must be [lat, lon]: " + point);
+            nodes.add(nearestNode(snapshot, coordinates, point.get(0), point.get(1)));
+        }
+        requestTimer("nearest").record(System.nanoTime() - requestedAt);
+        return Map.of("version", snapshot.getVersion(), "nodes", nodes);
+    }
+
+    private static NodeCoordinates locatedCoordinates(GraphSnapshot snapshot) {
+        NodeCoordinates coordinates = snapshot.coordinates();
+        if (coordinates == null || coordinates.locatedCount() == 0)
+            throw new IllegalArgumentException("The loaded graph has no node coordinates");
+        return coordinates;
+    }
 
+    private static Map<String, Object> nearestNode(GraphSnapshot snapshot, NodeCoordinates coordinates, double lat,
+            double lon) {
+        if (!(Math.abs(lat) <= 90) || !(Math.abs(lon) <= 180))
+            throw new IllegalArgumentException("Coordinates out of range: " + lat + "," + lon);
+        int node = coordinates.nearest(lat, lon);
         Map<String, Object> response = new HashMap<>();
-        response.put("event",
-                Optional.ofNullable(graph.getLastEvent()).map(SimulationEvent::getMessage).orElse("None"));
-        response.put("path", solver.getBestPath());
-        response.put("distance", solver.getBestDistance());
+        response.put("node", snapshot.nodeName(node));
+        response.put("latitude", coordinates.latitude(node));
+        response.put("longitude", coordinates.longitude(node));
+        response.put("distanceMeters", coordinates.distance(lat, lon, node));
+        return response;
+    }
 
+    // Runs on a solver thread, so the search effort is read there too.
+    private PathResult solve(GraphSnapshot snapshot, String policy, String start, String end, PathSolver solver,
+            String algorithm) {
+        SearchEffort effort = SearchEffort.current();
+        effort.reset();
+        long solvingAt = System.nanoTime();
+        PathResult result = cache.getOrCompute(snapshot, policy, start, end, solver);
+        metrics.timer("navapp.path.latency", "Route lookup time, cache hits included", "algorithm", algorithm)
+                .record(System.nanoTime() - solvingAt);
+        // A cache hit does no search, so it would only drag the effort distributions toward zero.
+        if (effort.getSettled() > 0) {
+            metrics.summary("navapp.path.nodes.settled", "Nodes settled per solved query", "nodes",
+                    "algorithm", algorithm).record(effort.getSettled());
+            metrics.summary("navapp.path.edges.relaxed", "Arcs relaxed per solved query", "edges",
+                    "algorithm", algorithm).record(effort.getRelaxed());
+        }
+        return result;
+    }
+
+    // Up to k routes, cheapest first, each sharing at most maxSimilarity of its length with any
+    // other. timedOut reports that the budget ended the search early.
+    @GetMapping("/alternatives")
+    public Map<String, Object> getAlternatives(@RequestParam String start, @RequestParam String end,
+            @RequestParam(defaultValue = "3") int k,
+            @RequestParam(defaultValue = "0.7") double maxSimilarity,
+            @RequestParam(defaultValue = "250") long budgetMillis) {
+        if (k <= 0)
+            throw new IllegalArgumentException("k must be positive: " + k);
+        if (!(maxSimilarity > 0 && maxSimilarity < 1))
+            throw new IllegalArgumentException("maxSimilarity must be between 0 and 1: " + maxSimilarity);
+        Duration budget = budget(budgetMillis);
+        long requestedAt = System.nanoTime();
+        GraphSnapshot snapshot = graph.snapshot();
+        RouteAlternatives alternatives;
+        try {
+            alternatives = solverExecutor.run(() -> alternativeFinder.find(snapshot, start, end,
+                    Math.min(k, MAX_ALTERNATIVES), maxSimilarity, budget), budget,
+                    () -> new RouteAlternatives(List.of(), true));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many route requests queued");
+        }
+
+        List<Map<String, Object>> routeList = new ArrayList<>();
+        for (PathResult route : alternatives.getRoutes()) {
+            Map<String, Object> routeMap = new HashMap<>();
+            routeMap.put("path", route.getPath());
+            routeMap.put("distance", route.getDistance());
+            routeMap.put("steps", stepMaps(route.getSteps()));
+            routeList.add(routeMap);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("event", lastEventMessage());
+        response.put("routes", routeList);
+        response.put("timedOut", alternatives.isTimedOut());
+        requestTimer("alternatives").record(System.nanoTime() - requestedAt);
+        return response;
+    }
+
+    // Body: {"origins": [...], "destinations": [...]}. Every cell is solved on the same snapshot.
+    @PostMapping("/distance-matrix")
+    public Map<String, Object> getDistanceMatrix(@RequestBody Map<String, List<String>> body,
+            @RequestParam(defaultValue = "2000") long budgetMillis) {
+        Duration budget = budget(budgetMillis);
+        long requestedAt = System.nanoTime();
+        List<String> origins = body.getOrDefault("origins", List.of());
+        List<String> destinations = body.getOrDefault("destinations", origins);
+        if ((long) origins.size() * destinations.size() > MAX_MATRIX_CELLS)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A distance matrix may have at most "
+                    + MAX_MATRIX_CELLS + " cells, not " + origins.size() + " x " + destinations.size());
+        GraphSnapshot snapshot = graph.snapshot();
+        DistanceMatrix matrix;
+        try {
+            matrix = solverExecutor.run(() -> matrixSolver.solve(snapshot, origins, destinations), budget,
+                    () -> unreachableMatrix(snapshot, origins, destinations));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many route requests queued");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("version", matrix.getVersion());
+        response.put("origins", matrix.getOrigins());
+        response.put("destinations", matrix.getDestinations());
+        response.put("distances", matrix.getDistances());
+        response.put("truncated", matrix.isTruncated());
+        requestTimer("distance-matrix").record(System.nanoTime() - requestedAt);
+        return response;
+    }
+
+    @GetMapping("/cache-stats")
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("size", cache.size());
+        response.put("hits", cache.getHits());
+        response.put("misses", cache.getMisses());
+        response.put("evictions", cache.getEvictions());
+        response.put("expirations", cache.getExpirations());
+        response.put("invalidations", cache.getInvalidations());
+        return response;
+    }
+
+    // Same layout as Actuator's /actuator/metrics: the bare path lists meter names, the named path
+    // returns measurements, optionally narrowed with ?tag=key:value.
+    @GetMapping("/metrics")
+    public Map<String, Object> getMetricNames() {
+        return Map.of("names", metrics.names());
+    }
+
+    @GetMapping("/metrics/{name:.+}")
+    public Map<String, Object> getMetric(@PathVariable String name,
+            @RequestParam(required = false) List<String> tag) {
+        Map<String, Object> response = metrics.describe(name, tag != null ? tag : List.of());
+        if (response == null)
+            throw new IllegalArgumentException("Unknown metric or tag: " + name);
+        return response;
+    }
+
+    // Parameter checks here and in TravelMode throw IllegalArgumentException; those are the
+    // caller's mistake, so they answer 400 with the reason rather than a 500.
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, Object> handleBadRequest(IllegalArgumentException e) {
+        return Map.of("error", String.valueOf(e.getMessage()));
+    }
+
+    // The most recent event the simulator published, which is not necessarily in the snapshot the
+    // request was answered on.
+    private String lastEventMessage() {
+        return Optional.ofNullable(graph.getLastEvent()).map(SimulationEvent::getMessage).orElse("None");
+    }
+
+    private Histogram requestTimer(String endpoint) {
+        return metrics.timer("navapp.request.latency", "End-to-end request handling time", "endpoint", endpoint);
+    }
+
+    // Rejects a budget of zero or less and clamps larger ones to MAX_BUDGET_MILLIS.
+    private static Duration budget(long budgetMillis) {
+        if (budgetMillis <= 0)
+            throw new IllegalArgumentException("budgetMillis must be positive: " + budgetMillis);
+        return Duration.ofMillis(Math.min(budgetMillis, MAX_BUDGET_MILLIS));
+    }
+
+    private static DistanceMatrix unreachableMatrix(GraphSnapshot snapshot, List<String> origins,
+            List<String> destinations) {
+        int[][] distances = new int[origins.size()][destinations.size()];
+        for (int[] row : distances)
+            Arrays.fill(row, Integer.MAX_VALUE);
+        return new DistanceMatrix(origins, destinations, distances, snapshot.getVersion()).asTruncated();
+    }
+
+    private static List<Map<String, Object>> stepMaps(List<Step> steps) {
         List<Map<String, Object>> stepList = new ArrayList<>();
-        for (Step step : solver.getBestSteps()) {
+        for (Step step : steps) {
             Map<String, Object> stepMap = new HashMap<>();
             stepMap.put("from", step.getFrom());
             stepMap.put("to", step.getTo());
@@ -42,8 +384,6 @@ public class PathfindingController {
             stepMap.put("weight", step.getWeightUsed());
             stepList.add(stepMap);
         }
-
-        response.put("steps", stepList);
-        return response;
+        return stepList;
     }
 }
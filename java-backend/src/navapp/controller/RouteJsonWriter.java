@@ -0,0 +1,185 @@
+package src.navapp.controller;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.RouteResponse;
+import src.navapp.model.Step;
+import src.navapp.model.Transfer;
+import src.navapp.model.TravelMode;
+import src.navapp.service.GraphSnapshot;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Writes route responses straight to the response stream. The path and steps are written from
+// the PathResult as they are, with node names taken from the graph's dictionary, so a long route
+// costs no per-step maps or reflection. The compact form sends node ids and TravelMode ordinals
+// instead of names and labels; /api/nodes serves the dictionary to decode them.
+final class RouteJsonWriter {
+    private final Writer out;
+
+    private RouteJsonWriter(OutputStream stream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 8192);
+    }
+
+    static void writeRoute(RouteResponse response, GraphSnapshot graph, boolean compact, OutputStream stream)
+            throws IOException {
+        RouteJsonWriter writer = new RouteJsonWriter(stream);
+        if (compact)
+            writer.compactRoute(response, graph);
+        else
+            writer.route(response);
+        writer.out.flush();
+    }
+
+    // Node names in id order, for decoding compact routes on the same topology version.
+    static void writeDictionary(GraphSnapshot graph, OutputStream stream) throws IOException {
+        RouteJsonWriter writer = new RouteJsonWriter(stream);
+        Writer out = writer.out;
+        out.write("{\"topology\":");
+        out.write(Long.toString(graph.getTopologyVersion()));
+        out.write(",\"modes\":[");
+        TravelMode[] modes = TravelMode.values();
+        for (int i = 0; i < modes.length; i++) {
+            if (i > 0)
+                out.write(',');
+            writer.string(modes[i].getLabel());
+        }
+        out.write("],\"nodes\":[");
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (node > 0)
+                out.write(',');
+            writer.string(graph.nodeName(node));
+        }
+        out.write("]}");
+        out.flush();
+    }
+
+    private void route(RouteResponse response) throws IOException {
+        PathResult result = response.getResult();
+        header(response);
+        out.write(",\"path\":[");
+        List<String> path = result.getPath();
+        for (int i = 0; i < path.size(); i++) {
+            if (i > 0)
+                out.write(',');
+            string(path.get(i));
+        }
+        out.write("],\"steps\":[");
+        List<Step> steps = result.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            out.write(i > 0 ? ",{\"from\":" : "{\"from\":");
+            string(step.getFrom());
+            out.write(",\"to\":");
+            string(step.getTo());
+            out.write(",\"mode\":");
+            string(step.getModeUsed());
+            out.write(",\"weight\":");
+            out.write(Integer.toString(step.getWeightUsed()));
+            out.write('}');
+        }
+        out.write(']');
+        if (response.isMultimodal()) {
+            out.write(",\"transfers\":[");
+            List<Transfer> transfers = result.getTransfers();
+            for (int i = 0; i < transfers.size(); i++) {
+                Transfer transfer = transfers.get(i);
+                out.write(i > 0 ? ",{\"at\":" : "{\"at\":");
+                string(transfer.getAt());
+                out.write(",\"from\":");
+                string(transfer.getFromMode());
+                out.write(",\"to\":");
+                string(transfer.getToMode());
+                out.write(",\"penalty\":");
+                out.write(Integer.toString(transfer.getPenalty()));
+                out.write('}');
+            }
+            out.write(']');
+        }
+        out.write('}');
+    }
+
+    // Steps become two parallel arrays: modes[i] and weights[i] describe the hop from path[i] to
+    // path[i + 1]. Transfers become [node, fromMode, toMode, penalty] tuples.
+    private void compactRoute(RouteResponse response, GraphSnapshot graph) throws IOException {
+        PathResult result = response.getResult();
+        header(response);
+        out.write(",\"topology\":");
+        out.write(Long.toString(response.getTopologyVersion()));
+        out.write(",\"path\":[");
+        List<String> path = result.getPath();
+        for (int i = 0; i < path.size(); i++) {
+            if (i > 0)
+                out.write(',');
+            out.write(Integer.toString(graph.nodeId(path.get(i))));
+        }
+        out.write("],\"modes\":[");
+        List<Step> steps = result.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            if (i > 0)
+                out.write(',');
+            out.write(Integer.toString(TravelMode.fromLabel(steps.get(i).getModeUsed()).ordinal()));
+        }
+        out.write("],\"weights\":[");
+        for (int i = 0; i < steps.size(); i++) {
+            if (i > 0)
+                out.write(',');
+            out.write(Integer.toString(steps.get(i).getWeightUsed()));
+        }
+        out.write(']');
+        if (response.isMultimodal()) {
+            out.write(",\"transfers\":[");
+            List<Transfer> transfers = result.getTransfers();
+            for (int i = 0; i < transfers.size(); i++) {
+                Transfer transfer = transfers.get(i);
+                out.write(i > 0 ? ",[" : "[");
+                out.write(Integer.toString(graph.nodeId(transfer.getAt())));
+                out.write(',');
+                out.write(Integer.toString(TravelMode.fromLabel(transfer.getFromMode()).ordinal()));
+                out.write(',');
+                out.write(Integer.toString(TravelMode.fromLabel(transfer.getToMode()).ordinal()));
+                out.write(',');
+                out.write(Integer.toString(transfer.getPenalty()));
+                out.write(']');
+            }
+            out.write(']');
+        }
+        out.write('}');
+    }
+
+    private void header(RouteResponse response) throws IOException {
+        out.write("{\"event\":");
+        string(response.getEvent());
+        out.write(",\"version\":");
+        out.write(Long.toString(response.getVersion()));
+        out.write(",\"distance\":");
+        out.write(Integer.toString(response.getResult().getDistance()));
+        out.write(",\"truncated\":");
+        out.write(response.getResult().isTruncated() ? "true" : "false");
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write("\\u00");
+                        out.write(Character.forDigit(c >> 4, 16));
+                        out.write(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,56 @@
+package src.navapp.model;
+
+import java.util.List;
+
+public class DistanceMatrix {
+    private final List<String> origins;
+    private final List<String> destinations;
+    private final int[][] distances;
+    private final long version;
+    private final boolean truncated;
+
+    public DistanceMatrix(List<String> origins, List<String> destinations, int[][] distances, long version) {
+        this(origins, destinations, distances, version, false);
+    }
+
+    private DistanceMatrix(List<String> origins, List<String> destinations, int[][] distances, long version,
+            boolean truncated) {
+        this.origins = origins;
+        this.destinations = destinations;
+        this.distances = distances;
+        this.version = version;
+        this.truncated = truncated;
+    }
+
+    // The same matrix, marked as cut short by the time budget: rows whose search did not finish
+    // are left unreachable.
+    public DistanceMatrix asTruncated() {
+        return new DistanceMatrix(origins, destinations, distances, version, true);
+    }
+
+    public List<String> getOrigins() {
+        return origins;
+    }
+
+    public List<String> getDestinations() {
+        return destinations;
+    }
+
+    // distances[i][j] is the travel time from origins[i] to destinations[j], Integer.MAX_VALUE
+    // when unreachable.
+    public int[][] getDistances() {
+        return distances;
+    }
+
+    public int getDistance(int origin, int destination) {
+        return distances[origin][destination];
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -24,11 +24,24 @@ public class EdgeWeight {
     }
 
     public int getMode(String mode) {
+        return getMode(TravelMode.fromLabel(mode));
+    }
+
+    public int getMode(TravelMode mode) {
         return switch (mode) {
-            case "walk" -> walk;
-            case "mixcommute" -> mixcommute;
-            case "jeep" -> (jeepney != null ? jeepney : Integer.MAX_VALUE);
-            default -> throw new IllegalArgumentException("Invalid mode: " + mode);
+            case WALK -> walk;
+            case MIXCOMMUTE -> mixcommute;
+            case JEEP -> (jeepney != null ? jeepney : Integer.MAX_VALUE);
         };
     }
+
+    public String getBestMode() {
+        int min = getBestWeight();
+        return (min == walk) ? "walk" : (min == mixcommute) ? "mixcommute" : "jeep";
+    }
+
+    public int getBestWeight() {
+        int jeep = (jeepney != null) ? jeepney : Integer.MAX_VALUE;
+        return Math.min(walk, Math.min(mixcommute, jeep));
+    }
 }
@@ -0,0 +1,69 @@
+package src.navapp.model;
+
+import java.util.List;
+
+public class LoadReport {
+    private final int files;
+    private final long rows;
+    private final long malformedRows;
+    private final List<String> malformedSamples;
+    private final List<String> failedFiles;
+    private final int nodes;
+    private final int edges;
+    private final long elapsedMillis;
+
+    public LoadReport(int files, long rows, long malformedRows, List<String> malformedSamples,
+            List<String> failedFiles, int nodes, int edges, long elapsedMillis) {
+        this.files = files;
+        this.rows = rows;
+        this.malformedRows = malformedRows;
+        this.malformedSamples = malformedSamples;
+        this.failedFiles = failedFiles;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getMalformedRows() {
+        return malformedRows;
+    }
+
+    public List<String> getMalformedSamples() {
+        return malformedSamples;
+    }
+
+    public List<String> getFailedFiles() {
+        return failedFiles;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public int getEdges() {
+        return edges;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean hasProblems() {
+        return malformedRows > 0 || !failedFiles.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "Loaded " + nodes + " nodes and " + edges + " edges from " + files + " file(s), " + rows
+                + " rows in " + elapsedMillis + " ms; " + malformedRows + " malformed row(s) " + malformedSamples
+                + ", failed file(s) " + failedFiles;
+    }
+}
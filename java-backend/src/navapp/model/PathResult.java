@@ -0,0 +1,58 @@
+package src.navapp.model;
+
+import java.util.List;
+
+public class PathResult {
+    private final List<String> path;
+    private final int distance;
+    private final List<Step> steps;
+    private final List<Transfer> transfers;
+    private final boolean truncated;
+
+    public PathResult(List<String> path, int distance, List<Step> steps) {
+        this(path, distance, steps, List.of());
+    }
+
+    public PathResult(List<String> path, int distance, List<Step> steps, List<Transfer> transfers) {
+        this(path, distance, steps, transfers, false);
+    }
+
+    private PathResult(List<String> path, int distance, List<Step> steps, List<Transfer> transfers,
+            boolean truncated) {
+        this.path = path;
+        this.distance = distance;
+        this.steps = steps;
+        this.transfers = transfers;
+        this.truncated = truncated;
+    }
+
+    public static PathResult unreachable() {
+        return new PathResult(List.of(), Integer.MAX_VALUE, List.of());
+    }
+
+    // The same route, marked as the best found before the search ran out of time rather than a
+    // proven optimum; an unreachable result marked this way means none was found in time.
+    public PathResult asTruncated() {
+        return new PathResult(path, distance, steps, transfers, true);
+    }
+
+    public List<String> getPath() {
+        return path;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public List<Transfer> getTransfers() {
+        return transfers;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
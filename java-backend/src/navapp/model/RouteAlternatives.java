@@ -0,0 +1,23 @@
+package src.navapp.model;
+
+import java.util.List;
+
+public class RouteAlternatives {
+    private final List<PathResult> routes;
+    private final boolean timedOut;
+
+    public RouteAlternatives(List<PathResult> routes, boolean timedOut) {
+        this.routes = routes;
+        this.timedOut = timedOut;
+    }
+
+    // Cheapest first; empty when the destination is unreachable.
+    public List<PathResult> getRoutes() {
+        return routes;
+    }
+
+    // True when the time budget ran out before the requested number of alternatives was found.
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
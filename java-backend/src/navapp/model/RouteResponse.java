@@ -0,0 +1,40 @@
+package src.navapp.model;
+
+// The body of a /api/shortest-path response, kept typed so it can be streamed straight from the
+// PathResult instead of being copied into maps first.
+public class RouteResponse {
+    private final String event;
+    private final long version;
+    private final long topologyVersion;
+    private final PathResult result;
+    private final boolean multimodal;
+
+    public RouteResponse(String event, long version, long topologyVersion, PathResult result, boolean multimodal) {
+        this.event = event;
+        this.version = version;
+        this.topologyVersion = topologyVersion;
+        this.result = result;
+        this.multimodal = multimodal;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    public PathResult getResult() {
+        return result;
+    }
+
+    // Only multimodal routes report transfers.
+    public boolean isMultimodal() {
+        return multimodal;
+    }
+}
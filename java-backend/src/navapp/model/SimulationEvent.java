@@ -5,12 +5,31 @@ public class SimulationEvent {
     private final String from;
     private final String to;
     private final String message;
+    private final String mode;
+    private final int delta;
+    private final long version;
 
     public SimulationEvent(String type, String from, String to, String message) {
+        this(type, from, to, message, null, 0, 0);
+    }
+
+    public SimulationEvent(String type, String from, String to, String message, String mode, int delta) {
+        this(type, from, to, message, mode, delta, 0);
+    }
+
+    private SimulationEvent(String type, String from, String to, String message, String mode, int delta,
+            long version) {
         this.type = type;
         this.from = from;
         this.to = to;
         this.message = message;
+        this.mode = mode;
+        this.delta = delta;
+        this.version = version;
+    }
+
+    public SimulationEvent withVersion(long version) {
+        return new SimulationEvent(type, from, to, message, mode, delta, version);
     }
 
     public String getType() {
@@ -28,4 +47,16 @@ public class SimulationEvent {
     public String getMessage() {
         return message;
     }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public long getVersion() {
+        return version;
+    }
 }
@@ -11,6 +11,10 @@ public class Step {
         this.weightUsed = weightUsed;
     }
 
+    public Step(String from, String to, TravelMode modeUsed, int weightUsed) {
+        this(from, to, modeUsed.getLabel(), weightUsed);
+    }
+
     public String getFrom() {
         return from;
     }
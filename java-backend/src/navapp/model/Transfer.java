@@ -0,0 +1,31 @@
+package src.navapp.model;
+
+public class Transfer {
+    private final String at;
+    private final String fromMode;
+    private final String toMode;
+    private final int penalty;
+
+    public Transfer(String at, String fromMode, String toMode, int penalty) {
+        this.at = at;
+        this.fromMode = fromMode;
+        this.toMode = toMode;
+        this.penalty = penalty;
+    }
+
+    public String getAt() {
+        return at;
+    }
+
+    public String getFromMode() {
+        return fromMode;
+    }
+
+    public String getToMode() {
+        return toMode;
+    }
+
+    public int getPenalty() {
+        return penalty;
+    }
+}
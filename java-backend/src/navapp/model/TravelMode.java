@@ -0,0 +1,32 @@
+package src.navapp.model;
+
+public enum TravelMode {
+    WALK("walk"),
+    MIXCOMMUTE("mixcommute"),
+    JEEP("jeep");
+
+    private static final TravelMode[] VALUES = values();
+
+    private final String label;
+
+    TravelMode(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static TravelMode of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static TravelMode fromLabel(String label) {
+        return switch (label) {
+            case "walk" -> WALK;
+            case "mixcommute" -> MIXCOMMUTE;
+            case "jeep" -> JEEP;
+            default -> throw new IllegalArgumentException("Invalid mode: " + label);
+        };
+    }
+}
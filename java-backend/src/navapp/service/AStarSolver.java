@@ -0,0 +1,26 @@
+package src.navapp.service;
+
+// The structural bound needs no coordinates: a route leaving `node` pays at least its cheapest
+// incident edge, and a route arriving at the goal pays at least the goal's. When every node has
+// coordinates the straight-line distance at the fastest speed any road allows is usually much
+// tighter, and the larger of the two is used; on a partly located graph only the structural bound
+// is safe.
+public class AStarSolver extends DijkstraSolver {
+    @Override
+    protected Estimator estimator(GraphSnapshot graph, int target) {
+        int goalBound = cheapestIncident(graph, target);
+        NodeCoordinates coordinates = graph.coordinates();
+        if (coordinates != null && coordinates.complete())
+            return node -> node == target ? 0
+                    : Math.max(Math.max(goalBound, cheapestIncident(graph, node)),
+                            coordinates.lowerBound(node, target));
+        return node -> node == target ? 0 : Math.max(goalBound, cheapestIncident(graph, node));
+    }
+
+    private static int cheapestIncident(GraphSnapshot graph, int node) {
+        int min = Integer.MAX_VALUE;
+        for (int a = graph.firstArc(node), end = graph.endArc(node); a < end; a++)
+            min = Math.min(min, graph.bestWeight(graph.arcEdge(a)));
+        return min == GraphSnapshot.BLOCKED ? 0 : min;
+    }
+}
@@ -0,0 +1,151 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.RouteAlternatives;
+import src.navapp.model.Step;
+
+import java.time.Duration;
+import java.util.*;
+
+// Alternative routes by the penalty method: after each search, the edges of the route found are
+// made PENALTY_PERCENT dearer per use and the search runs again, which pushes later routes off the
+// ones already seen. A candidate is kept only if it shares at most `maxSimilarity` of its length
+// with every kept route (measured against the shorter of the two). Searching stops at k routes,
+// after MAX_ATTEMPTS_PER_ROUTE * k searches, or when the time budget runs out. The budget covers
+// the first search too, so a budget too small for even the optimal route returns no routes and
+// reports timedOut.
+public class AlternativeRouteFinder {
+    private static final int PENALTY_PERCENT = 40;
+    private static final int MAX_ATTEMPTS_PER_ROUTE = 4;
+
+    public RouteAlternatives find(GraphSnapshot graph, String startNode, String endNode, int k,
+            double maxSimilarity, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        int source = graph.nodeId(startNode), target = graph.nodeId(endNode);
+        if (source < 0 || target < 0)
+            return new RouteAlternatives(List.of(), false);
+        if (source == target)
+            return new RouteAlternatives(List.of(new PathResult(List.of(startNode), 0, List.of())), false);
+
+        LongIntHashMap uses = new LongIntHashMap(64);
+        // (kept route index, edge) pairs, so a candidate's overlap with each kept route costs one
+        // lookup per edge.
+        LongIntHashMap keptEdges = new LongIntHashMap(64);
+        List<int[]> kept = new ArrayList<>();
+        List<PathResult> routes = new ArrayList<>();
+        boolean timedOut = false;
+        for (int attempt = 0; routes.size() < k && attempt < MAX_ATTEMPTS_PER_ROUTE * k; attempt++) {
+            if (System.nanoTime() > deadline) {
+                timedOut = true;
+                break;
+            }
+            int[] edges = search(graph, source, target, uses, deadline);
+            if (edges == null) {
+                timedOut = System.nanoTime() > deadline;
+                break;
+            }
+
+            for (int edge : edges)
+                uses.put(edge, Math.max(uses.get(edge), 0) + 1);
+            if (isDistinct(graph, edges, kept, keptEdges, maxSimilarity)) {
+                for (int edge : edges)
+                    keptEdges.put(keptEdge(kept.size(), edge), 1);
+                kept.add(edges);
+                routes.add(toResult(graph, source, edges));
+            }
+        }
+        return new RouteAlternatives(routes, timedOut);
+    }
+
+    private static boolean isDistinct(GraphSnapshot graph, int[] edges, List<int[]> kept, LongIntHashMap keptEdges,
+            double maxSimilarity) {
+        int length = length(graph, edges);
+        for (int route = 0; route < kept.size(); route++) {
+            int shared = 0;
+            for (int edge : edges)
+                if (keptEdges.get(keptEdge(route, edge)) != LongIntHashMap.MISSING)
+                    shared += graph.bestWeight(edge);
+            int shorter = Math.min(length, length(graph, kept.get(route)));
+            if (shorter == 0 || (double) shared / shorter > maxSimilarity)
+                return false;
+        }
+        return true;
+    }
+
+    private static long keptEdge(int route, int edge) {
+        return (long) route << 32 | edge;
+    }
+
+    private static int length(GraphSnapshot graph, int[] edges) {
+        int length = 0;
+        for (int edge : edges)
+            length += graph.bestWeight(edge);
+        return length;
+    }
+
+    private static PathResult toResult(GraphSnapshot graph, int source, int[] edges) {
+        List<String> path = new ArrayList<>();
+        List<Step> steps = new ArrayList<>();
+        path.add(graph.nodeName(source));
+        int at = source;
+        for (int edge : edges) {
+            int next = graph.edgeFrom(edge) == at ? graph.edgeTo(edge) : graph.edgeFrom(edge);
+            path.add(graph.nodeName(next));
+            steps.add(new Step(graph.nodeName(at), graph.nodeName(next), graph.bestMode(edge), graph.bestWeight(edge)));
+            at = next;
+        }
+        return new PathResult(path, length(graph, edges), steps);
+    }
+
+    // Dijkstra on penalised weights. Returns the route's edges in order, or null when the target
+    // is unreachable or the deadline passes mid-search.
+    private static int[] search(GraphSnapshot graph, int source, int target, LongIntHashMap uses, long deadline) {
+        SearchScratch scratch = SearchScratch.get(graph.nodeCount());
+        int[] dist = scratch.dist;
+        int[] parent = scratch.parent;
+        int[] parentEdge = scratch.parentEdge;
+        IndexedMinHeap heap = scratch.heap;
+        try {
+            scratch.label(source, 0);
+            heap.push(source, 0);
+            int popped = 0;
+            while (!heap.isEmpty()) {
+                int u = heap.pop();
+                if (u == target)
+                    break;
+                if ((++popped & 1023) == 0 && System.nanoTime() > deadline)
+                    return null;
+
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                    int edge = graph.arcEdge(a);
+                    int weight = graph.bestWeight(edge);
+                    if (weight == GraphSnapshot.BLOCKED)
+                        continue;
+
+                    int used = uses.get(edge);
+                    long penalised = used > 0 ? weight + (long) weight * PENALTY_PERCENT * used / 100 : weight;
+                    int v = graph.arcTarget(a);
+                    long candidate = dist[u] + penalised;
+                    if (candidate < dist[v]) {
+                        scratch.label(v, (int) candidate);
+                        parent[v] = u;
+                        parentEdge[v] = edge;
+                        heap.push(v, candidate);
+                    }
+                }
+            }
+
+            if (dist[target] == SearchScratch.UNLABELLED)
+                return null;
+            int hops = 0;
+            for (int v = target; v != source; v = parent[v])
+                hops++;
+            int[] edges = new int[hops];
+            for (int v = target; v != source; v = parent[v])
+                edges[--hops] = parentEdge[v];
+            return edges;
+        } finally {
+            scratch.reset();
+        }
+    }
+}
@@ -1,32 +1,98 @@
-package navapp.service;
+package src.navapp.service;
 
-import navapp.model.EdgeWeight;
-import navapp.model.Step;
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
 
 import java.util.*;
 
-public class BackTrackAlgo {
-    private final Graph graph;
-    private int bestDistance;
-    private List<String> bestPath;
-    private List<Step> bestSteps;
+public class BackTrackAlgo implements PathSolver {
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
 
-    public BackTrackAlgo(Graph graph) {
-        this.graph = graph;
+        int start = graph.nodeId(startNode), end = graph.nodeId(endNode);
+        if (start < 0 || end < 0)
+            return PathResult.unreachable();
+
+        Search search = new Search(graph, end, SearchBudget.current());
+        search.visited[start] = true;
+        search.backtrack(start, 0, 0);
+        SearchEffort.record(search.settled, search.relaxed);
+
+        PathResult result = search.bestDistance == Integer.MAX_VALUE ? PathResult.unreachable()
+                : result(graph, start, search.bestEdges, search.bestDepth, search.bestDistance);
+        return search.stopped ? result.asTruncated() : result;
     }
 
-    public void findShortestPath(String startNode, String endNode) {
-        Set<String> visited = new HashSet<>();
+    static PathResult result(GraphSnapshot graph, int start, int[] edges, int depth, int distance) {
         List<String> path = new ArrayList<>();
         List<Step> steps = new ArrayList<>();
+        path.add(graph.nodeName(start));
+        int from = start;
+        for (int i = 0; i < depth; i++) {
+            int edge = edges[i];
+            int to = graph.edgeFrom(edge) == from ? graph.edgeTo(edge) : graph.edgeFrom(edge);
+            path.add(graph.nodeName(to));
+            steps.add(new Step(graph.nodeName(from), graph.nodeName(to), graph.bestMode(edge),
+                    graph.bestWeight(edge)));
+            from = to;
+        }
+        return new PathResult(path, distance, steps);
+    }
 
-        path.add(startNode);
-        visited.add(startNode);
-        bestDistance = Integer.MAX_VALUE;
-        bestPath = new ArrayList<>();
-        bestSteps = new ArrayList<>();
+    // The current path is an int stack of edge ids; Steps are only built for the final best path,
+    // so descending and backing out of the tree allocates nothing.
+    private static final class Search {
+        private final GraphSnapshot graph;
+        private final int endNode;
+        private final SearchBudget budget;
+        private final boolean[] visited;
+        private final int[] edges;
+        private final int[] bestEdges;
+        private int bestDepth;
+        private int bestDistance = Integer.MAX_VALUE;
+        private long settled, relaxed;
+        private boolean stopped;
 
-        backtrack(path, visited, 0, steps, endNode);
-    }
+        Search(GraphSnapshot graph, int endNode, SearchBudget budget) {
+            this.graph = graph;
+            this.endNode = endNode;
+            this.budget = budget;
+            this.visited = new boolean[graph.nodeCount()];
+            this.edges = new int[graph.nodeCount()];
+            this.bestEdges = new int[graph.nodeCount()];
+        }
 
-private void backtrack(List<String> path, Set<String> visited, int currentDistance, List<Step> steps,
+        private void backtrack(int current, int depth, int currentDistance) {
+            settled++;
+            if ((settled & 1023) == 0 && budget.expired())
+                stopped = true;
+            if (stopped)
+                return;
+            if (current == endNode) {
+                if (currentDistance < bestDistance) {
+                    bestDistance = currentDistance;
+                    bestDepth = depth;
+                    System.arraycopy(edges, 0, bestEdges, 0, depth);
+                }
+                return;
+            }
+
+            relaxed += graph.endArc(current) - graph.firstArc(current);
+            for (int a = graph.firstArc(current), end = graph.endArc(current); a < end; a++) {
+                int edge = graph.arcEdge(a);
+                int neighbor = graph.arcTarget(a);
+                int weight = graph.bestWeight(edge);
+                if (!visited[neighbor] && weight != GraphSnapshot.BLOCKED) {
+                    visited[neighbor] = true;
+                    edges[depth] = edge;
+
+                    backtrack(neighbor, depth + 1, currentDistance + weight);
+
+                    visited[neighbor] = false;
+                }
+            }
+        }
+    }
+}
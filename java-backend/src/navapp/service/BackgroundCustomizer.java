@@ -0,0 +1,33 @@
+package src.navapp.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// One daemon thread that reruns a solver's preprocessing for the newest snapshot. Requests made
+// while a run is already queued are coalesced into it, and the flag is cleared before the run
+// starts, so a request arriving mid-run queues exactly one more.
+final class BackgroundCustomizer {
+    private final Runnable refresh;
+    private final ExecutorService thread;
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    BackgroundCustomizer(String threadName, Runnable refresh) {
+        this.refresh = refresh;
+        this.thread = Executors.newSingleThreadExecutor(task -> {
+            Thread t = new Thread(task, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void schedule() {
+        if (queued.compareAndSet(false, true))
+            thread.execute(this::run);
+    }
+
+    private void run() {
+        queued.set(false);
+        refresh.run();
+    }
+}
@@ -0,0 +1,108 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+
+import java.util.*;
+
+// Dijkstra from both ends at once; roads are two-way, so the backward search runs over the same
+// arcs. Each side expands its cheaper frontier, every arc that reaches a node the other side has
+// labelled is a candidate meeting, and the search stops once the two frontier keys together
+// cannot beat the best candidate.
+public class BidirectionalDijkstraSolver implements PathSolver {
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
+
+        int source = graph.nodeId(startNode), target = graph.nodeId(endNode);
+        if (source < 0 || target < 0)
+            return PathResult.unreachable();
+
+        SearchScratch forward = SearchScratch.get(graph.nodeCount(), 0);
+        SearchScratch backward = SearchScratch.get(graph.nodeCount(), 1);
+        try {
+            return search(graph, forward, backward, source, target, startNode);
+        } finally {
+            forward.reset();
+            backward.reset();
+        }
+    }
+
+    private static PathResult search(GraphSnapshot graph, SearchScratch forwardScratch, SearchScratch backwardScratch,
+            int source, int target, String startNode) {
+        int[] distForward = forwardScratch.dist, distBackward = backwardScratch.dist;
+        int[] parentForward = forwardScratch.parent, parentBackward = backwardScratch.parent;
+        int[] edgeForward = forwardScratch.parentEdge, edgeBackward = backwardScratch.parentEdge;
+        IndexedMinHeap forward = forwardScratch.heap, backward = backwardScratch.heap;
+
+        forwardScratch.label(source, 0);
+        backwardScratch.label(target, 0);
+        forward.push(source, 0);
+        backward.push(target, 0);
+        long best = Long.MAX_VALUE;
+        int meet = -1;
+
+        SearchBudget budget = SearchBudget.current();
+        boolean truncated = false;
+        long settled = 0, relaxed = 0;
+        while (!forward.isEmpty() && !backward.isEmpty() && forward.peekKey() + backward.peekKey() < best) {
+            boolean fromStart = forward.peekKey() <= backward.peekKey();
+            SearchScratch side = fromStart ? forwardScratch : backwardScratch;
+            IndexedMinHeap heap = side.heap;
+            int[] dist = fromStart ? distForward : distBackward, other = fromStart ? distBackward : distForward;
+            int[] parent = fromStart ? parentForward : parentBackward, parentEdge = fromStart ? edgeForward : edgeBackward;
+
+            int u = heap.pop();
+            settled++;
+            if ((settled & 1023) == 0 && budget.expired()) {
+                truncated = true;
+                break;
+            }
+            relaxed += graph.endArc(u) - graph.firstArc(u);
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int edge = graph.arcEdge(a);
+                int weight = graph.bestWeight(edge);
+                if (weight == GraphSnapshot.BLOCKED)
+                    continue;
+
+                int v = graph.arcTarget(a);
+                int candidate = dist[u] + weight;
+                if (candidate < dist[v]) {
+                    side.label(v, candidate);
+                    parent[v] = u;
+                    parentEdge[v] = edge;
+                    heap.push(v, candidate);
+                }
+                if (other[v] != Integer.MAX_VALUE && (long) dist[v] + other[v] < best) {
+                    best = (long) dist[v] + other[v];
+                    meet = v;
+                }
+            }
+        }
+        SearchEffort.record(settled, relaxed);
+
+        // Stopped early, the best meeting point found so far still joins two real paths; it is
+        // just not proven shortest.
+        if (meet < 0)
+            return truncated ? PathResult.unreachable().asTruncated() : PathResult.unreachable();
+
+        List<String> bestPath = new ArrayList<>();
+        List<Step> bestSteps = new ArrayList<>();
+        for (int v = meet; v != source; v = parentForward[v]) {
+            String from = graph.nodeName(parentForward[v]), to = graph.nodeName(v);
+            bestPath.add(to);
+            bestSteps.add(new Step(from, to, graph.bestMode(edgeForward[v]), graph.bestWeight(edgeForward[v])));
+        }
+        bestPath.add(startNode);
+        Collections.reverse(bestPath);
+        Collections.reverse(bestSteps);
+        for (int v = meet; v != target; v = parentBackward[v]) {
+            String from = graph.nodeName(v), to = graph.nodeName(parentBackward[v]);
+            bestPath.add(to);
+            bestSteps.add(new Step(from, to, graph.bestMode(edgeBackward[v]), graph.bestWeight(edgeBackward[v])));
+        }
+        PathResult result = new PathResult(bestPath, (int) best, bestSteps);
+        return truncated ? result.asTruncated() : result;
+    }
+}
@@ -0,0 +1,392 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+import src.navapp.model.TravelMode;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Contraction hierarchy over one snapshot and one metric: either a single travel mode or, when
+// the mode is null, the cheapest mode per edge that the other solvers route on. Nodes are
+// contracted in edge-difference order and every shortcut remembers the two arcs it replaces, so
+// a query runs two small upward searches and unpacks the meeting path back into original edges.
+// Contraction stops once the cheapest remaining node is too well connected to remove without a
+// burst of shortcuts; the nodes left over form a core that both searches explore in full.
+public final class ContractionHierarchy {
+    private static final int INF = Integer.MAX_VALUE;
+    // Priority estimates use a much shorter witness search than real contraction: overcounting
+    // shortcuts only makes a node look slightly more expensive than it is.
+    private static final int ESTIMATE_SETTLE_LIMIT = 50;
+    private static final int CONTRACT_SETTLE_LIMIT = 500;
+    private static final int CORE_DEGREE = 32;
+
+    final long version;
+    final TravelMode mode;
+    final int[] rank;
+    // Nodes ranked at or above this were never contracted.
+    final int coreStart;
+    // Arc columns. Original arcs carry the snapshot edge they stand for; shortcuts carry -1 and
+    // the two arcs they were made from.
+    final int[] arcFrom, arcTo, arcWeight, arcEdge, arcFirst, arcSecond;
+    // Every arc is stored under its lower-ranked endpoint, and arcs inside the core under both.
+    final int[] upOffsets, upArcs;
+
+    ContractionHierarchy(long version, TravelMode mode, int[] rank, int coreStart, int[] arcFrom, int[] arcTo, int[] arcWeight,
+                         int[] arcEdge, int[] arcFirst, int[] arcSecond,
+                         int[] upOffsets, int[] upArcs) {
+        this.version = version;
+        this.mode = mode;
+        this.rank = rank;
+        this.coreStart = coreStart;
+        this.arcFrom = arcFrom;
+        this.arcTo = arcTo;
+        this.arcWeight = arcWeight;
+        this.arcEdge = arcEdge;
+        this.arcFirst = arcFirst;
+        this.arcSecond = arcSecond;
+        this.upOffsets = upOffsets;
+        this.upArcs = upArcs;
+    }
+
+    public static ContractionHierarchy build(GraphSnapshot graph) {
+        return build(graph, null);
+    }
+
+    public static ContractionHierarchy build(GraphSnapshot graph, TravelMode mode) {
+        return new Contraction(graph, mode).run();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public TravelMode getMode() {
+        return mode;
+    }
+
+    public int coreSize() {
+        return rank.length - coreStart;
+    }
+
+    public int shortcutCount() {
+        int shortcuts = 0;
+        for (int edge : arcEdge)
+            if (edge < 0)
+                shortcuts++;
+        return shortcuts;
+    }
+
+    // `graph` must be the snapshot this hierarchy was built from; it supplies names and the
+    // per-step mode and weight.
+    public PathResult query(GraphSnapshot graph, String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
+
+        int source = graph.nodeId(startNode), target = graph.nodeId(endNode);
+        if (source < 0 || target < 0)
+            return PathResult.unreachable();
+
+        HierarchySearch search = HierarchySearch.get(rank.length);
+        int[] arcs = search.route(upOffsets, upArcs, arcFrom, arcTo, arcWeight, source, target);
+        if (arcs == null)
+            return search.truncated() ? PathResult.unreachable().asTruncated() : PathResult.unreachable();
+
+        List<Step> steps = new ArrayList<>();
+        List<String> path = new ArrayList<>();
+        path.add(startNode);
+        int at = source;
+        for (int arc : arcs)
+            at = unpack(graph, arc, at, path, steps);
+        return new PathResult(path, (int) search.distance(), steps);
+    }
+
+    // Appends the original edges behind `arc`, walked starting at `from`, and returns the node
+    // it ends on.
+    private int unpack(GraphSnapshot graph, int arc, int from, List<String> path, List<Step> steps) {
+        int edge = arcEdge[arc];
+        if (edge < 0) {
+            boolean forward = arcFrom[arc] == from;
+            int middle = unpack(graph, forward ? arcFirst[arc] : arcSecond[arc], from, path, steps);
+            return unpack(graph, forward ? arcSecond[arc] : arcFirst[arc], middle, path, steps);
+        }
+
+        int to = HierarchySearch.other(arcFrom, arcTo, arc, from);
+        TravelMode used = mode != null ? mode : graph.bestMode(edge);
+        path.add(graph.nodeName(to));
+        steps.add(new Step(graph.nodeName(from), graph.nodeName(to), used, arcWeight[arc]));
+        return to;
+    }
+
+    static int metricWeight(GraphSnapshot graph, int edge, TravelMode mode) {
+        if (graph.isBlocked(edge))
+            return INF;
+        return mode == null ? graph.bestWeight(edge) : graph.weight(edge, mode);
+    }
+
+    // Preprocessing state. Adjacency lists shrink logically as nodes are contracted: contracted
+    // neighbours are skipped rather than removed.
+    private static final class Contraction {
+        final GraphSnapshot graph;
+        final TravelMode mode;
+        final int n;
+        int[][] adjNode, adjArc;
+        int[] adjSize;
+        final boolean[] contracted;
+        final int[] deletedNeighbours;
+        final int[] level;
+
+        int arcCount;
+        int[] arcFrom = new int[16], arcTo = new int[16], arcWeight = new int[16], arcEdge = new int[16],
+ arcFirst = new int[16], arcSecond = new int[16];
+
+        Contraction(GraphSnapshot graph, TravelMode mode) {
+            this.graph = graph;
+            this.mode = mode;
+            this.n = graph.nodeCount();
+            adjNode = new int[n][];
+            adjArc = new int[n][];
+            adjSize = new int[n];
+            contracted = new boolean[n];
+            deletedNeighbours = new int[n];
+            level = new int[n];
+            for (int u = 0; u < n; u++) {
+                int degree = graph.endArc(u) - graph.firstArc(u);
+                adjNode[u] = new int[Math.max(degree, 2)];
+                adjArc[u] = new int[Math.max(degree, 2)];
+            }
+
+            for (int e = 0, m = graph.edgeCount(); e < m; e++) {
+                int u = graph.edgeFrom(e), v = graph.edgeTo(e);
+                int weight = metricWeight(graph, e, mode);
+                if (weight != INF && u != v)
+                    connect(u, v, weight, e, -1, -1);
+            }
+        }
+
+        ContractionHierarchy run() {
+            // Initial priorities only read the graph, so they are simulated in parallel.
+            int[] priority = new int[n];
+            ThreadLocal<Witness> witnesses = ThreadLocal.withInitial(() -> new Witness(n));
+            IntStream.range(0, n).parallel().forEach(v -> priority[v] = priority(v, witnesses.get()));
+
+            IndexedMinHeap queue = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++)
+                queue.push(v, priority[v]);
+
+            Witness witness = witnesses.get();
+            int[] rank = new int[n];
+            int next = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.pop();
+                // Lazy update: neighbours are not re-simulated after each contraction, so the stored
+                // priority may be stale; recompute it and defer the node if it no longer wins.
+                int current = priority(v, witness);
+                if (!queue.isEmpty() && current > queue.peekKey()) {
+                    queue.push(v, current);
+                    continue;
+                }
+                if (degree(v) > CORE_DEGREE) {
+                    queue.push(v, current);
+                    break;
+                }
+
+                contract(v, witness);
+                contracted[v] = true;
+                rank[v] = next++;
+                for (int i = 0; i < adjSize[v]; i++) {
+                    int u = adjNode[v][i];
+                    if (!contracted[u]) {
+                        deletedNeighbours[u]++;
+                        level[u] = Math.max(level[u], level[v] + 1);
+                    }
+                }
+            }
+            int coreStart = next;
+            while (!queue.isEmpty())
+                rank[queue.pop()] = next++;
+            return finish(rank, coreStart);
+        }
+
+        int degree(int v) {
+            int degree = 0;
+            for (int i = 0; i < adjSize[v]; i++)
+                if (!contracted[adjNode[v][i]])
+                    degree++;
+            return degree;
+        }
+
+        int priority(int v, Witness witness) {
+            return 2 * (shortcuts(v, witness, ESTIMATE_SETTLE_LIMIT, false) - degree(v)) + deletedNeighbours[v]
+                    + level[v];
+        }
+
+        void contract(int v, Witness witness) {
+            shortcuts(v, witness, CONTRACT_SETTLE_LIMIT, true);
+        }
+
+        // Counts (and, when `add` is set, inserts) the shortcuts needed to bypass v: a pair of
+        // neighbours needs one unless a witness path avoiding v is at least as short.
+        int shortcuts(int v, Witness witness, int settleLimit, boolean add) {
+            int[] nodes = adjNode[v], arcs = adjArc[v];
+            int size = adjSize[v], count = 0;
+            for (int i = 0; i < size; i++) {
+                int u = nodes[i];
+                if (contracted[u])
+                    continue;
+                int viaU = arcWeight[arcs[i]];
+
+                // A limit of zero is a real bound: pairs joined by free roads still need a witness.
+                long limit = -1;
+                for (int j = i + 1; j < size; j++)
+                    if (!contracted[nodes[j]])
+                        limit = Math.max(limit, (long) viaU + arcWeight[arcs[j]]);
+                if (limit < 0)
+                    continue;
+
+                witness.search(this, u, v, limit, settleLimit);
+                for (int j = i + 1; j < size; j++) {
+                    int x = nodes[j];
+                    if (contracted[x])
+                        continue;
+                    long via = (long) viaU + arcWeight[arcs[j]];
+                    if (witness.dist[x] <= via)
+                        continue;
+                    count++;
+                    if (add)
+                        connect(u, x, (int) via, -1, arcs[i], arcs[j]);
+                }
+                witness.reset();
+            }
+            return count;
+        }
+
+        // Adds an arc between u and v, or lowers the existing one when the new arc is cheaper.
+        void connect(int u, int v, int weight, int edge, int first, int second) {
+            for (int i = 0; i < adjSize[u]; i++) {
+                if (adjNode[u][i] != v)
+                    continue;
+                int arc = adjArc[u][i];
+                if (weight < arcWeight[arc]) {
+                    arcFrom[arc] = u;
+                    arcTo[arc] = v;
+                    arcWeight[arc] = weight;
+                    arcEdge[arc] = edge;
+                    arcFirst[arc] = first;
+                    arcSecond[arc] = second;
+                }
+                return;
+            }
+
+            if (arcCount == arcFrom.length) {
+                int capacity = arcCount * 2;
+                arcFrom = Arrays.copyOf(arcFrom, capacity);
+                arcTo = Arrays.copyOf(arcTo, capacity);
+                arcWeight = Arrays.copyOf(arcWeight, capacity);
+                arcEdge = Arrays.copyOf(arcEdge, capacity);
+                arcFirst = Arrays.copyOf(arcFirst, capacity);
+                arcSecond = Arrays.copyOf(arcSecond, capacity);
+            }
+            int arc = arcCount++;
+            arcFrom[arc] = u;
+            arcTo[arc] = v;
+            arcWeight[arc] = weight;
+            arcEdge[arc] = edge;
+            arcFirst[arc] = first;
+            arcSecond[arc] = second;
+            append(u, v, arc);
+            append(v, u, arc);
+        }
+
+        void append(int u, int v, int arc) {
+            if (adjSize[u] == adjNode[u].length) {
+                adjNode[u] = Arrays.copyOf(adjNode[u], adjSize[u] * 2);
+                adjArc[u] = Arrays.copyOf(adjArc[u], adjSize[u] * 2);
+            }
+            adjNode[u][adjSize[u]] = v;
+            adjArc[u][adjSize[u]++] = arc;
+        }
+
+        ContractionHierarchy finish(int[] rank, int coreStart) {
+            int[] upOffsets = new int[n + 1];
+            for (int arc = 0; arc < arcCount; arc++) {
+                upOffsets[lower(rank, arc) + 1]++;
+                if (inCore(rank, coreStart, arc))
+                    upOffsets[higher(rank, arc) + 1]++;
+            }
+            for (int u = 0; u < n; u++)
+                upOffsets[u + 1] += upOffsets[u];
+            int[] fill = Arrays.copyOf(upOffsets, n);
+            int[] upArcs = new int[upOffsets[n]];
+            for (int arc = 0; arc < arcCount; arc++) {
+                upArcs[fill[lower(rank, arc)]++] = arc;
+                if (inCore(rank, coreStart, arc))
+                    upArcs[fill[higher(rank, arc)]++] = arc;
+            }
+
+            return new ContractionHierarchy(graph.getVersion(), mode, rank, coreStart,
+                    Arrays.copyOf(arcFrom, arcCount), Arrays.copyOf(arcTo, arcCount),
+                    Arrays.copyOf(arcWeight, arcCount), Arrays.copyOf(arcEdge, arcCount),
+                    Arrays.copyOf(arcFirst, arcCount), Arrays.copyOf(arcSecond, arcCount), upOffsets, upArcs);
+        }
+
+        boolean inCore(int[] rank, int coreStart, int arc) {
+            return rank[arcFrom[arc]] >= coreStart && rank[arcTo[arc]] >= coreStart;
+        }
+
+        int lower(int[] rank, int arc) {
+            return rank[arcFrom[arc]] < rank[arcTo[arc]] ? arcFrom[arc] : arcTo[arc];
+        }
+
+        int higher(int[] rank, int arc) {
+            return rank[arcFrom[arc]] < rank[arcTo[arc]] ? arcTo[arc] : arcFrom[arc];
+        }
+    }
+
+    // Bounded local Dijkstra among uncontracted nodes that skips the node being contracted. Giving
+    // up early only costs an unnecessary shortcut, never a wrong distance.
+    private static final class Witness {
+        final long[] dist;
+        final IndexedMinHeap heap;
+        int[] touched = new int[64];
+        int touchedCount;
+
+        Witness(int n) {
+            dist = new long[n];
+            Arrays.fill(dist, Long.MAX_VALUE);
+            heap = new IndexedMinHeap(n);
+        }
+
+        void search(Contraction c, int source, int skip, long limit, int settleLimit) {
+            visit(source, 0);
+            int settled = 0;
+            while (!heap.isEmpty() && heap.peekKey() <= limit && settled++ < settleLimit) {
+                int u = heap.pop();
+                for (int i = 0; i < c.adjSize[u]; i++) {
+                    int v = c.adjNode[u][i];
+                    if (v != skip && !c.contracted[v])
+                        visit(v, dist[u] + c.arcWeight[c.adjArc[u][i]]);
+                }
+            }
+        }
+
+        void visit(int v, long candidate) {
+            if (candidate >= dist[v])
+                return;
+            if (dist[v] == Long.MAX_VALUE) {
+                if (touchedCount == touched.length)
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                touched[touchedCount++] = v;
+            }
+            dist[v] = candidate;
+            heap.push(v, candidate);
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++)
+                dist[touched[i]] = Long.MAX_VALUE;
+            touchedCount = 0;
+            heap.clear();
+        }
+    }
+}
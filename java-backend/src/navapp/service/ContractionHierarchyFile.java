@@ -0,0 +1,136 @@
+package src.navapp.service;
+
+import src.navapp.model.TravelMode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Binary image of a ContractionHierarchy, kept next to the map it was built from. The header
+// carries a fingerprint of the graph's edges and metric so a stale file is rejected on read
+// instead of answering queries for a different map.
+final class ContractionHierarchyFile {
+    static final String EXTENSION = ".navch";
+
+    private static final int MAGIC = 0x4E415643;
+    private static final int FORMAT = 1;
+
+    private ContractionHierarchyFile() {
+    }
+
+    static void write(ContractionHierarchy ch, GraphSnapshot graph, Path file) {
+        int n = ch.rank.length, arcs = ch.arcFrom.length;
+        long size = 4L * 6 + 8 + 8 + 4L * n + 4L * 6 * arcs + 4L * (n + 1) + 4L * ch.upArcs.length;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT).putInt(ch.mode == null ? -1 : ch.mode.ordinal())
+                    .putInt(n).putInt(arcs).putInt(ch.coreStart).putLong(ch.version).putLong(fingerprint(graph, ch.mode));
+            putInts(buffer, ch.rank);
+            putInts(buffer, ch.arcFrom);
+            putInts(buffer, ch.arcTo);
+            putInts(buffer, ch.arcWeight);
+            putInts(buffer, ch.arcEdge);
+            putInts(buffer, ch.arcFirst);
+            putInts(buffer, ch.arcSecond);
+            putInts(buffer, ch.upOffsets);
+            putInts(buffer, ch.upArcs);
+            buffer.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Reads a hierarchy for `graph`, failing when the file was built for another map, version
+    // or travel mode. Sizes and indices are checked before use, and any other decoding failure
+    // is reported as an IOException too, so a damaged file is simply rebuilt.
+    static ContractionHierarchy read(Path file, GraphSnapshot graph, TravelMode mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            require(buffer, 4L * 6 + 8 + 8, file);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT)
+                throw new IOException("Not a contraction hierarchy: " + file);
+
+            int storedMode = buffer.getInt(), n = buffer.getInt(), arcs = buffer.getInt(), coreStart = buffer.getInt();
+            long version = buffer.getLong(), fingerprint = buffer.getLong();
+            if (storedMode != (mode == null ? -1 : mode.ordinal()) || n != graph.nodeCount()
+                    || version != graph.getVersion() || fingerprint != fingerprint(graph, mode))
+                throw new IOException("Contraction hierarchy does not match the loaded graph: " + file);
+            if (arcs < 0 || coreStart < 0 || coreStart > n)
+                throw new IOException("Corrupt contraction hierarchy " + file + ": " + arcs + " arcs, core at "
+                        + coreStart);
+
+            require(buffer, 4L * n + 4L * 6 * arcs + 4L * (n + 1), file);
+            int[] rank = inRange(getInts(buffer, n), 0, n, "rank", file);
+            int[] arcFrom = inRange(getInts(buffer, arcs), 0, n, "arc endpoint", file);
+            int[] arcTo = inRange(getInts(buffer, arcs), 0, n, "arc endpoint", file);
+            int[] arcWeight = getInts(buffer, arcs);
+            int[] arcEdge = inRange(getInts(buffer, arcs), -1, graph.edgeCount(), "arc edge", file);
+            int[] arcFirst = inRange(getInts(buffer, arcs), -1, arcs, "shortcut arc", file);
+            int[] arcSecond = inRange(getInts(buffer, arcs), -1, arcs, "shortcut arc", file);
+            for (int arc = 0; arc < arcs; arc++)
+                if (arcEdge[arc] < 0 && (arcFirst[arc] < 0 || arcSecond[arc] < 0))
+                    throw new IOException("Corrupt contraction hierarchy " + file + ": shortcut " + arc
+                            + " has no parts");
+            int[] upOffsets = getInts(buffer, n + 1);
+            if (upOffsets[0] != 0)
+                throw new IOException("Corrupt contraction hierarchy " + file + ": upward offsets start at "
+                        + upOffsets[0]);
+            for (int u = 0; u < n; u++)
+                if (upOffsets[u + 1] < upOffsets[u])
+                    throw new IOException("Corrupt contraction hierarchy " + file + ": upward offsets decrease at node "
+                            + u);
+            require(buffer, 4L * upOffsets[n], file);
+            int[] upArcs = inRange(getInts(buffer, upOffsets[n]), 0, arcs, "upward arc", file);
+            return new ContractionHierarchy(version, mode, rank, coreStart, arcFrom, arcTo, arcWeight, arcEdge, arcFirst,
+                    arcSecond, upOffsets, upArcs);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt contraction hierarchy " + file + ": " + e, e);
+        }
+    }
+
+    private static void require(ByteBuffer buffer, long bytes, Path file) throws IOException {
+        if (bytes > buffer.remaining())
+            throw new IOException("Truncated contraction hierarchy " + file + ": needs " + bytes + " more bytes, has "
+                    + buffer.remaining());
+    }
+
+    // Checks that every value lies in [from, to).
+    private static int[] inRange(int[] values, int from, int to, String what, Path file) throws IOException {
+        for (int value : values)
+            if (value < from || value >= to)
+                throw new IOException("Corrupt contraction hierarchy " + file + ": " + what + " " + value
+                        + " out of range");
+        return values;
+    }
+
+    private static long fingerprint(GraphSnapshot graph, TravelMode mode) {
+        long hash = 1125899906842597L;
+        for (int e = 0, m = graph.edgeCount(); e < m; e++) {
+            hash = 31 * hash + graph.edgeFrom(e);
+            hash = 31 * hash + graph.edgeTo(e);
+            hash = 31 * hash + ContractionHierarchy.metricWeight(graph, e, mode);
+        }
+        return hash;
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + 4 * values.length);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+}
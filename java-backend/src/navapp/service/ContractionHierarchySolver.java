@@ -0,0 +1,125 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.SimulationEvent;
+import src.navapp.model.Step;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Answers queries from a contraction hierarchy of the cheapest-mode metric. Events only raise
+// weights or close roads, so a route from an older hierarchy that no event since has touched is
+// still a shortest route and is served as is; routes across touched roads, and requests older than
+// the hierarchy, go to A*. A single background thread rebuilds from the newest snapshot once the
+// rebuild delay has passed after a batch of events, coalescing everything that arrived meanwhile.
+public class ContractionHierarchySolver implements PathSolver, GraphListener {
+    public static final String FILE_EXTENSION = ContractionHierarchyFile.EXTENSION;
+
+    private final Graph source;
+    private final PathSolver fallback = new AStarSolver();
+    private final long rebuildDelayMillis;
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "ch-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private volatile ContractionHierarchy hierarchy;
+
+    public ContractionHierarchySolver(Graph source) {
+        this(source, null);
+    }
+
+    public ContractionHierarchySolver(Graph source, Path file) {
+        this(source, file, Duration.ofSeconds(5));
+    }
+
+    // With a file, the initial hierarchy is read from it when it matches the loaded graph and
+    // written to it after building otherwise.
+    public ContractionHierarchySolver(Graph source, Path file, Duration rebuildDelay) {
+        this.source = source;
+        this.rebuildDelayMillis = rebuildDelay.toMillis();
+        GraphSnapshot graph = source.snapshot();
+        if (file != null && Files.exists(file)) {
+            try {
+                hierarchy = ContractionHierarchyFile.read(file, graph, null);
+            } catch (IOException e) {
+                System.err.println("Rebuilding the contraction hierarchy, " + file + " is not usable: " + e.getMessage());
+            }
+        }
+        source.addListener(this);
+        if (hierarchy == null) {
+            rebuilder.execute(() -> {
+                ContractionHierarchy built = ContractionHierarchy.build(graph);
+                if (hierarchy == null)
+                    hierarchy = built;
+                if (file != null) {
+                    try {
+                        ContractionHierarchyFile.write(built, graph, file);
+                    } catch (UncheckedIOException e) {
+                        System.err.println("Could not save the contraction hierarchy: " + e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        ContractionHierarchy ch = hierarchy;
+        if (ch == null || ch.getVersion() > graph.getVersion())
+            return fallback.findShortestPath(graph, startNode, endNode);
+        if (ch.getVersion() == graph.getVersion())
+            return ch.query(graph, startNode, endNode);
+
+        List<SimulationEvent> changes = source.eventsBetween(ch.getVersion(), graph.getVersion());
+        if (changes == null)
+            return fallback.findShortestPath(graph, startNode, endNode);
+        PathResult result = ch.query(graph, startNode, endNode);
+        return untouched(graph, result, changes) ? result : fallback.findShortestPath(graph, startNode, endNode);
+    }
+
+    public ContractionHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    @Override
+    public void onEvents(GraphSnapshot snapshot, List<SimulationEvent> batch) {
+        if (rebuildQueued.compareAndSet(false, true))
+            rebuilder.schedule(this::rebuild, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Node ids may have moved, so no route from the old hierarchy can be served; rebuild now.
+    @Override
+    public void onTopologyChange(GraphSnapshot snapshot) {
+        rebuilder.execute(this::rebuild);
+    }
+
+    private void rebuild() {
+        rebuildQueued.set(false);
+        GraphSnapshot graph = source.snapshot();
+        ContractionHierarchy ch = hierarchy;
+        if (ch == null || ch.getVersion() != graph.getVersion())
+            hierarchy = ContractionHierarchy.build(graph);
+    }
+
+    private static boolean untouched(GraphSnapshot graph, PathResult route, List<SimulationEvent> changes) {
+        if (changes.isEmpty())
+            return true;
+        Set<Integer> touched = new HashSet<>();
+        for (SimulationEvent event : changes)
+            touched.add(graph.edgeBetween(graph.nodeId(event.getFrom()), graph.nodeId(event.getTo())));
+        for (Step step : route.getSteps())
+            if (touched.contains(graph.edgeBetween(graph.nodeId(step.getFrom()), graph.nodeId(step.getTo()))))
+                return false;
+        return true;
+    }
+}
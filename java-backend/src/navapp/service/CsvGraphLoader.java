@@ -0,0 +1,399 @@
+package src.navapp.service;
+
+import src.navapp.model.LoadReport;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Parses `from,to,walk,mixcommute[,jeepney[,fromLat,fromLon,toLat,toLon]]` rows straight out of
+// memory-mapped files; the jeepney field may be left empty on a row that carries coordinates. Every file is
+// cut into newline-aligned chunks that are parsed in parallel on the common fork-join pool into
+// chunk-local edge buffers; the buffers are then merged into the builder in file order, so
+// duplicate edges resolve exactly as a sequential load would. Rows that do not parse are counted
+// instead of aborting the load.
+final class CsvGraphLoader {
+    private static final int MAX_MAPPING = Integer.MAX_VALUE - 8;
+    private static final int CHUNK_BYTES = 8 << 20;
+    private static final int MAX_SAMPLES = 10;
+
+    private final EdgeListBuilder builder;
+    private final long startedAt = System.nanoTime();
+    private final List<String> malformedSamples = new ArrayList<>();
+    private final List<String> failedFiles = new ArrayList<>();
+    private int files;
+    private long rows;
+    private long malformedRows;
+
+    CsvGraphLoader(EdgeListBuilder builder) {
+        this.builder = builder;
+    }
+
+    void load(List<Path> paths) {
+        List<Chunk> chunks = new ArrayList<>();
+        for (Path file : paths) {
+            files++;
+            try {
+                split(file, chunks);
+            } catch (IOException e) {
+                failedFiles.add(file + ": " + e.getMessage());
+            }
+        }
+
+        List<EdgeBuffer> buffers = chunks.parallelStream().map(Chunk::parse).toList();
+
+        Path file = null;
+        long line = 1;
+        for (EdgeBuffer buffer : buffers) {
+            if (buffer.chunk.file != file) {
+                file = buffer.chunk.file;
+                line = 1;
+            }
+            merge(buffer, line);
+            line += buffer.lines;
+        }
+    }
+
+    LoadReport report(GraphSnapshot graph) {
+        return new LoadReport(files, rows, malformedRows, List.copyOf(malformedSamples), List.copyOf(failedFiles),
+                graph.nodeCount(), graph.edgeCount(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private static void split(Path file, List<Chunk> chunks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size(), position = 0;
+            while (position < size) {
+                long length = Math.min(MAX_MAPPING, size - position);
+                MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int limit = (int) length;
+                if (position + length < size) {
+                    while (limit > 0 && mapping.get(limit - 1) != '\n')
+                        limit--;
+                    if (limit == 0)
+                        throw new IOException("Line longer than " + MAX_MAPPING + " bytes");
+                }
+
+                for (int start = 0; start < limit;) {
+                    int end = Math.min(limit, start + CHUNK_BYTES);
+                    while (end < limit && mapping.get(end - 1) != '\n')
+                        end++;
+                    chunks.add(new Chunk(file, mapping, start, end));
+                    start = end;
+                }
+                position += limit;
+            }
+        }
+    }
+
+    private void merge(EdgeBuffer buffer, long firstLine) {
+        rows += buffer.rows;
+        malformedRows += buffer.malformedCount;
+        for (int i = 0; i < buffer.malformedCount && malformedSamples.size() < MAX_SAMPLES; i++)
+            malformedSamples.add(buffer.chunk.file.getFileName() + ":" + (firstLine + buffer.malformedLines[i]));
+
+        int[] globalIds = new int[buffer.names.size()];
+        for (int i = 0; i < globalIds.length; i++)
+            globalIds[i] = builder.intern(buffer.names.get(i));
+        for (int e = 0; e < buffer.edgeCount; e++)
+            builder.add(globalIds[buffer.from[e]], globalIds[buffer.to[e]], buffer.walk[e], buffer.mixcommute[e],
+                    buffer.jeepney[e]);
+        for (int i = 0; i < buffer.placedCount; i++)
+            builder.locate(globalIds[buffer.placedNode[i]], buffer.placedLat[i], buffer.placedLon[i]);
+    }
+
+    private static final class Chunk {
+        private final Path file;
+        private final MappedByteBuffer mapping;
+        private final int start;
+        private final int end;
+
+        Chunk(Path file, MappedByteBuffer mapping, int start, int end) {
+            this.file = file;
+            this.mapping = mapping;
+            this.start = start;
+            this.end = end;
+        }
+
+        // One bulk copy per chunk out of the mapping; after that every byte access is a plain
+        // array load rather than a bounds- and scope-checked direct buffer read. The copy is
+        // dropped once the chunk is parsed, so only the chunks in flight are ever on the heap.
+        EdgeBuffer parse() {
+            byte[] bytes = new byte[end - start];
+            mapping.get(start, bytes);
+            EdgeBuffer buffer = new EdgeBuffer(this, bytes);
+            for (int pos = 0; pos < bytes.length;) {
+                int lineEnd = pos;
+                while (lineEnd < bytes.length && bytes[lineEnd] != '\n')
+                    lineEnd++;
+                buffer.parseRow(pos, lineEnd);
+                pos = lineEnd + 1;
+            }
+            buffer.release();
+            return buffer;
+        }
+    }
+
+    // Edges of one chunk with chunk-local node ids.
+    private static final class EdgeBuffer {
+        private final Chunk chunk;
+        private byte[] bytes;
+        private final int[] fieldStart = new int[9];
+        private final int[] fieldEnd = new int[9];
+        private final List<String> names = new ArrayList<>();
+        private long[] malformedLines = new long[0];
+        private int malformedCount;
+        private byte[][] keys = new byte[1024][];
+        private int[] ids = new int[1024];
+        private int[] from = new int[1024], to = new int[1024];
+        private int[] walk = new int[1024], mixcommute = new int[1024], jeepney = new int[1024];
+        private int edgeCount;
+        // Node positions in row order, so a later row's position for a node wins.
+        private int[] placedNode = new int[0];
+        private double[] placedLat = new double[0], placedLon = new double[0];
+        private int placedCount;
+        private long lines;
+        private long rows;
+
+        EdgeBuffer(Chunk chunk, byte[] bytes) {
+            this.chunk = chunk;
+            this.bytes = bytes;
+        }
+
+        private void parseRow(int start, int end) {
+            long line = lines++;
+            int fields = 0, pos = start;
+            while (fields < fieldStart.length) {
+                int comma = pos;
+                while (comma < end && bytes[comma] != ',')
+                    comma++;
+                fieldStart[fields] = pos;
+                fieldEnd[fields] = comma;
+                fields++;
+                if (comma >= end)
+                    break;
+                pos = comma + 1;
+            }
+            for (int f = 0; f < fields; f++)
+                trim(f);
+
+            if (fields == 1 && fieldStart[0] == fieldEnd[0])
+                return;
+            rows++;
+            if (fields < 4 || fieldStart[0] == fieldEnd[0] || fieldStart[1] == fieldEnd[1]) {
+                malformed(line);
+                return;
+            }
+
+            // Every solver assumes non-negative weights, and a jeepney fare of -1 would read as
+            // Graph.NO_WEIGHT, so a negative weight makes the row malformed.
+            boolean hasJeep = fields > 4 && fieldStart[4] < fieldEnd[4];
+            long walkWeight = parseInt(2), mixWeight = parseInt(3), jeepWeight = hasJeep ? parseInt(4) : 0;
+            if (walkWeight < 0 || mixWeight < 0 || jeepWeight < 0) {
+                malformed(line);
+                return;
+            }
+
+            boolean placed = false;
+            for (int f = 5; f < fields; f++)
+                placed |= fieldStart[f] < fieldEnd[f];
+            double fromLat = 0, fromLon = 0, toLat = 0, toLon = 0;
+            if (placed) {
+                fromLat = parseDegrees(5, 90);
+                fromLon = parseDegrees(6, 180);
+                toLat = parseDegrees(7, 90);
+                toLon = parseDegrees(8, 180);
+                if (fields < 9 || Double.isNaN(fromLat) || Double.isNaN(fromLon) || Double.isNaN(toLat)
+                        || Double.isNaN(toLon)) {
+                    malformed(line);
+                    return;
+                }
+            }
+
+            if (edgeCount == from.length)
+                grow();
+            from[edgeCount] = intern(fieldStart[0], fieldEnd[0]);
+            to[edgeCount] = intern(fieldStart[1], fieldEnd[1]);
+            if (placed) {
+                place(from[edgeCount], fromLat, fromLon);
+                place(to[edgeCount], toLat, toLon);
+            }
+            walk[edgeCount] = (int) walkWeight;
+            mixcommute[edgeCount] = (int) mixWeight;
+            jeepney[edgeCount] = hasJeep ? (int) jeepWeight : Graph.NO_WEIGHT;
+            edgeCount++;
+        }
+
+        private void malformed(long line) {
+            if (malformedCount == malformedLines.length)
+                malformedLines = Arrays.copyOf(malformedLines, Math.max(16, 2 * malformedCount));
+            malformedLines[malformedCount++] = line;
+        }
+
+        // Drops the chunk's bytes and name table once parsing is done; the merge only needs the
+        // edges and the names.
+        private void release() {
+            bytes = null;
+            keys = null;
+            ids = null;
+        }
+
+        private void trim(int field) {
+            while (fieldStart[field] < fieldEnd[field] && (bytes[fieldStart[field]] & 0xFF) <= ' ')
+                fieldStart[field]++;
+            while (fieldEnd[field] > fieldStart[field] && (bytes[fieldEnd[field] - 1] & 0xFF) <= ' ')
+                fieldEnd[field]--;
+        }
+
+        // Returns Long.MIN_VALUE when the field is not a valid int, mirroring Integer.parseInt's rules.
+        private long parseInt(int field) {
+            int pos = fieldStart[field], end = fieldEnd[field];
+            if (pos == end)
+                return Long.MIN_VALUE;
+            boolean negative = false;
+            byte first = bytes[pos];
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                if (++pos == end)
+                    return Long.MIN_VALUE;
+            }
+            long value = 0;
+            for (; pos < end; pos++) {
+                int digit = bytes[pos] - '0';
+                if (digit < 0 || digit > 9)
+                    return Long.MIN_VALUE;
+                value = value * 10 + digit;
+                if (value > (long) Integer.MAX_VALUE + 1)
+                    return Long.MIN_VALUE;
+            }
+            value = negative ? -value : value;
+            return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+        }
+
+        // Returns NaN unless the field is a decimal within [-limit, limit]. Plain decimals are parsed
+        // from the bytes; anything else (exponents) goes through Double.parseDouble.
+        private double parseDegrees(int field, double limit) {
+            int pos = fieldStart[field], end = fieldEnd[field];
+            if (pos >= end)
+                return Double.NaN;
+            int sign = 1;
+            if (bytes[pos] == '-' || bytes[pos] == '+') {
+                sign = bytes[pos] == '-' ? -1 : 1;
+                pos++;
+            }
+            long mantissa = 0;
+            int digits = 0, scale = 0;
+            boolean point = false, plain = pos < end;
+            for (int i = pos; i < end && plain; i++) {
+                byte b = bytes[i];
+                if (b == '.' && !point) {
+                    point = true;
+                } else if (b >= '0' && b <= '9' && digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (point)
+                        scale++;
+                } else {
+                    plain = false;
+                }
+            }
+            double value;
+            if (plain && digits > 0) {
+                value = sign * mantissa / Math.pow(10, scale);
+            } else {
+                try {
+                    value = Double.parseDouble(new String(bytes, fieldStart[field], end - fieldStart[field],
+                            StandardCharsets.UTF_8));
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+            }
+            return Math.abs(value) <= limit ? value : Double.NaN;
+        }
+
+        private void place(int node, double lat, double lon) {
+            if (placedCount == placedNode.length) {
+                int size = Math.max(64, placedCount * 2);
+                placedNode = Arrays.copyOf(placedNode, size);
+                placedLat = Arrays.copyOf(placedLat, size);
+                placedLon = Arrays.copyOf(placedLon, size);
+            }
+            placedNode[placedCount] = node;
+            placedLat[placedCount] = lat;
+            placedLon[placedCount] = lon;
+            placedCount++;
+        }
+
+        // Byte-keyed open addressing, so a String is only created the first time a chunk sees a name.
+        private int intern(int start, int end) {
+            int mask = keys.length - 1;
+            for (int slot = hash(start, end) & mask;; slot = (slot + 1) & mask) {
+                byte[] key = keys[slot];
+                if (key == null) {
+                    key = new byte[end - start];
+                    System.arraycopy(bytes, start, key, 0, key.length);
+                    keys[slot] = key;
+                    ids[slot] = names.size();
+                    names.add(new String(key, StandardCharsets.UTF_8));
+                    if (2 * names.size() > keys.length)
+                        rehash();
+                    return names.size() - 1;
+                }
+                if (matches(key, start, end))
+                    return ids[slot];
+            }
+        }
+
+        private int hash(int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++)
+                hash = 31 * hash + bytes[i];
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int hash(byte[] key) {
+            int hash = 1;
+            for (byte b : key)
+                hash = 31 * hash + b;
+            return hash ^ (hash >>> 16);
+        }
+
+        private boolean matches(byte[] key, int start, int end) {
+            if (key.length != end - start)
+                return false;
+            for (int i = 0; i < key.length; i++)
+                if (key[i] != bytes[start + i])
+                    return false;
+            return true;
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            int[] oldIds = ids;
+            keys = new byte[oldKeys.length * 2][];
+            ids = new int[oldIds.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null)
+                    continue;
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != null)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+
+        private void grow() {
+            int size = from.length * 2;
+            from = Arrays.copyOf(from, size);
+            to = Arrays.copyOf(to, size);
+            walk = Arrays.copyOf(walk, size);
+            mixcommute = Arrays.copyOf(mixcommute, size);
+            jeepney = Arrays.copyOf(jeepney, size);
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+import src.navapp.model.TravelMode;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Customizable contraction hierarchy. The topology is built once from the road layout alone: nodes
+// are eliminated in nested-dissection order and every pair of a node's remaining neighbours is
+// joined, recording the lower triangle that joins them. Weights come later from customize(), which
+// only relaxes each arc over its lower triangles, so a new metric costs one pass over the
+// triangles instead of a fresh contraction. Nodes with too many remaining neighbours when their
+// turn comes are left uneliminated and form a core that queries search in full.
+public final class CustomizableHierarchy {
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int CORE_DEGREE = 128;
+
+    final long topologyVersion;
+    final int nodeCount, coreStart;
+    final int[] rank;
+    // Arcs run from the lower-ranked endpoint to the higher one; arcEdge is the snapshot edge
+    // between them, or -1 when the pair is only joined by elimination.
+    final int[] arcFrom, arcTo, arcEdge;
+    // Further snapshot edges between the endpoints of parallelArc[i]; customization keeps the
+    // cheapest of them under the current metric.
+    final int[] parallelArc, parallelEdge;
+    // Arcs grouped by their lower endpoint, for customization.
+    final int[] lowOffsets, lowArcs;
+    // Upward arcs per node with core arcs listed under both endpoints, for the core search.
+    final int[] upOffsets, upArcs;
+    // Lower triangles per arc: the two arcs meeting at a node eliminated below both endpoints.
+    final int[] triangleOffsets, triangleFirst, triangleSecond;
+    // Nodes grouped by elimination level; arcs of one level only depend on lower levels.
+    final int[] levelOffsets, levelNodes;
+    // Elimination tree: the lowest-ranked upward neighbour of each eliminated node, -1 at a root
+    // and for core nodes. Every upward neighbour of a node is one of its tree ancestors.
+    final int[] treeParent;
+
+    private CustomizableHierarchy(long topologyVersion, int nodeCount, int coreStart, int[] rank, int[] arcFrom,
+                                  int[] arcTo, int[] arcEdge, int[] parallelArc, int[] parallelEdge, int[] lowOffsets, int[] lowArcs, int[] upOffsets, int[] upArcs,
+                                  int[] triangleOffsets, int[] triangleFirst, int[] triangleSecond,
+                                  int[] levelOffsets, int[] levelNodes, int[] treeParent) {
+        this.topologyVersion = topologyVersion;
+        this.nodeCount = nodeCount;
+        this.coreStart = coreStart;
+        this.rank = rank;
+        this.arcFrom = arcFrom;
+        this.arcTo = arcTo;
+        this.arcEdge = arcEdge;
+        this.parallelArc = parallelArc;
+        this.parallelEdge = parallelEdge;
+        this.lowOffsets = lowOffsets;
+        this.lowArcs = lowArcs;
+        this.upOffsets = upOffsets;
+        this.upArcs = upArcs;
+        this.triangleOffsets = triangleOffsets;
+        this.triangleFirst = triangleFirst;
+        this.triangleSecond = triangleSecond;
+        this.levelOffsets = levelOffsets;
+        this.levelNodes = levelNodes;
+        this.treeParent = treeParent;
+    }
+
+    // Only the graph's nodes and edges are read; weights and closures are left to customize().
+    public static CustomizableHierarchy build(GraphSnapshot graph) {
+        return new Elimination(graph).run();
+    }
+
+    public int arcCount() {
+        return arcFrom.length;
+    }
+
+    public int coreSize() {
+        return nodeCount - coreStart;
+    }
+
+    // Whether `graph` has the layout this topology was built for. Events keep the layout; a topology
+    // change does not, even one that leaves the node and edge counts unchanged.
+    public boolean fits(GraphSnapshot graph) {
+        return graph.getTopologyVersion() == topologyVersion && graph.nodeCount() == nodeCount;
+    }
+
+    public Metric customize(GraphSnapshot graph) {
+        return customize(graph, null);
+    }
+
+    // Applies the snapshot's current weights for `mode`, or the cheapest mode per edge when null.
+    // Closed roads become infinite. Levels are processed in order and the nodes of one level in
+    // parallel.
+    public Metric customize(GraphSnapshot graph, TravelMode mode) {
+        if (!fits(graph))
+            throw new IllegalArgumentException("Graph layout differs from the hierarchy's");
+
+        int arcs = arcCount();
+        int[] weight = new int[arcs], first = new int[arcs], second = new int[arcs];
+        for (int arc = 0; arc < arcs; arc++) {
+            weight[arc] = arcEdge[arc] < 0 ? INF : ContractionHierarchy.metricWeight(graph, arcEdge[arc], mode);
+            first[arc] = second[arc] = -1;
+        }
+        int[] edge = parallelArc.length == 0 ? null : arcEdge.clone();
+        for (int i = 0; i < parallelArc.length; i++) {
+            int arc = parallelArc[i];
+            int parallel = ContractionHierarchy.metricWeight(graph, parallelEdge[i], mode);
+            if (parallel < weight[arc]) {
+                weight[arc] = parallel;
+                edge[arc] = parallelEdge[i];
+            }
+        }
+
+        for (int level = 0; level + 1 < levelOffsets.length; level++) {
+            IntStream nodes = IntStream.range(levelOffsets[level], levelOffsets[level + 1]);
+            if (levelOffsets[level + 1] - levelOffsets[level] > 1024)
+                nodes = nodes.parallel();
+            nodes.forEach(i -> {
+                int u = levelNodes[i];
+                for (int j = lowOffsets[u]; j < lowOffsets[u + 1]; j++) {
+                    int arc = lowArcs[j];
+                    for (int t = triangleOffsets[arc]; t < triangleOffsets[arc + 1]; t++) {
+                        int a = triangleFirst[t], b = triangleSecond[t];
+                        if (weight[a] == INF || weight[b] == INF)
+                            continue;
+                        long via = (long) weight[a] + weight[b];
+                        if (via < weight[arc]) {
+                            weight[arc] = (int) via;
+                            first[arc] = a;
+                            second[arc] = b;
+                        }
+                    }
+                }
+            });
+        }
+        return new Metric(graph.getVersion(), mode, weight, first, second, edge);
+    }
+
+    // `graph` must be the snapshot `metric` was customized from.
+    public PathResult query(Metric metric, GraphSnapshot graph, String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
+
+        int source = graph.nodeId(startNode), target = graph.nodeId(endNode);
+        if (source < 0 || target < 0)
+            return PathResult.unreachable();
+
+        TreeSearch search = TreeSearch.get(nodeCount);
+        int[] arcs = search.route(this, metric.weight, source, target);
+        if (arcs == null)
+            return search.truncated ? PathResult.unreachable().asTruncated() : PathResult.unreachable();
+
+        List<Step> steps = new ArrayList<>();
+        List<String> path = new ArrayList<>();
+        path.add(startNode);
+        int at = source;
+        for (int arc : arcs)
+            at = unpack(metric, graph, arc, at, path, steps);
+        return new PathResult(path, (int) search.distance, steps);
+    }
+
+    // Appends the original edges behind `arc`, walked starting at `from`, and returns the node
+    // it ends on.
+    private int unpack(Metric metric, GraphSnapshot graph, int arc, int from, List<String> path, List<Step> steps) {
+        int a = metric.first[arc];
+        if (a >= 0) {
+            int b = metric.second[arc];
+            boolean aFirst = arcFrom[a] == from || arcTo[a] == from;
+            int middle = unpack(metric, graph, aFirst ? a : b, from, path, steps);
+            return unpack(metric, graph, aFirst ? b : a, middle, path, steps);
+        }
+
+        int edge = metric.edge != null ? metric.edge[arc] : arcEdge[arc];
+        int to = HierarchySearch.other(arcFrom, arcTo, arc, from);
+        TravelMode used = metric.mode != null ? metric.mode : graph.bestMode(edge);
+        path.add(graph.nodeName(to));
+        steps.add(new Step(graph.nodeName(from), graph.nodeName(to), used, metric.weight[arc]));
+        return to;
+    }
+
+    // Query scratch, one per thread. Outside the core each direction sweeps its elimination-tree
+    // ancestors in order, which settles them without a queue; the core, if reached, is finished
+    // with a Dijkstra seeded from the forward labels that stops once it cannot beat the best
+    // meeting distance.
+    private static final class TreeSearch {
+        private static final ThreadLocal<TreeSearch> LOCAL = new ThreadLocal<>();
+
+        final int[] forward, backward, forwardArc, backwardArc;
+        final IndexedMinHeap heap;
+        int[] touched = new int[64];
+        int touchedCount;
+        long distance;
+        long settled, relaxed;
+        boolean truncated;
+
+        private TreeSearch(int n) {
+            forward = new int[n];
+            backward = new int[n];
+            forwardArc = new int[n];
+            backwardArc = new int[n];
+            Arrays.fill(forward, INF);
+            Arrays.fill(backward, INF);
+            heap = new IndexedMinHeap(n);
+        }
+
+        static TreeSearch get(int n) {
+            TreeSearch search = LOCAL.get();
+            if (search == null || search.forward.length != n) {
+                search = new TreeSearch(n);
+                LOCAL.set(search);
+            }
+            return search;
+        }
+
+        // Null when target is unreachable or, with truncated set, when the caller's SearchBudget
+        // expired in the core search; the tree sweeps are short enough to always finish.
+        int[] route(CustomizableHierarchy ch, int[] weight, int source, int target) {
+            SearchBudget budget = SearchBudget.current();
+            truncated = false;
+            try {
+                sweep(ch, weight, source, forward, forwardArc);
+                sweep(ch, weight, target, backward, backwardArc);
+
+                long best = Long.MAX_VALUE;
+                int meet = -1;
+                for (int i = 0; i < touchedCount; i++) {
+                    int u = touched[i];
+                    if (forward[u] != INF && backward[u] != INF && (long) forward[u] + backward[u] < best) {
+                        best = (long) forward[u] + backward[u];
+                        meet = u;
+                    }
+                    if (ch.rank[u] >= ch.coreStart && forward[u] != INF)
+                        heap.push(u, forward[u]);
+                }
+
+                while (!heap.isEmpty() && heap.peekKey() < best) {
+                    int u = heap.pop();
+                    if ((++settled & 1023) == 0 && budget.expired()) {
+                        truncated = true;
+                        break;
+                    }
+                    relaxed += ch.upOffsets[u + 1] - ch.upOffsets[u];
+                    if (backward[u] != INF && (long) forward[u] + backward[u] < best) {
+                        best = (long) forward[u] + backward[u];
+                        meet = u;
+                    }
+                    for (int i = ch.upOffsets[u], end = ch.upOffsets[u + 1]; i < end; i++) {
+                        int arc = ch.upArcs[i];
+                        if (weight[arc] == INF)
+                            continue;
+                        int v = HierarchySearch.other(ch.arcFrom, ch.arcTo, arc, u);
+                        int candidate = forward[u] + weight[arc];
+                        if (candidate < forward[v]) {
+                            label(v, forward, forwardArc, candidate, arc);
+                            heap.push(v, candidate);
+                        }
+                    }
+                }
+
+                distance = best;
+                SearchEffort.record(settled, relaxed);
+                if (meet < 0 || truncated)
+                    return null;
+
+                int forwardCount = 0, backwardCount = 0;
+                for (int v = meet; v != source; v = HierarchySearch.other(ch.arcFrom, ch.arcTo, forwardArc[v], v))
+                    forwardCount++;
+                for (int v = meet; v != target; v = HierarchySearch.other(ch.arcFrom, ch.arcTo, backwardArc[v], v))
+                    backwardCount++;
+                int[] arcs = new int[forwardCount + backwardCount];
+                int i = forwardCount;
+                for (int v = meet; v != source; v = HierarchySearch.other(ch.arcFrom, ch.arcTo, forwardArc[v], v))
+                    arcs[--i] = forwardArc[v];
+                i = forwardCount;
+                for (int v = meet; v != target; v = HierarchySearch.other(ch.arcFrom, ch.arcTo, backwardArc[v], v))
+                    arcs[i++] = backwardArc[v];
+                return arcs;
+            } finally {
+                for (int i = 0; i < touchedCount; i++) {
+                    forward[touched[i]] = INF;
+                    backward[touched[i]] = INF;
+                }
+                touchedCount = 0;
+                settled = relaxed = 0;
+                heap.clear();
+            }
+        }
+
+        // Walks from `start` up the elimination tree relaxing each node's upward arcs; a node's
+        // label is final by the time the walk reaches it.
+        void sweep(CustomizableHierarchy ch, int[] weight, int start, int[] dist, int[] parentArc) {
+            label(start, dist, parentArc, 0, -1);
+            for (int u = start; u >= 0 && ch.rank[u] < ch.coreStart; u = ch.treeParent[u]) {
+                if (dist[u] == INF)
+                    continue;
+                settled++;
+                relaxed += ch.lowOffsets[u + 1] - ch.lowOffsets[u];
+                for (int i = ch.lowOffsets[u], end = ch.lowOffsets[u + 1]; i < end; i++) {
+                    int arc = ch.lowArcs[i];
+                    if (weight[arc] == INF)
+                        continue;
+                    int candidate = dist[u] + weight[arc];
+                    if (candidate < dist[ch.arcTo[arc]])
+                        label(ch.arcTo[arc], dist, parentArc, candidate, arc);
+                }
+            }
+        }
+
+        void label(int v, int[] dist, int[] parentArc, int value, int arc) {
+            if (forward[v] == INF && backward[v] == INF) {
+                if (touchedCount == touched.length)
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                touched[touchedCount++] = v;
+            }
+            dist[v] = value;
+            parentArc[v] = arc;
+        }
+    }
+
+    // Arc weights for one snapshot version, plus the triangle each shortcut weight came from and,
+    // when the graph has parallel edges, the edge each original arc's weight came from.
+    public static final class Metric {
+        final long version;
+        final TravelMode mode;
+        final int[] weight, first, second, edge;
+
+        Metric(long version, TravelMode mode, int[] weight, int[] first, int[] second, int[] edge) {
+            this.version = version;
+            this.mode = mode;
+            this.weight = weight;
+            this.first = first;
+            this.second = second;
+            this.edge = edge;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public TravelMode getMode() {
+            return mode;
+        }
+    }
+
+    private static final class Elimination {
+        final GraphSnapshot graph;
+        final int n;
+        int[][] adjNode, adjArc;
+        int[] adjSize;
+        final int[] level;
+        final boolean[] eliminated;
+        final LongIntHashMap arcIndex;
+
+        int arcCount;
+        int[] arcFrom = new int[16], arcTo = new int[16], arcEdge = new int[16];
+        int parallelCount;
+        int[] parallelArc = new int[0], parallelEdge = new int[0];
+        int triangleCount;
+        int[] triangleArc = new int[16], triangleFirst = new int[16], triangleSecond = new int[16];
+
+        Elimination(GraphSnapshot graph) {
+            this.graph = graph;
+            this.n = graph.nodeCount();
+            adjNode = new int[n][];
+            adjArc = new int[n][];
+            adjSize = new int[n];
+            level = new int[n];
+            eliminated = new boolean[n];
+            arcIndex = new LongIntHashMap(Math.max(16, graph.edgeCount() * 2));
+            for (int u = 0; u < n; u++) {
+                int size = Math.max(graph.endArc(u) - graph.firstArc(u), 2);
+                adjNode[u] = new int[size];
+                adjArc[u] = new int[size];
+            }
+            for (int e = 0, m = graph.edgeCount(); e < m; e++) {
+                int u = graph.edgeFrom(e), v = graph.edgeTo(e);
+                if (u == v)
+                    continue;
+                int arc = join(u, v);
+                if (arcEdge[arc] < 0) {
+                    arcEdge[arc] = e;
+                } else {
+                    if (parallelCount == parallelArc.length) {
+                        parallelArc = Arrays.copyOf(parallelArc, Math.max(16, parallelCount * 2));
+                        parallelEdge = Arrays.copyOf(parallelEdge, parallelArc.length);
+                    }
+                    parallelArc[parallelCount] = arc;
+                    parallelEdge[parallelCount++] = e;
+                }
+            }
+        }
+
+        CustomizableHierarchy run() {
+            int[] order = new NestedDissection(graph).order();
+            int[] rank = new int[n], core = new int[n];
+            int next = 0, deferred = 0;
+            int[] up = new int[16], upArc = new int[16];
+            for (int v : order) {
+                int count = 0;
+                for (int i = 0; i < adjSize[v]; i++) {
+                    if (eliminated[adjNode[v][i]])
+                        continue;
+                    if (count == up.length) {
+                        up = Arrays.copyOf(up, count * 2);
+                        upArc = Arrays.copyOf(upArc, count * 2);
+                    }
+                    up[count] = adjNode[v][i];
+                    upArc[count++] = adjArc[v][i];
+                }
+                // Eliminating a node this well connected would add a clique of its neighbours;
+                // moving it to the core instead keeps the order valid, just with v ranked last.
+                if (count > CORE_DEGREE) {
+                    core[deferred++] = v;
+                    continue;
+                }
+
+                eliminated[v] = true;
+                rank[v] = next++;
+                for (int i = 0; i < count; i++) {
+                    int u = up[i];
+                    level[u] = Math.max(level[u], level[v] + 1);
+                    for (int j = i + 1; j < count; j++)
+                        triangle(join(u, up[j]), upArc[i], upArc[j]);
+                }
+            }
+
+            int coreStart = next;
+            for (int i = 0; i < deferred; i++)
+                rank[core[i]] = next++;
+            return finish(rank, coreStart);
+        }
+
+        // Returns the arc between u and v, creating it when absent.
+        int join(int u, int v) {
+            long key = u < v ? (long) u << 32 | v : (long) v << 32 | u;
+            int arc = arcIndex.get(key);
+            if (arc != LongIntHashMap.MISSING)
+                return arc;
+
+            if (arcCount == arcFrom.length) {
+                arcFrom = Arrays.copyOf(arcFrom, arcCount * 2);
+                arcTo = Arrays.copyOf(arcTo, arcCount * 2);
+                arcEdge = Arrays.copyOf(arcEdge, arcCount * 2);
+            }
+            arc = arcCount++;
+            arcFrom[arc] = u;
+            arcTo[arc] = v;
+            arcEdge[arc] = -1;
+            arcIndex.put(key, arc);
+            append(u, v, arc);
+            append(v, u, arc);
+            return arc;
+        }
+
+        void append(int u, int v, int arc) {
+            if (adjSize[u] == adjNode[u].length) {
+                adjNode[u] = Arrays.copyOf(adjNode[u], adjSize[u] * 2);
+                adjArc[u] = Arrays.copyOf(adjArc[u], adjSize[u] * 2);
+            }
+            adjNode[u][adjSize[u]] = v;
+            adjArc[u][adjSize[u]++] = arc;
+        }
+
+        void triangle(int arc, int first, int second) {
+            if (triangleCount == triangleArc.length) {
+                triangleArc = Arrays.copyOf(triangleArc, triangleCount * 2);
+                triangleFirst = Arrays.copyOf(triangleFirst, triangleCount * 2);
+                triangleSecond = Arrays.copyOf(triangleSecond, triangleCount * 2);
+            }
+            triangleArc[triangleCount] = arc;
+            triangleFirst[triangleCount] = first;
+            triangleSecond[triangleCount++] = second;
+        }
+
+        CustomizableHierarchy finish(int[] rank, int coreStart) {
+            // Orient every arc upwards.
+            for (int arc = 0; arc < arcCount; arc++) {
+                if (rank[arcFrom[arc]] > rank[arcTo[arc]]) {
+                    int swap = arcFrom[arc];
+                    arcFrom[arc] = arcTo[arc];
+                    arcTo[arc] = swap;
+                }
+            }
+
+            int[] lowOffsets = new int[n + 1], upOffsets = new int[n + 1];
+            for (int arc = 0; arc < arcCount; arc++) {
+                lowOffsets[arcFrom[arc] + 1]++;
+                upOffsets[arcFrom[arc] + 1]++;
+                if (rank[arcFrom[arc]] >= coreStart)
+                    upOffsets[arcTo[arc] + 1]++;
+            }
+            for (int u = 0; u < n; u++) {
+                lowOffsets[u + 1] += lowOffsets[u];
+                upOffsets[u + 1] += upOffsets[u];
+            }
+            int[] lowArcs = new int[arcCount], upArcs = new int[upOffsets[n]];
+            int[] lowFill = Arrays.copyOf(lowOffsets, n), upFill = Arrays.copyOf(upOffsets, n);
+            for (int arc = 0; arc < arcCount; arc++) {
+                lowArcs[lowFill[arcFrom[arc]]++] = arc;
+                upArcs[upFill[arcFrom[arc]]++] = arc;
+                if (rank[arcFrom[arc]] >= coreStart)
+                    upArcs[upFill[arcTo[arc]]++] = arc;
+            }
+
+            int[] triangleOffsets = new int[arcCount + 1];
+            for (int t = 0; t < triangleCount; t++)
+                triangleOffsets[triangleArc[t] + 1]++;
+            for (int arc = 0; arc < arcCount; arc++)
+                triangleOffsets[arc + 1] += triangleOffsets[arc];
+            int[] first = new int[triangleCount], second = new int[triangleCount];
+            int[] triangleFill = Arrays.copyOf(triangleOffsets, arcCount);
+            for (int t = 0; t < triangleCount; t++) {
+                int slot = triangleFill[triangleArc[t]]++;
+                first[slot] = triangleFirst[t];
+                second[slot] = triangleSecond[t];
+            }
+
+            int levels = 0;
+            for (int u = 0; u < n; u++)
+                levels = Math.max(levels, level[u] + 1);
+            int[] levelOffsets = new int[levels + 1];
+            for (int u = 0; u < n; u++)
+                levelOffsets[level[u] + 1]++;
+            for (int l = 0; l < levels; l++)
+                levelOffsets[l + 1] += levelOffsets[l];
+            int[] levelNodes = new int[n], levelFill = Arrays.copyOf(levelOffsets, levels);
+            for (int u = 0; u < n; u++)
+                levelNodes[levelFill[level[u]]++] = u;
+
+            int[] treeParent = new int[n];
+            Arrays.fill(treeParent, -1);
+            for (int arc = 0; arc < arcCount; arc++) {
+                int u = arcFrom[arc], v = arcTo[arc];
+                if (rank[u] < coreStart && (treeParent[u] < 0 || rank[v] < rank[treeParent[u]]))
+                    treeParent[u] = v;
+            }
+
+            return new CustomizableHierarchy(graph.getTopologyVersion(), n, coreStart, rank,
+                    Arrays.copyOf(arcFrom, arcCount), Arrays.copyOf(arcTo, arcCount), Arrays.copyOf(arcEdge, arcCount),
+                    Arrays.copyOf(parallelArc, parallelCount), Arrays.copyOf(parallelEdge, parallelCount), lowOffsets, lowArcs, upOffsets, upArcs, triangleOffsets, first, second, levelOffsets, levelNodes,
+                    treeParent);
+        }
+    }
+}
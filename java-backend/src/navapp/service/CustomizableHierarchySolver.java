@@ -0,0 +1,64 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.SimulationEvent;
+
+import java.util.List;
+
+// Keeps a customizable hierarchy in step with the live graph. The topology is built once in the
+// background; after each batch of events a single thread re-customizes the weights of the newest
+// snapshot, coalescing bursts. Requests on a version the current metric was not customized for
+// fall back to A*.
+public class CustomizableHierarchySolver implements PathSolver, GraphListener {
+    private final Graph source;
+    private final PathSolver fallback = new AStarSolver();
+    private final BackgroundCustomizer customizer = new BackgroundCustomizer("cch-customize", this::refresh);
+    private volatile CustomizableHierarchy hierarchy;
+    private volatile CustomizableHierarchy.Metric metric;
+    private volatile long lastCustomizeNanos;
+
+    public CustomizableHierarchySolver(Graph source) {
+        this.source = source;
+        source.addListener(this);
+        customizer.schedule();
+    }
+
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        CustomizableHierarchy ch = hierarchy;
+        CustomizableHierarchy.Metric current = metric;
+        if (ch == null || current == null || current.getVersion() != graph.getVersion() || !ch.fits(graph))
+            return fallback.findShortestPath(graph, startNode, endNode);
+        return ch.query(current, graph, startNode, endNode);
+    }
+
+    public CustomizableHierarchy.Metric getMetric() {
+        return metric;
+    }
+
+    public long getLastCustomizeNanos() {
+        return lastCustomizeNanos;
+    }
+
+    @Override
+    public void onEvents(GraphSnapshot snapshot, List<SimulationEvent> batch) {
+        customizer.schedule();
+    }
+
+    @Override
+    public void onTopologyChange(GraphSnapshot snapshot) {
+        customizer.schedule();
+    }
+
+    private void refresh() {
+        GraphSnapshot graph = source.snapshot();
+        CustomizableHierarchy ch = hierarchy;
+        if (ch == null || !ch.fits(graph)) {
+            ch = CustomizableHierarchy.build(graph);
+            hierarchy = ch;
+        }
+        long startedAt = System.nanoTime();
+        metric = ch.customize(graph);
+        lastCustomizeNanos = System.nanoTime() - startedAt;
+    }
+}
@@ -0,0 +1,87 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+
+import java.util.*;
+
+public class DijkstraSolver implements PathSolver {
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
+
+        int source = graph.nodeId(startNode), target = graph.nodeId(endNode);
+        if (source < 0 || target < 0)
+            return PathResult.unreachable();
+
+        int n = graph.nodeCount();
+        int[] dist = new int[n];
+        int[] parent = new int[n];
+        int[] parentEdge = new int[n];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+
+        dist[source] = 0;
+        Estimator estimator = estimator(graph, target);
+        heap.push(source, estimator.estimate(source));
+
+        SearchBudget budget = SearchBudget.current();
+        boolean truncated = false;
+        long settled = 0, relaxed = 0;
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            settled++;
+            if (u == target)
+                break;
+            if ((settled & 1023) == 0 && budget.expired()) {
+                truncated = true;
+                break;
+            }
+
+            relaxed += graph.endArc(u) - graph.firstArc(u);
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int edge = graph.arcEdge(a);
+                int weight = graph.bestWeight(edge);
+                if (weight == GraphSnapshot.BLOCKED)
+                    continue;
+
+                int v = graph.arcTarget(a);
+                int candidate = dist[u] + weight;
+                if (candidate < dist[v]) {
+                    dist[v] = candidate;
+                    parent[v] = u;
+                    parentEdge[v] = edge;
+                    heap.push(v, (long) candidate + estimator.estimate(v));
+                }
+            }
+        }
+        SearchEffort.record(settled, relaxed);
+
+        // Labels are only final once settled, so a search stopped early has no route to offer.
+        if (truncated)
+            return PathResult.unreachable().asTruncated();
+        if (dist[target] == Integer.MAX_VALUE)
+            return PathResult.unreachable();
+
+        List<String> bestPath = new ArrayList<>();
+        List<Step> bestSteps = new ArrayList<>();
+        for (int v = target; v != source; v = parent[v]) {
+            String from = graph.nodeName(parent[v]), to = graph.nodeName(v);
+            bestPath.add(to);
+            bestSteps.add(new Step(from, to, graph.bestMode(parentEdge[v]), graph.bestWeight(parentEdge[v])));
+        }
+        bestPath.add(startNode);
+        Collections.reverse(bestPath);
+        Collections.reverse(bestSteps);
+        return new PathResult(bestPath, dist[target], bestSteps);
+    }
+
+    protected Estimator estimator(GraphSnapshot graph, int target) {
+        return node -> 0;
+    }
+
+    protected interface Estimator {
+        int estimate(int node);
+    }
+}
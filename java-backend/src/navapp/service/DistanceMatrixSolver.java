@@ -0,0 +1,102 @@
+package src.navapp.service;
+
+import src.navapp.model.DistanceMatrix;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+// Travel times between every origin and destination from one search per row rather than one per
+// pair. Each search stops once it has settled every target, and rows run in parallel. Roads are
+// two-way, so when there are fewer destinations than origins the searches start from the
+// destinations and the result is transposed. Rows check the caller's SearchBudget; once it
+// expires the unfinished rows stay unreachable and the matrix comes back truncated.
+public class DistanceMatrixSolver {
+    private static final int INF = Integer.MAX_VALUE;
+
+    public DistanceMatrix solve(GraphSnapshot graph, List<String> origins, List<String> destinations) {
+        boolean transpose = destinations.size() < origins.size();
+        int[] sources = ids(graph, transpose ? destinations : origins);
+        int[] targets = ids(graph, transpose ? origins : destinations);
+
+        boolean[] isTarget = new boolean[graph.nodeCount()];
+        int distinctTargets = 0;
+        for (int target : targets) {
+            if (target >= 0 && !isTarget[target]) {
+                isTarget[target] = true;
+                distinctTargets++;
+            }
+        }
+
+        int remaining = distinctTargets;
+        SearchBudget budget = SearchBudget.current();
+        AtomicBoolean stopped = new AtomicBoolean();
+        int[][] rows = new int[sources.length][];
+        IntStream.range(0, sources.length).parallel()
+                .forEach(i -> rows[i] = search(graph, sources[i], targets, isTarget, remaining, budget, stopped));
+
+        int[][] distances = rows;
+        if (transpose) {
+            distances = new int[origins.size()][destinations.size()];
+            for (int i = 0; i < rows.length; i++)
+                for (int j = 0; j < rows[i].length; j++)
+                    distances[j][i] = rows[i][j];
+        }
+        DistanceMatrix matrix = new DistanceMatrix(origins, destinations, distances, graph.getVersion());
+        return stopped.get() ? matrix.asTruncated() : matrix;
+    }
+
+    private static int[] ids(GraphSnapshot graph, List<String> names) {
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = graph.nodeId(names.get(i));
+        return ids;
+    }
+
+    // Parallel rows run on helper threads, so the budget is the caller's, passed in, and the first
+    // row to see it expire stops the rest through `stopped`.
+    private static int[] search(GraphSnapshot graph, int source, int[] targets, boolean[] isTarget, int remaining,
+            SearchBudget budget, AtomicBoolean stopped) {
+        int[] row = new int[targets.length];
+        Arrays.fill(row, INF);
+        if (source < 0 || stopped.get())
+            return row;
+
+        SearchScratch scratch = SearchScratch.get(graph.nodeCount());
+        int[] dist = scratch.dist;
+        try {
+            scratch.label(source, 0);
+            scratch.heap.push(source, 0);
+            int settled = 0;
+            while (!scratch.heap.isEmpty() && remaining > 0) {
+                if ((++settled & 1023) == 0 && (stopped.get() || budget.expired())) {
+                    stopped.set(true);
+                    return row;
+                }
+                int u = scratch.heap.pop();
+                if (isTarget[u])
+                    remaining--;
+
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                    int weight = graph.bestWeight(graph.arcEdge(a));
+                    if (weight == GraphSnapshot.BLOCKED)
+                        continue;
+                    int v = graph.arcTarget(a);
+                    int candidate = dist[u] + weight;
+                    if (candidate < dist[v]) {
+                        scratch.label(v, candidate);
+                        scratch.heap.push(v, candidate);
+                    }
+                }
+            }
+
+            for (int j = 0; j < targets.length; j++)
+                if (targets[j] >= 0)
+                    row[j] = dist[targets[j]];
+            return row;
+        } finally {
+            scratch.reset();
+        }
+    }
+}
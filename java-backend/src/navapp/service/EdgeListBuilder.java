@@ -0,0 +1,113 @@
+package src.navapp.service;
+
+import java.util.*;
+
+final class EdgeListBuilder {
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final LongIntHashMap edgeIndex = new LongIntHashMap(16);
+    private int[] from = new int[16], to = new int[16];
+    private int[] walk = new int[16], mixcommute = new int[16], jeepney = new int[16];
+    private boolean[] blocked = new boolean[16];
+    private int edgeCount;
+    // Allocated once the first node gets a position; null keeps a graph without coordinates.
+    private double[] latitude, longitude;
+
+    EdgeListBuilder() {
+    }
+
+    EdgeListBuilder(GraphSnapshot graph) {
+        names.addAll(Arrays.asList(graph.nodeNames));
+        ids.putAll(graph.nodeIds);
+        edgeCount = graph.edgeFrom.length;
+        int size = Math.max(16, edgeCount);
+        from = Arrays.copyOf(graph.edgeFrom, size);
+        to = Arrays.copyOf(graph.edgeTo, size);
+        walk = Arrays.copyOf(graph.walk, size);
+        mixcommute = Arrays.copyOf(graph.mixcommute, size);
+        jeepney = Arrays.copyOf(graph.jeepney, size);
+        blocked = Arrays.copyOf(graph.blocked, size);
+        for (int e = 0; e < edgeCount; e++)
+            edgeIndex.put(key(from[e], to[e]), e);
+        if (graph.coordinates != null) {
+            latitude = graph.coordinates.latitude.clone();
+            longitude = graph.coordinates.longitude.clone();
+        }
+    }
+
+    GraphSnapshot build(long version) {
+        int n = names.size(), m = edgeCount;
+        return GraphSnapshot.build(version, names.toArray(new String[0]), new HashMap<>(ids), Arrays.copyOf(from, m),
+                Arrays.copyOf(to, m), Arrays.copyOf(walk, m), Arrays.copyOf(mixcommute, m),
+                Arrays.copyOf(jeepney, m), Arrays.copyOf(blocked, m), positions(latitude, n), positions(longitude, n));
+    }
+
+    private static double[] positions(double[] values, int n) {
+        if (values == null)
+            return null;
+        double[] sized = NodeCoordinates.unplaced(n);
+        System.arraycopy(values, 0, sized, 0, Math.min(n, values.length));
+        return sized;
+    }
+
+    // A later position for the same node replaces the earlier one.
+    void locate(int node, double lat, double lon) {
+        if (latitude == null) {
+            latitude = NodeCoordinates.unplaced(Math.max(16, names.size()));
+            longitude = NodeCoordinates.unplaced(latitude.length);
+        } else if (node >= latitude.length) {
+            int size = Math.max(node + 1, latitude.length * 2);
+            int old = latitude.length;
+            latitude = Arrays.copyOf(latitude, size);
+            longitude = Arrays.copyOf(longitude, size);
+            Arrays.fill(latitude, old, size, Double.NaN);
+            Arrays.fill(longitude, old, size, Double.NaN);
+        }
+        latitude[node] = lat;
+        longitude[node] = lon;
+    }
+
+    private static long key(int u, int v) {
+        return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+    }
+
+    void add(String fromName, String toName, int walkWeight, int mixWeight, int jeepWeight) {
+        add(intern(fromName), intern(toName), walkWeight, mixWeight, jeepWeight);
+    }
+
+    void add(int u, int v, int walkWeight, int mixWeight, int jeepWeight) {
+        int e = edgeIndex.get(key(u, v));
+        if (e == LongIntHashMap.MISSING) {
+            if (edgeCount == from.length)
+                grow();
+            e = edgeCount++;
+            edgeIndex.put(key(u, v), e);
+        }
+        from[e] = u;
+        to[e] = v;
+        walk[e] = walkWeight;
+        mixcommute[e] = mixWeight;
+        jeepney[e] = jeepWeight;
+        blocked[e] = false;
+    }
+
+    int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    private void grow() {
+        int size = from.length * 2;
+        from = Arrays.copyOf(from, size);
+        to = Arrays.copyOf(to, size);
+        walk = Arrays.copyOf(walk, size);
+        mixcommute = Arrays.copyOf(mixcommute, size);
+        jeepney = Arrays.copyOf(jeepney, size);
+        blocked = Arrays.copyOf(blocked, size);
+    }
+}
@@ -0,0 +1,120 @@
+package src.navapp.service;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Constant-time random choice of an open edge for the event simulator. Open edges sit in a dense
+// array alongside each edge's index into it, so blocking one swaps it with the last entry.
+// Weighted draws use an alias table and draw again when they land on a blocked edge; once blocked
+// edges hold more than half the table's weight it is rebuilt over the open ones, which keeps the
+// expected number of draws under two.
+final class EdgeSampler {
+    private final double[] weights;
+    private final int[] open;
+    private final int[] position;
+    private int openCount;
+
+    private int[] tableEdges;
+    private double[] probability;
+    private int[] alias;
+    private double tableWeight;
+    private double blockedWeight;
+
+    EdgeSampler(GraphSnapshot graph) {
+        int edges = graph.edgeCount();
+        weights = new double[edges];
+        open = new int[edges];
+        position = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            weights[e] = busyness(graph, e);
+            if (graph.isBlocked(e)) {
+                position[e] = -1;
+            } else {
+                position[e] = openCount;
+                open[openCount++] = e;
+            }
+        }
+        buildTable();
+    }
+
+    // Roads between well-connected intersections carry more traffic, so they congest more often.
+    private static double busyness(GraphSnapshot graph, int edge) {
+        int from = graph.edgeFrom(edge), to = graph.edgeTo(edge);
+        return graph.endArc(from) - graph.firstArc(from) + graph.endArc(to) - graph.firstArc(to);
+    }
+
+    synchronized void block(int edge) {
+        int at = position[edge];
+        if (at < 0)
+            return;
+        int last = open[--openCount];
+        open[at] = last;
+        position[last] = at;
+        position[edge] = -1;
+
+        blockedWeight += weights[edge];
+        if (blockedWeight * 2 > tableWeight)
+            buildTable();
+    }
+
+    // Returns -1 when every edge is blocked.
+    synchronized int uniform(Random rand) {
+        return openCount == 0 ? -1 : open[rand.nextInt(openCount)];
+    }
+
+    synchronized int weighted(Random rand) {
+        if (openCount == 0)
+            return -1;
+        if (tableEdges.length == 0)
+            return uniform(rand);
+        while (true) {
+            int i = rand.nextInt(tableEdges.length);
+            int edge = rand.nextDouble() < probability[i] ? tableEdges[i] : tableEdges[alias[i]];
+            if (position[edge] >= 0)
+                return edge;
+        }
+    }
+
+    // Vose's alias method over the open edges with positive weight.
+    private void buildTable() {
+        int[] edges = new int[openCount];
+        int k = 0;
+        double total = 0;
+        for (int i = 0; i < openCount; i++) {
+            if (weights[open[i]] > 0) {
+                edges[k++] = open[i];
+                total += weights[open[i]];
+            }
+        }
+        tableEdges = Arrays.copyOf(edges, k);
+        probability = new double[k];
+        alias = new int[k];
+        tableWeight = total;
+        blockedWeight = 0;
+
+        int[] small = new int[k], large = new int[k];
+        int smallCount = 0, largeCount = 0;
+        double[] scaled = new double[k];
+        for (int i = 0; i < k; i++) {
+            scaled[i] = weights[tableEdges[i]] * k / total;
+            if (scaled[i] < 1)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount], l = large[--largeCount];
+            probability[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] -= 1 - scaled[s];
+            if (scaled[l] < 1)
+                small[smallCount++] = l;
+            else
+                large[largeCount++] = l;
+        }
+        while (largeCount > 0)
+            probability[large[--largeCount]] = 1;
+        while (smallCount > 0)
+            probability[small[--smallCount]] = 1;
+    }
+}
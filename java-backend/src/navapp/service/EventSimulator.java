@@ -0,0 +1,77 @@
+package src.navapp.service;
+
+import src.navapp.model.SimulationEvent;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Publishes random traffic events into the graph from its own thread at a fixed rate, so the
+// graph changes at the configured pace instead of at request rate and no request pays for
+// generating an event. With a seed the sequence of events is reproducible; step() generates one
+// synchronously for callers that drive the simulation themselves.
+public class EventSimulator implements AutoCloseable {
+    private final Graph graph;
+    private final String mode;
+    private final Random rand;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "event-simulator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder generated = new LongAdder();
+    private ScheduledFuture<?> running;
+
+    // A null seed draws a fresh one.
+    public EventSimulator(Graph graph, String mode, Long seed) {
+        this.graph = graph;
+        this.mode = mode;
+        this.rand = seed != null ? new Random(seed) : new Random();
+    }
+
+    // Replaces any previous schedule; a rate of zero or less just stops the simulation.
+    public synchronized void start(double eventsPerSecond) {
+        stop();
+        if (eventsPerSecond <= 0)
+            return;
+        long period = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / eventsPerSecond));
+        running = scheduler.scheduleAtFixedRate(this::tick, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized void stop() {
+        if (running != null) {
+            running.cancel(false);
+            running = null;
+        }
+    }
+
+    // Synchronized so that, seeded, the same calls always consume the random stream in the same
+    // order whichever thread makes them.
+    public synchronized SimulationEvent step() {
+        SimulationEvent event = graph.simulateRandomEvent(mode, rand);
+        if (event != null)
+            generated.increment();
+        return event;
+    }
+
+    public long getGenerated() {
+        return generated.sum();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    // An exception escaping a periodic task cancels every later run, so report it and carry on.
+    private void tick() {
+        try {
+            step();
+        } catch (RuntimeException e) {
+            System.err.println("Event simulation failed: " + e);
+        }
+    }
+}
@@ -1,104 +1,298 @@
 package src.navapp.service;
 
 import src.navapp.model.EdgeWeight;
-import src.nvapp.model.SimulationEvent;
+import src.navapp.model.LoadReport;
+import src.navapp.model.SimulationEvent;
+import src.navapp.model.TravelMode;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class Graph {
-    private Map<String, Map<String, EdgeWeight>> adjList = new HashMap<>();
-    private SimulationEvent lastEvent;
+    public static final int NO_WEIGHT = -1;
+    // Events kept for replay and eventsBetween; past this the oldest half is folded into the base.
+    static final int HISTORY_LIMIT = 100_000;
+
+    private final Queue<SimulationEvent> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final List<GraphListener> listeners = new CopyOnWriteArrayList<>();
+    private final Histogram eventLatency = new Histogram();
+    // Always published before `current`, so a reader that has seen a version finds its events here.
+    private volatile EventLog log;
+    private volatile GraphSnapshot current;
+    private volatile SimulationEvent lastEvent;
+    private volatile EdgeSampler sampler;
+    private LoadReport loadReport;
 
     public Graph(List<String> filenames) {
-        for (String filename : filenames)
-            loadFromCSV(filename);
+        if (filenames.size() == 1 && filenames.get(0).endsWith(GraphSnapshotFile.EXTENSION)) {
+            long startedAt = System.nanoTime();
+            try {
+                current = GraphSnapshotFile.read(Path.of(filenames.get(0)));
+                loadReport = new LoadReport(1, 0, 0, List.of(), List.of(), current.nodeCount(),
+                        current.edgeCount(), (System.nanoTime() - startedAt) / 1_000_000);
+            } catch (IOException e) {
+                current = new EdgeListBuilder().build(0);
+                loadReport = new LoadReport(1, 0, 0, List.of(), List.of(filenames.get(0) + ": " + e.getMessage()),
+                        0, 0, (System.nanoTime() - startedAt) / 1_000_000);
+            }
+        } else {
+            EdgeListBuilder builder = new EdgeListBuilder();
+            CsvGraphLoader loader = new CsvGraphLoader(builder);
+            loader.load(filenames.stream().map(Path::of).toList());
+            current = builder.build(0);
+            loadReport = loader.report(current);
+        }
+        log = new EventLog(current);
+        sampler = new EdgeSampler(current);
+        if (loadReport.hasProblems())
+            System.err.println(loadReport);
     }
 
+    // Topology changes cannot be expressed as weight deltas, so the new graph becomes the
+    // replay base and the event history restarts from it.
     public void addEdge(String from, String to, EdgeWeight weight) {
-        adjList.computeIfAbsent(from, k -> new HashMap<>()).put(to, weight);
-        adjList.computeIfAbsent(to, k -> new HashMap<>()).put(from, weight);
+        writeLock.lock();
+        try {
+            drainPending();
+            EdgeListBuilder builder = new EdgeListBuilder(current);
+            builder.add(from, to, weight.getWalk(), weight.getMixcommute(),
+                    weight.getJeepney() != null ? weight.getJeepney() : NO_WEIGHT);
+            GraphSnapshot next = builder.build(current.getVersion() + 1);
+            log = new EventLog(next);
+            current = next;
+            sampler = new EdgeSampler(current);
+            for (GraphListener listener : listeners)
+                listener.onTopologyChange(current);
+        } finally {
+            unlock();
+        }
+    }
+
+    public LoadReport getLoadReport() {
+        return loadReport;
+    }
+
+    public void writeSnapshot(String filename) {
+        GraphSnapshotFile.write(current, Path.of(filename));
+    }
+
+    public GraphSnapshot snapshot() {
+        return current;
     }
 
     public Map<String, Map<String, EdgeWeight>> getAdjList() {
-        return adjList;
+        return current.getAdjList();
+    }
+
+    public void addListener(GraphListener listener) {
+        listeners.add(listener);
+    }
+
+    // Time from draining a batch to the last listener returning, in nanoseconds.
+    public Histogram getEventLatency() {
+        return eventLatency;
     }
 
     public SimulationEvent getLastEvent() {
         return lastEvent;
     }
 
-    public void simulateRandomEvent(String mode) {
-        List<String> nodes = new ArrayList<>(adjList.keySet());
-        if (nodes.size() < 2)
-            return;
+    // Events are queued and whichever writer holds the lock folds everything queued so far into
+    // one new version, so a burst of events costs one copy of each touched column. A submitter
+    // that loses the race for the lock leaves its event to the holder, which drains again after
+    // releasing it.
+    public void submit(SimulationEvent event) {
+        pending.add(event);
+        if (writeLock.tryLock()) {
+            try {
+                drainPending();
+            } finally {
+                unlock();
+            }
+        }
+    }
 
-        Random rand = new Random();
-        String from = nodes.get(rand.nextInt(nodes.size()));
-        List<String> neighbors = new ArrayList<>(adjList.get(from).keySet());
-        if (neighbors.isEmpty())
-            return;
-        String to = neighbors.get(rand.nextInt(neighbors.size()));
-
-        switch (rand.nextInt(5)) {
-            case 0 -> increaseEdgeWeight(from, to, "Flooding reported", mode);
-            case 1 -> blockEdge(from, to, "Road closed due to construction");
-            case 2 -> increaseEdgeWeight(from, to, "Accident causing delay", mode);
-            case 3 -> increaseEdgeWeight(from, to, "Sudden traffic congestion", mode);
-            case 4 -> blockEdge(from, to, "Route closed due to protest");
+    public void flush() {
+        writeLock.lock();
+        try {
+            drainPending();
+        } finally {
+            unlock();
         }
     }
 
-    private void blockEdge(String from, String to, String reason) {
-        if (adjList.get(from).containsKey(to)) {
-            adjList.get(from).remove(to);
-            adjList.get(to).remove(from);
-            lastEvent = new SimulationEvent("block", from, to, reason + " on " + from + " <-> " + to);
+    // Every holder of the write lock releases it here. An event queued while the lock was held
+    // found tryLock failing, so it is drained now; if another thread takes the lock first, that
+    // thread's own release drains it instead.
+    private void unlock() {
+        writeLock.unlock();
+        while (!pending.isEmpty() && writeLock.tryLock()) {
+            try {
+                drainPending();
+            } finally {
+                writeLock.unlock();
+            }
         }
     }
 
-    private void increaseEdgeWeight(String from, String to, String reason, String mode) {
-        EdgeWeight ew = adjList.get(from).get(to);
-        int oldWeight = ew.getMode(mode);
-        int added = new Random().nextInt(20) + 5;
-        int newWeight = oldWeight + added;
+    public List<SimulationEvent> getHistory() {
+        EventLog log = this.log;
+        return List.of(Arrays.copyOf(log.events, log.size));
+    }
 
-        int walk = ew.getWalk();
-        int mixcommute = ew.getMixcommute();
-        Integer jeep = ew.getJeepney();
+    // Returns the events that turned version `after` into version `upTo`, or null when the
+    // history no longer reaches back that far (a topology change reset it, or the events were
+    // trimmed). Reads the published log and never takes the write lock.
+    public List<SimulationEvent> eventsBetween(long after, long upTo) {
+        EventLog log = this.log;
+        if (after < log.base.getVersion())
+            return null;
+        int lo = log.firstAfter(after);
+        List<SimulationEvent> events = new ArrayList<>();
+        for (int i = lo; i < log.size && log.events[i].getVersion() <= upTo; i++)
+            events.add(log.events[i]);
+        return events;
+    }
+
+    // Rebuilds the graph as of `version`, or returns null when the history no longer reaches it.
+    public GraphSnapshot replay(long version) {
+        EventLog log = this.log;
+        if (version < log.base.getVersion())
+            return null;
+        int end = log.firstAfter(version);
+        return end == 0 ? log.base
+                : log.base.apply(Arrays.asList(log.events).subList(0, end), log.events[end - 1].getVersion());
+    }
 
-        switch (mode) {
-            case "walk" -> walk = newWeight;
-            case "mixcommute" -> mixcommute = newWeight;
-            case "jeep" -> jeep = newWeight;
+    private void drainPending() {
+        List<SimulationEvent> batch = new ArrayList<>();
+        for (SimulationEvent event; (event = pending.poll()) != null;)
+            batch.add(event);
+        if (batch.isEmpty())
+            return;
+
+        long startedAt = System.nanoTime();
+        long version = current.getVersion() + 1;
+        for (int i = 0; i < batch.size(); i++)
+            batch.set(i, batch.get(i).withVersion(version));
+        GraphSnapshot snapshot = current.apply(batch, version);
+        for (SimulationEvent event : batch) {
+            if (event.getType().equals("block")) {
+                int edge = snapshot.edgeBetween(snapshot.nodeId(event.getFrom()), snapshot.nodeId(event.getTo()));
+                if (edge >= 0)
+                    sampler.block(edge);
+            }
+        }
+        EventLog next = log.append(batch);
+        log = next.size > HISTORY_LIMIT ? next.trim(HISTORY_LIMIT / 2) : next;
+        current = snapshot;
+        lastEvent = batch.get(batch.size() - 1);
+        List<SimulationEvent> published = Collections.unmodifiableList(batch);
+        for (GraphListener listener : listeners)
+            listener.onEvents(current, published);
+        eventLatency.record(System.nanoTime() - startedAt);
+    }
+
+    // The events applied to `base`, oldest first, in slots the writer appends to in place. Only the
+    // first `size` slots are published, so a reader holding a log never sees a slot being filled.
+    private static final class EventLog {
+        final GraphSnapshot base;
+        final SimulationEvent[] events;
+        final int size;
+
+        EventLog(GraphSnapshot base) {
+            this(base, new SimulationEvent[16], 0);
+        }
+
+        private EventLog(GraphSnapshot base, SimulationEvent[] events, int size) {
+            this.base = base;
+            this.events = events;
+            this.size = size;
         }
 
-        EdgeWeight updated = new EdgeWeight(walk, mixcommute, jeep);
-        adjList.get(from).put(to, updated);
-        adjList.get(to).put(from, updated);
-        lastEvent = new SimulationEvent("traffic", from, to,
-                reason + ": " + from + " ↔ " + to + " now " + newWeight + " mins");
-    }
-
-    private void loadFromCSV(String filename) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 4) {
-                    String from = parts[0].trim();
-                    String to = parts[1].trim();
-                    int walk = Integer.parseInt(parts[2].trim());
-                    int mixcommute = Integer.parseInt(parts[3].trim());
-                    Integer jeep = null;
-                    if (parts.length > 4 && !parts[4].trim().isEmpty()) {
-                        jeep = Integer.parseInt(parts[4].trim());
-                    }
-                    addEdge(from, to, new EdgeWeight(walk, mixcommute, jeep));
-                }
+        // The index of the first event newer than `version`.
+        int firstAfter(long version) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (events[mid].getVersion() <= version)
+                    lo = mid + 1;
+                else
+                    hi = mid;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            return lo;
+        }
+
+        EventLog append(List<SimulationEvent> batch) {
+            SimulationEvent[] slots = events;
+            if (size + batch.size() > slots.length)
+                slots = Arrays.copyOf(events, Math.max(size + batch.size(), 2 * events.length));
+            for (int i = 0; i < batch.size(); i++)
+                slots[size + i] = batch.get(i);
+            return new EventLog(base, slots, size + batch.size());
+        }
+
+        // Folds the oldest events into the base until about `keep` remain, cutting between versions.
+        EventLog trim(int keep) {
+            int drop = size - keep;
+            while (drop < size && events[drop].getVersion() == events[drop - 1].getVersion())
+                drop++;
+            GraphSnapshot folded = base.apply(Arrays.asList(events).subList(0, drop), events[drop - 1].getVersion());
+            SimulationEvent[] rest = Arrays.copyOfRange(events, drop, drop + Math.max(16, 2 * (size - drop)));
+            return new EventLog(folded, rest, size - drop);
         }
     }
+
+    public SimulationEvent simulateRandomEvent(String mode) {
+        return simulateRandomEvent(mode, ThreadLocalRandom.current());
+    }
+
+    // Every random choice comes from `rand`, so a seeded generator replays the same events
+    // against the same sequence of graph versions. Closures hit any open road with equal
+    // probability; congestion favours busy ones.
+    public SimulationEvent simulateRandomEvent(String mode, Random rand) {
+        TravelMode travelMode = TravelMode.fromLabel(mode);
+        EdgeSampler edges = sampler;
+        GraphSnapshot graph = current;
+        int kind = rand.nextInt(5);
+        int edge = kind == 1 || kind == 4 ? edges.uniform(rand) : edges.weighted(rand);
+        // A topology change between reading the sampler and the snapshot can renumber edges.
+        if (edge < 0 || edge >= graph.edgeCount())
+            return null;
+
+        SimulationEvent event = switch (kind) {
+            case 0 -> increaseEdgeWeight(graph, edge, "Flooding reported", travelMode, rand);
+            case 1 -> blockEdge(graph, edge, "Road closed due to construction");
+            case 2 -> increaseEdgeWeight(graph, edge, "Accident causing delay", travelMode, rand);
+            case 3 -> increaseEdgeWeight(graph, edge, "Sudden traffic congestion", travelMode, rand);
+            default -> blockEdge(graph, edge, "Route closed due to protest");
+        };
+        if (event != null)
+            submit(event);
+        return event;
+    }
+
+    private SimulationEvent blockEdge(GraphSnapshot graph, int edge, String reason) {
+        String from = graph.nodeName(graph.edgeFrom(edge)), to = graph.nodeName(graph.edgeTo(edge));
+        return new SimulationEvent("block", from, to, reason + " on " + from + " <-> " + to);
+    }
+
+    private SimulationEvent increaseEdgeWeight(GraphSnapshot graph, int edge, String reason, TravelMode mode,
+            Random rand) {
+        int oldWeight = graph.weight(edge, mode);
+        if (oldWeight == Integer.MAX_VALUE)
+            return null;
+        int added = rand.nextInt(20) + 5;
+        int newWeight = oldWeight + added;
+
+        String from = graph.nodeName(graph.edgeFrom(edge)), to = graph.nodeName(graph.edgeTo(edge));
+        return new SimulationEvent("traffic", from, to,
+                reason + ": " + from + " ↔ " + to + " now " + newWeight + " mins", mode.getLabel(), added);
+    }
 }
@@ -0,0 +1,14 @@
+package src.navapp.service;
+
+import src.navapp.model.SimulationEvent;
+
+import java.util.List;
+
+// Called on the publishing thread, after the new snapshot is visible, while writers are still
+// serialised; implementations should hand heavy work off rather than do it inline.
+public interface GraphListener {
+    void onEvents(GraphSnapshot snapshot, List<SimulationEvent> batch);
+
+    default void onTopologyChange(GraphSnapshot snapshot) {
+    }
+}
@@ -0,0 +1,261 @@
+package src.navapp.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+// Nested multi-level partition of the road graph into cells. Level 0 is the coarsest; each cell
+// of level l + 1 lies inside one cell of level l. Cells are cut by recursive bisection along BFS
+// levels from a peripheral node, taking the level boundary crossed by the fewest roads among those
+// that leave at least a quarter of the piece on each side. The partition depends on the layout
+// alone, so it survives every event and only a topology change needs a new one.
+public final class GraphPartition {
+    private final long topologyVersion;
+    private final int nodeCount;
+    // Per level: the cell of every node, cells' members and boundary nodes as CSR lists, and each
+    // node's position in its cell's boundary list (-1 for interior nodes).
+    final int[][] cell;
+    final int[][] memberOffsets, members;
+    final int[][] boundaryOffsets, boundary;
+    final int[][] boundaryIndex;
+    // Per level: each node's place in its cell's member list.
+    final int[][] position;
+    // Per level: the cell one level up that holds each cell (-1 on level 0). A cell's subcells have
+    // consecutive ids starting at childOffsets[level][cell].
+    final int[][] parent, childOffsets;
+    private final int[] cutEdges;
+
+    private GraphPartition(long topologyVersion, int nodeCount, int levels) {
+        this.topologyVersion = topologyVersion;
+        this.nodeCount = nodeCount;
+        cell = new int[levels][];
+        memberOffsets = new int[levels][];
+        members = new int[levels][];
+        boundaryOffsets = new int[levels][];
+        boundary = new int[levels][];
+        boundaryIndex = new int[levels][];
+        position = new int[levels][];
+        parent = new int[levels][];
+        childOffsets = new int[levels][];
+        cutEdges = new int[levels];
+    }
+
+    // maxCellSizes lists the largest cell allowed on each level, coarsest first.
+    public static GraphPartition build(GraphSnapshot graph, int... maxCellSizes) {
+        if (maxCellSizes.length == 0)
+            throw new IllegalArgumentException("At least one level is required");
+        for (int l = 0; l < maxCellSizes.length; l++) {
+            if (maxCellSizes[l] < 1 || (l > 0 && maxCellSizes[l] > maxCellSizes[l - 1]))
+                throw new IllegalArgumentException("Cell sizes must be positive and shrink level by level: "
+                        + Arrays.toString(maxCellSizes));
+        }
+
+        int n = graph.nodeCount();
+        GraphPartition partition = new GraphPartition(graph.getTopologyVersion(), n, maxCellSizes.length);
+        Bisection bisection = new Bisection(graph);
+        int[] all = new int[n];
+        for (int u = 0; u < n; u++)
+            all[u] = u;
+        List<int[]> pieces = new ArrayList<>(List.of(all));
+        for (int l = 0; l < maxCellSizes.length; l++) {
+            List<int[]> cells = new ArrayList<>();
+            List<Integer> parents = new ArrayList<>();
+            for (int p = 0; p < pieces.size(); p++) {
+                for (int[] part : bisection.split(pieces.get(p), maxCellSizes[l])) {
+                    cells.add(part);
+                    parents.add(p);
+                }
+            }
+            partition.level(graph, l, cells, parents);
+            pieces = cells;
+        }
+        return partition;
+    }
+
+    private void level(GraphSnapshot graph, int l, List<int[]> cells, List<Integer> parents) {
+        int count = cells.size();
+        int[] of = new int[nodeCount], offsets = new int[count + 1], nodes = new int[nodeCount];
+        int[] place = new int[nodeCount];
+        parent[l] = new int[count];
+        for (int c = 0; c < count; c++) {
+            int[] part = cells.get(c);
+            System.arraycopy(part, 0, nodes, offsets[c], part.length);
+            offsets[c + 1] = offsets[c] + part.length;
+            for (int i = 0; i < part.length; i++) {
+                of[part[i]] = c;
+                place[part[i]] = i;
+            }
+            parent[l][c] = l == 0 ? -1 : parents.get(c);
+        }
+        cell[l] = of;
+        memberOffsets[l] = offsets;
+        members[l] = nodes;
+        position[l] = place;
+        childOffsets[l] = new int[count + 1];
+        if (l > 0) {
+            int[] children = childOffsets[l - 1];
+            for (int c = 0; c < count; c++)
+                children[parent[l][c] + 1]++;
+            for (int p = 0; p + 1 < children.length; p++)
+                children[p + 1] += children[p];
+        }
+
+        int[] index = new int[nodeCount];
+        Arrays.fill(index, -1);
+        int[] boundaryStart = new int[count + 1];
+        List<Integer> found = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            boundaryStart[c] = found.size();
+            for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+                int u = nodes[i];
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                    if (of[graph.arcTarget(a)] != c) {
+                        index[u] = found.size() - boundaryStart[c];
+                        found.add(u);
+                        break;
+                    }
+                }
+            }
+        }
+        boundaryStart[count] = found.size();
+        boundaryOffsets[l] = boundaryStart;
+        boundary[l] = found.stream().mapToInt(Integer::intValue).toArray();
+        boundaryIndex[l] = index;
+
+        int cut = 0;
+        for (int e = 0; e < graph.edgeCount(); e++)
+            if (of[graph.edgeFrom(e)] != of[graph.edgeTo(e)])
+                cut++;
+        cutEdges[l] = cut;
+    }
+
+    public boolean fits(GraphSnapshot graph) {
+        return graph.getTopologyVersion() == topologyVersion && graph.nodeCount() == nodeCount;
+    }
+
+    public int levels() {
+        return cell.length;
+    }
+
+    public int cellCount(int level) {
+        return parent[level].length;
+    }
+
+    public int cell(int level, int node) {
+        return cell[level][node];
+    }
+
+    public int[] members(int level, int cell) {
+        return Arrays.copyOfRange(members[level], memberOffsets[level][cell], memberOffsets[level][cell + 1]);
+    }
+
+    // Nodes of the cell with a road to another cell of the same level.
+    public int[] boundary(int level, int cell) {
+        return Arrays.copyOfRange(boundary[level], boundaryOffsets[level][cell], boundaryOffsets[level][cell + 1]);
+    }
+
+    public int boundaryCount(int level) {
+        return boundary[level].length;
+    }
+
+    // Roads whose endpoints lie in different cells of the level.
+    public int cutEdges(int level) {
+        return cutEdges[level];
+    }
+
+    private static final class Bisection {
+        private final GraphSnapshot graph;
+        private final int[] stamp, depth;
+        private int stampCount;
+
+        Bisection(GraphSnapshot graph) {
+            this.graph = graph;
+            stamp = new int[graph.nodeCount()];
+            depth = new int[graph.nodeCount()];
+        }
+
+        // Splits the piece until every part has at most maxSize nodes, keeping BFS order so that
+        // neighbouring parts get neighbouring ids.
+        List<int[]> split(int[] piece, int maxSize) {
+            List<int[]> parts = new ArrayList<>();
+            Deque<int[]> pending = new ArrayDeque<>();
+            pending.push(piece);
+            while (!pending.isEmpty()) {
+                int[] next = pending.pop();
+                if (next.length <= maxSize) {
+                    if (next.length > 0)
+                        parts.add(next);
+                    continue;
+                }
+                int[] order = new int[next.length];
+                int at = bisect(next, order);
+                pending.push(Arrays.copyOfRange(order, at, order.length));
+                pending.push(Arrays.copyOf(order, at));
+            }
+            return parts;
+        }
+
+        // Lays the piece out in BFS order, component by component, and returns where to cut it.
+        // Depths keep counting across components, so a component boundary is a level boundary
+        // that no road crosses.
+        private int bisect(int[] piece, int[] order) {
+            int mark = ++stampCount;
+            for (int u : piece) {
+                stamp[u] = mark;
+                depth[u] = -1;
+            }
+            int tail = 0, base = 0;
+            for (int u : piece) {
+                if (depth[u] >= 0)
+                    continue;
+                int start = tail;
+                tail = bfs(u, mark, order, start, base);
+                // Two sweeps: the farthest node from an arbitrary start is close to the periphery.
+                int peripheral = order[tail - 1];
+                for (int i = start; i < tail; i++)
+                    depth[order[i]] = -1;
+                tail = bfs(peripheral, mark, order, start, base);
+                base = depth[order[tail - 1]] + 1;
+            }
+
+            int[] crossing = new int[base];
+            for (int u : piece) {
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                    int v = graph.arcTarget(a);
+                    if (stamp[v] == mark && depth[v] == depth[u] + 1)
+                        crossing[depth[u]]++;
+                }
+            }
+
+            int length = piece.length, lowest = Math.max(1, length / 4), best = -1;
+            for (int at = lowest; at <= length - lowest; at++) {
+                if (depth[order[at - 1]] == depth[order[at]])
+                    continue;
+                if (best < 0 || crossing[depth[order[at - 1]]] < crossing[depth[order[best - 1]]]
+                        || (crossing[depth[order[at - 1]]] == crossing[depth[order[best - 1]]]
+                                && Math.abs(2 * at - length) < Math.abs(2 * best - length)))
+                    best = at;
+            }
+            return best >= 0 ? best : length / 2;
+        }
+
+        private int bfs(int start, int mark, int[] queue, int head, int base) {
+            int tail = head;
+            queue[tail++] = start;
+            depth[start] = base;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                    int v = graph.arcTarget(a);
+                    if (stamp[v] == mark && depth[v] < 0) {
+                        depth[v] = depth[u] + 1;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            return tail;
+        }
+    }
+}
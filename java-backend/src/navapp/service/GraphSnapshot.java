@@ -0,0 +1,366 @@
+package src.navapp.service;
+
+import src.navapp.model.EdgeWeight;
+import src.navapp.model.SimulationEvent;
+import src.navapp.model.TravelMode;
+
+import java.util.*;
+
+// One immutable version of the road network. Topology arrays are shared between versions;
+// publishing a batch copies only the weight columns it touches, so readers never lock. The cheapest
+// mode and its weight are kept per edge, with closed roads folded in as BLOCKED, so a relaxation
+// is one array read and never allocates.
+public final class GraphSnapshot {
+    public static final int BLOCKED = Integer.MAX_VALUE;
+
+    final long version;
+    final long topologyVersion;
+    final String[] nodeNames;
+    final Map<String, Integer> nodeIds;
+    final int[] offsets;
+    final int[] targets;
+    final int[] arcEdges;
+    final int[] edgeFrom, edgeTo;
+    final int[] walk, mixcommute, jeepney;
+    final boolean[] blocked;
+    final int[] bestWeight;
+    final byte[] bestMode;
+    final NodeCoordinates coordinates;
+    private final Map<String, Map<String, EdgeWeight>> adjView = new AdjacencyView();
+
+    GraphSnapshot(long version, long topologyVersion, String[] nodeNames, Map<String, Integer> nodeIds,
+            int[] offsets, int[] targets, int[] arcEdges, int[] edgeFrom, int[] edgeTo, int[] walk, int[] mixcommute,
+            int[] jeepney, boolean[] blocked, int[] bestWeight, byte[] bestMode, NodeCoordinates coordinates) {
+        this.version = version;
+        this.topologyVersion = topologyVersion;
+        this.nodeNames = nodeNames;
+        this.nodeIds = nodeIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.arcEdges = arcEdges;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.walk = walk;
+        this.mixcommute = mixcommute;
+        this.jeepney = jeepney;
+        this.blocked = blocked;
+        this.bestWeight = bestWeight;
+        this.bestMode = bestMode;
+        this.coordinates = coordinates;
+    }
+
+    // latitude and longitude are null for a graph loaded without coordinates.
+    static GraphSnapshot of(long version, String[] nodeNames, Map<String, Integer> nodeIds, int[] offsets,
+            int[] targets, int[] arcEdges, int[] edgeFrom, int[] edgeTo, int[] walk, int[] mixcommute,
+            int[] jeepney, boolean[] blocked, double[] latitude, double[] longitude) {
+        int m = edgeFrom.length;
+        int[] bestWeight = new int[m];
+        byte[] bestMode = new byte[m];
+        for (int e = 0; e < m; e++)
+            updateBest(e, walk, mixcommute, jeepney, blocked, bestWeight, bestMode);
+        NodeCoordinates coordinates = latitude == null ? null
+                : new NodeCoordinates(latitude, longitude, edgeFrom, edgeTo, walk, mixcommute, jeepney);
+        return new GraphSnapshot(version, version, nodeNames, nodeIds, offsets, targets, arcEdges, edgeFrom, edgeTo,
+                walk, mixcommute, jeepney, blocked, bestWeight, bestMode, coordinates);
+    }
+
+    private static void updateBest(int e, int[] walk, int[] mixcommute, int[] jeepney, boolean[] blocked,
+            int[] bestWeight, byte[] bestMode) {
+        int jeep = jeepney[e] != Graph.NO_WEIGHT ? jeepney[e] : Integer.MAX_VALUE;
+        int min = Math.min(walk[e], Math.min(mixcommute[e], jeep));
+        TravelMode mode = (min == walk[e]) ? TravelMode.WALK
+                : (min == mixcommute[e]) ? TravelMode.MIXCOMMUTE : TravelMode.JEEP;
+        bestWeight[e] = blocked[e] ? BLOCKED : min;
+        bestMode[e] = (byte) mode.ordinal();
+    }
+
+    // Lays an edge list out as compressed sparse rows: the arcs of node u occupy
+    // [offsets[u], offsets[u + 1]) and every undirected edge contributes one arc per endpoint.
+    static GraphSnapshot build(long version, String[] nodeNames, Map<String, Integer> nodeIds, int[] edgeFrom,
+            int[] edgeTo, int[] walk, int[] mixcommute, int[] jeepney, boolean[] blocked, double[] latitude,
+            double[] longitude) {
+        int n = nodeNames.length, m = edgeFrom.length;
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            offsets[edgeFrom[e] + 1]++;
+            if (edgeTo[e] != edgeFrom[e])
+                offsets[edgeTo[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++)
+            offsets[u + 1] += offsets[u];
+
+        int[] targets = new int[offsets[n]];
+        int[] arcEdges = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < m; e++) {
+            int a = fill[edgeFrom[e]]++;
+            targets[a] = edgeTo[e];
+            arcEdges[a] = e;
+            if (edgeTo[e] != edgeFrom[e]) {
+                a = fill[edgeTo[e]]++;
+                targets[a] = edgeFrom[e];
+                arcEdges[a] = e;
+            }
+        }
+        return of(version, nodeNames, nodeIds, offsets, targets, arcEdges, edgeFrom, edgeTo, walk, mixcommute,
+                jeepney, blocked, latitude, longitude);
+    }
+
+    GraphSnapshot apply(List<SimulationEvent> batch, long nextVersion) {
+        int[] nextWalk = walk, nextMix = mixcommute, nextJeep = jeepney;
+        boolean[] nextBlocked = blocked;
+        int[] nextBestWeight = bestWeight;
+        byte[] nextBestMode = bestMode;
+        for (SimulationEvent event : batch) {
+            int edge = edgeBetween(nodeId(event.getFrom()), nodeId(event.getTo()));
+            if (edge < 0)
+                continue;
+
+            if (event.getType().equals("block")) {
+                if (nextBlocked == blocked)
+                    nextBlocked = blocked.clone();
+                nextBlocked[edge] = true;
+            } else {
+                switch (TravelMode.fromLabel(event.getMode())) {
+                    case WALK -> {
+                        if (nextWalk == walk)
+                            nextWalk = walk.clone();
+                        nextWalk[edge] += event.getDelta();
+                    }
+                    case MIXCOMMUTE -> {
+                        if (nextMix == mixcommute)
+                            nextMix = mixcommute.clone();
+                        nextMix[edge] += event.getDelta();
+                    }
+                    case JEEP -> {
+                        if (nextJeep[edge] == Graph.NO_WEIGHT)
+                            continue;
+                        if (nextJeep == jeepney)
+                            nextJeep = jeepney.clone();
+                        nextJeep[edge] += event.getDelta();
+                    }
+                }
+            }
+
+            if (nextBestWeight == bestWeight) {
+                nextBestWeight = bestWeight.clone();
+                nextBestMode = bestMode.clone();
+            }
+            updateBest(edge, nextWalk, nextMix, nextJeep, nextBlocked, nextBestWeight, nextBestMode);
+        }
+        return new GraphSnapshot(nextVersion, topologyVersion, nodeNames, nodeIds, offsets, targets, arcEdges,
+                edgeFrom, edgeTo, nextWalk, nextMix, nextJeep, nextBlocked, nextBestWeight, nextBestMode,
+                coordinates);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // The version whose topology this one shares. Node ids, and so the node dictionary, stay the
+    // same for every version with the same topology version.
+    public long getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    // Null when the graph was loaded without coordinates.
+    public NodeCoordinates coordinates() {
+        return coordinates;
+    }
+
+    public Map<String, Map<String, EdgeWeight>> getAdjList() {
+        return adjView;
+    }
+
+    public int nodeCount() {
+        return nodeNames.length;
+    }
+
+    public int edgeCount() {
+        return edgeFrom.length;
+    }
+
+    public int nodeId(String name) {
+        Integer id = nodeIds.get(name);
+        return id != null ? id : -1;
+    }
+
+    public String nodeName(int node) {
+        return nodeNames[node];
+    }
+
+    public int firstArc(int node) {
+        return offsets[node];
+    }
+
+    public int endArc(int node) {
+        return offsets[node + 1];
+    }
+
+    public int arcTarget(int arc) {
+        return targets[arc];
+    }
+
+    public int arcEdge(int arc) {
+        return arcEdges[arc];
+    }
+
+    public boolean isBlocked(int edge) {
+        return blocked[edge];
+    }
+
+    public EdgeWeight edgeWeight(int edge) {
+        return new EdgeWeight(walk[edge], mixcommute[edge], jeepney[edge] != Graph.NO_WEIGHT ? jeepney[edge] : null);
+    }
+
+    public int weight(int edge, String mode) {
+        return weight(edge, TravelMode.fromLabel(mode));
+    }
+
+    public int weight(int edge, TravelMode mode) {
+        return switch (mode) {
+            case WALK -> walk[edge];
+            case MIXCOMMUTE -> mixcommute[edge];
+            case JEEP -> (jeepney[edge] != Graph.NO_WEIGHT ? jeepney[edge] : Integer.MAX_VALUE);
+        };
+    }
+
+    // BLOCKED for a closed road.
+    public int bestWeight(int edge) {
+        return bestWeight[edge];
+    }
+
+    public TravelMode bestMode(int edge) {
+        return TravelMode.of(bestMode[edge]);
+    }
+
+    public int edgeBetween(int from, int to) {
+        if (from < 0 || to < 0)
+            return -1;
+        for (int a = offsets[from]; a < offsets[from + 1]; a++)
+            if (targets[a] == to)
+                return arcEdges[a];
+        return -1;
+    }
+
+    public int edgeFrom(int edge) {
+        return edgeFrom[edge];
+    }
+
+    public int edgeTo(int edge) {
+        return edgeTo[edge];
+    }
+
+    private final class AdjacencyView extends AbstractMap<String, Map<String, EdgeWeight>> {
+        @Override
+        public Map<String, EdgeWeight> get(Object key) {
+            Integer id = nodeIds.get(key);
+            return id != null ? new NeighborView(id) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return nodeIds.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return nodeNames.length;
+        }
+
+        @Override
+        public Set<Entry<String, Map<String, EdgeWeight>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Map<String, EdgeWeight>>> iterator() {
+                    return new Iterator<>() {
+                        private int node;
+
+                        @Override
+                        public boolean hasNext() {
+                            return node < nodeNames.length;
+                        }
+
+                        @Override
+                        public Entry<String, Map<String, EdgeWeight>> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            int id = node++;
+                            return new SimpleImmutableEntry<>(nodeNames[id], new NeighborView(id));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return nodeNames.length;
+                }
+            };
+        }
+    }
+
+    private final class NeighborView extends AbstractMap<String, EdgeWeight> {
+        private final int node;
+
+        NeighborView(int node) {
+            this.node = node;
+        }
+
+        @Override
+        public EdgeWeight get(Object key) {
+            Integer id = nodeIds.get(key);
+            if (id == null)
+                return null;
+            for (int a = offsets[node]; a < offsets[node + 1]; a++)
+                if (targets[a] == id && !blocked[arcEdges[a]])
+                    return edgeWeight(arcEdges[a]);
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, EdgeWeight>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, EdgeWeight>> iterator() {
+                    return new Iterator<>() {
+                        private int arc = advance(offsets[node]);
+
+                        private int advance(int a) {
+                            while (a < offsets[node + 1] && blocked[arcEdges[a]])
+                                a++;
+                            return a;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return arc < offsets[node + 1];
+                        }
+
+                        @Override
+                        public Entry<String, EdgeWeight> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            int a = arc;
+                            arc = advance(arc + 1);
+                            return new SimpleImmutableEntry<>(nodeNames[targets[a]], edgeWeight(arcEdges[a]));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int count = 0;
+                    for (int a = offsets[node]; a < offsets[node + 1]; a++)
+                        if (!blocked[arcEdges[a]])
+                            count++;
+                    return count;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package src.navapp.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// Binary image of a GraphSnapshot: a header, the node dictionary, then every CSR and weight array
+// in little-endian order, then node coordinates when the graph has them (format 2; format 1
+// files, which predate coordinates, still load). Reading maps the file and bulk-copies each array, so startup costs one
+// pass over the bytes with no parsing.
+final class GraphSnapshotFile {
+    static final String EXTENSION = ".navg";
+
+    private static final int MAGIC = 0x4E415647;
+    private static final int FORMAT = 2;
+
+    private GraphSnapshotFile() {
+    }
+
+    static void write(GraphSnapshot graph, Path file) {
+        int n = graph.nodeCount(), m = graph.edgeCount(), arcs = graph.offsets[n];
+        byte[][] names = new byte[n][];
+        long size = 4L * 4 + 8;
+        for (int u = 0; u < n; u++) {
+            names[u] = graph.nodeNames[u].getBytes(StandardCharsets.UTF_8);
+            size += 4 + names[u].length;
+        }
+        size += 4L * (n + 1) + 8L * arcs + 4L * 5 * m + m + 1;
+        NodeCoordinates coordinates = graph.coordinates;
+        if (coordinates != null)
+            size += 16L * n;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT).putInt(n).putInt(m).putLong(graph.getVersion());
+            for (byte[] name : names)
+                buffer.putInt(name.length).put(name);
+            putInts(buffer, graph.offsets);
+            putInts(buffer, graph.targets);
+            putInts(buffer, graph.arcEdges);
+            putInts(buffer, graph.edgeFrom);
+            putInts(buffer, graph.edgeTo);
+            putInts(buffer, graph.walk);
+            putInts(buffer, graph.mixcommute);
+            putInts(buffer, graph.jeepney);
+            for (boolean closed : graph.blocked)
+                buffer.put((byte) (closed ? 1 : 0));
+            buffer.put((byte) (coordinates != null ? 1 : 0));
+            if (coordinates != null) {
+                putDoubles(buffer, coordinates.latitude);
+                putDoubles(buffer, coordinates.longitude);
+            }
+            buffer.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Every count and index is checked against the file before it is used, so a truncated or
+    // damaged file fails with an IOException rather than an unchecked exception mid-read.
+    static GraphSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            require(buffer, 4L * 4 + 8, file);
+            int format;
+            if (buffer.getInt() != MAGIC || (format = buffer.getInt()) < 1 || format > FORMAT)
+                throw new IOException("Not a graph snapshot: " + file);
+
+            int n = buffer.getInt(), m = buffer.getInt();
+            long version = buffer.getLong();
+            if (n < 0 || m < 0)
+                throw new IOException("Corrupt graph snapshot " + file + ": " + n + " nodes, " + m + " edges");
+            // Each node takes at least its name length; each edge its five weights and flag.
+            require(buffer, 4L * n + 21L * m, file);
+            String[] nodeNames = new String[n];
+            Map<String, Integer> nodeIds = new HashMap<>(n * 2);
+            for (int u = 0; u < n; u++) {
+                require(buffer, 4, file);
+                int length = buffer.getInt();
+                if (length < 0)
+                    throw new IOException("Corrupt graph snapshot " + file + ": node " + u + " name length " + length);
+                require(buffer, length, file);
+                byte[] name = new byte[length];
+                buffer.get(name);
+                nodeNames[u] = new String(name, StandardCharsets.UTF_8);
+                nodeIds.put(nodeNames[u], u);
+            }
+
+            require(buffer, 4L * (n + 1), file);
+            int[] offsets = getInts(buffer, n + 1);
+            if (offsets[0] != 0)
+                throw new IOException("Corrupt graph snapshot " + file + ": arc offsets start at " + offsets[0]);
+            for (int u = 0; u < n; u++)
+                if (offsets[u + 1] < offsets[u])
+                    throw new IOException("Corrupt graph snapshot " + file + ": arc offsets decrease at node " + u);
+            int arcs = offsets[n];
+            require(buffer, 8L * arcs + 21L * m + 1, file);
+            int[] targets = inRange(getInts(buffer, arcs), n, "arc target", file);
+            int[] arcEdges = inRange(getInts(buffer, arcs), m, "arc edge", file);
+            int[] edgeFrom = inRange(getInts(buffer, m), n, "edge endpoint", file);
+            int[] edgeTo = inRange(getInts(buffer, m), n, "edge endpoint", file);
+            int[] walk = getInts(buffer, m), mixcommute = getInts(buffer, m), jeepney = getInts(buffer, m);
+            boolean[] blocked = new boolean[m];
+            for (int e = 0; e < m; e++)
+                blocked[e] = buffer.get() != 0;
+            double[] latitude = null, longitude = null;
+            if (format >= 2 && buffer.get() != 0) {
+                require(buffer, 16L * n, file);
+                latitude = getDoubles(buffer, n);
+                longitude = getDoubles(buffer, n);
+            }
+
+            return GraphSnapshot.of(version, nodeNames, nodeIds, offsets, targets, arcEdges, edgeFrom, edgeTo,
+                    walk, mixcommute, jeepney, blocked, latitude, longitude);
+        } catch (RuntimeException e) {
+            // Anything the checks above missed is still a damaged file, not a bug to crash on.
+            throw new IOException("Corrupt graph snapshot " + file + ": " + e, e);
+        }
+    }
+
+    private static void require(ByteBuffer buffer, long bytes, Path file) throws IOException {
+        if (bytes > buffer.remaining())
+            throw new IOException("Truncated graph snapshot " + file + ": needs " + bytes + " more bytes, has "
+                    + buffer.remaining());
+    }
+
+    private static int[] inRange(int[] values, int limit, String what, Path file) throws IOException {
+        for (int value : values)
+            if (value < 0 || value >= limit)
+                throw new IOException("Corrupt graph snapshot " + file + ": " + what + " " + value + " out of range");
+        return values;
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + 4 * values.length);
+    }
+
+    private static void putDoubles(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().put(values);
+        buffer.position(buffer.position() + 8 * values.length);
+    }
+
+    private static double[] getDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + 8 * count);
+        return values;
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+}
@@ -0,0 +1,163 @@
+package src.navapp.service;
+
+import java.util.Arrays;
+
+// Bidirectional upward search shared by the contraction hierarchies. Both directions walk the same
+// undirected upward arcs; arcs weighted Integer.MAX_VALUE are treated as absent. Scratch arrays
+// are sized to the node count once per thread and only touched entries are cleared afterwards.
+final class HierarchySearch {
+    private static final int INF = Integer.MAX_VALUE;
+    private static final ThreadLocal<HierarchySearch> LOCAL = new ThreadLocal<>();
+
+    private final Side forward, backward;
+    private long distance;
+    private boolean truncated;
+
+    private HierarchySearch(int n) {
+        forward = new Side(n);
+        backward = new Side(n);
+    }
+
+    static HierarchySearch get(int n) {
+        HierarchySearch search = LOCAL.get();
+        if (search == null || search.forward.dist.length != n) {
+            search = new HierarchySearch(n);
+            LOCAL.set(search);
+        }
+        return search;
+    }
+
+    long distance() {
+        return distance;
+    }
+
+    // True when the last route() gave up because the caller's SearchBudget expired.
+    boolean truncated() {
+        return truncated;
+    }
+
+    // Returns the hierarchy arcs from source to target in walking order, or null when target is
+    // unreachable or the search ran out of time.
+    int[] route(int[] upOffsets, int[] upArcs, int[] arcFrom, int[] arcTo, int[] weight, int source, int target) {
+        SearchBudget budget = SearchBudget.current();
+        try {
+            forward.start(source);
+            backward.start(target);
+            long best = Long.MAX_VALUE;
+            int meet = -1;
+            truncated = false;
+
+            // Both searches only climb (or move within a core), so neither can improve the
+            // meeting distance once its smallest key reaches the best one found.
+            while (true) {
+                boolean forwardDone = forward.heap.isEmpty() || forward.heap.peekKey() >= best;
+                boolean backwardDone = backward.heap.isEmpty() || backward.heap.peekKey() >= best;
+                if (forwardDone && backwardDone)
+                    break;
+
+                Side side = forwardDone ? backward
+                        : backwardDone ? forward
+                        : forward.heap.peekKey() <= backward.heap.peekKey() ? forward
+                        : backward;
+                Side other = side == forward ? backward : forward;
+                int u = side.settle(upOffsets, upArcs, arcFrom, arcTo, weight);
+                if (((forward.settled + backward.settled) & 1023) == 0 && budget.expired()) {
+                    truncated = true;
+                    break;
+                }
+                if (other.dist[u] != INF && (long) side.dist[u] + other.dist[u] < best) {
+                    best = (long) side.dist[u] + other.dist[u];
+                    meet = u;
+                }
+            }
+
+            distance = best;
+            SearchEffort.record(forward.settled + backward.settled, forward.relaxed + backward.relaxed);
+            if (meet < 0 || truncated)
+                return null;
+
+            int forwardCount = 0, backwardCount = 0;
+            for (int v = meet; v != source; v = other(arcFrom, arcTo, forward.parentArc[v], v))
+                forwardCount++;
+            for (int v = meet; v != target; v = other(arcFrom, arcTo, backward.parentArc[v], v))
+                backwardCount++;
+
+            int[] arcs = new int[forwardCount + backwardCount];
+            int i = forwardCount;
+            for (int v = meet; v != source; v = other(arcFrom, arcTo, forward.parentArc[v], v))
+                arcs[--i] = forward.parentArc[v];
+            i = forwardCount;
+            for (int v = meet; v != target; v = other(arcFrom, arcTo, backward.parentArc[v], v))
+                arcs[i++] = backward.parentArc[v];
+            return arcs;
+        } finally {
+            forward.reset();
+            backward.reset();
+        }
+    }
+
+    static int other(int[] arcFrom, int[] arcTo, int arc, int node) {
+        return arcFrom[arc] == node ? arcTo[arc] : arcFrom[arc];
+    }
+
+    private static final class Side {
+        final int[] dist, parentArc;
+        final IndexedMinHeap heap;
+        int[] touched = new int[64];
+        int touchedCount;
+        long settled, relaxed;
+
+        Side(int n) {
+            dist = new int[n];
+            parentArc = new int[n];
+            Arrays.fill(dist, INF);
+            heap = new IndexedMinHeap(n);
+        }
+
+        void start(int node) {
+            relax(node, 0, -1);
+        }
+
+        // Stall-on-demand: a node reached more cheaply through a higher neighbour than by its own
+        // label is not on any shortest upward path, so its arcs are not expanded.
+        int settle(int[] upOffsets, int[] upArcs, int[] arcFrom, int[] arcTo, int[] weight) {
+            int u = heap.pop();
+            int start = upOffsets[u], end = upOffsets[u + 1];
+            settled++;
+            relaxed += end - start;
+            for (int i = start; i < end; i++) {
+                int arc = upArcs[i];
+                int v = other(arcFrom, arcTo, arc, u);
+                if (dist[v] != INF && weight[arc] != INF && dist[v] + weight[arc] < dist[u])
+                    return u;
+            }
+            for (int i = start; i < end; i++) {
+                int arc = upArcs[i];
+                if (weight[arc] != INF)
+                    relax(other(arcFrom, arcTo, arc, u), dist[u] + weight[arc], arc);
+            }
+            return u;
+        }
+
+        void relax(int v, int candidate, int arc) {
+            if (candidate >= dist[v])
+                return;
+            if (dist[v] == INF) {
+                if (touchedCount == touched.length)
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                touched[touchedCount++] = v;
+            }
+            dist[v] = candidate;
+            parentArc[v] = arc;
+            heap.push(v, candidate);
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++)
+                dist[touched[i]] = INF;
+            touchedCount = 0;
+            settled = relaxed = 0;
+            heap.clear();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package src.navapp.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free log-linear histogram of non-negative longs. Values below 16 get a bucket each and
+// every power of two above that is split into 16, so a percentile is off by at most 1/16 of its
+// value; recording is one array increment plus two adders.
+public final class Histogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            copy[i] = counts.get(i);
+        return new Snapshot(copy, count.sum(), total.sum(), max.get());
+    }
+
+    static int bucket(long value) {
+        if (value < SUB)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB + (int) (value >>> shift) - SUB;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB)
+            return bucket;
+        int shift = bucket / SUB - 1;
+        long bound = (long) (SUB + bucket % SUB + 1) << shift;
+        return bound <= 0 ? Long.MAX_VALUE : bound - 1;
+    }
+
+    // Counts are read one bucket at a time while other threads record, so a snapshot may be off
+    // by the few values recorded during the copy.
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public static Snapshot empty() {
+            return new Snapshot(new long[BUCKETS], 0, 0, 0);
+        }
+
+        public Snapshot merge(Snapshot other) {
+            long[] merged = counts.clone();
+            for (int i = 0; i < BUCKETS; i++)
+                merged[i] += other.counts[i];
+            return new Snapshot(merged, count + other.count, total + other.total, Math.max(max, other.max));
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        // The upper bound of the bucket holding the value at rank ceil(p * count), capped by the
+        // largest value seen.
+        public long percentile(double p) {
+            long seen = 0, recorded = 0;
+            for (long c : counts)
+                recorded += c;
+            long rank = Math.max(1, (long) Math.ceil(p * recorded));
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(upperBound(i), max);
+            }
+            return max;
+        }
+    }
+}
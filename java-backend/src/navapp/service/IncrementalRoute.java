@@ -0,0 +1,172 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.SimulationEvent;
+import src.navapp.model.Step;
+
+import java.util.*;
+
+// Lifelong Planning A* for one start/end pair. g holds settled distances and rhs the one-step
+// lookahead; after an edge changes only the vertices whose two values disagree are re-expanded,
+// so a repair touches the region the change actually affects instead of the whole map. The search
+// itself runs in result() under the caller's SearchBudget; one cut short leaves the open queue as
+// it was, and the next result() carries on from there.
+final class IncrementalRoute {
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final int start;
+    private final int goal;
+    private final int[] g;
+    private final int[] rhs;
+    private final int[] h;
+    // Trace state for result(): the queue doubles as the list of nodes whose next entry to clear.
+    private final int[] next;
+    private final int[] nextEdge;
+    private final int[] queue;
+    private final IndexedMinHeap open;
+    private GraphSnapshot graph;
+
+    IncrementalRoute(GraphSnapshot graph, int start, int goal) {
+        this.graph = graph;
+        this.start = start;
+        this.goal = goal;
+        int n = graph.nodeCount();
+        g = new int[n];
+        rhs = new int[n];
+        h = new int[n];
+        next = new int[n];
+        nextEdge = new int[n];
+        queue = new int[n];
+        open = new IndexedMinHeap(n);
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        Arrays.fill(next, -1);
+
+        // The structural bound stays consistent under weight increases and closures, which are
+        // the only changes events produce, so it never needs recomputing between repairs.
+        int goalBound = cheapestIncident(goal);
+        for (int u = 0; u < n; u++)
+            h[u] = u == goal ? 0 : Math.max(goalBound, cheapestIncident(u));
+
+        rhs[start] = 0;
+        open.push(start, key(start));
+    }
+
+    long getVersion() {
+        return graph.getVersion();
+    }
+
+    void repair(GraphSnapshot newer, List<SimulationEvent> changes) {
+        graph = newer;
+        for (SimulationEvent event : changes) {
+            int u = graph.nodeId(event.getFrom()), v = graph.nodeId(event.getTo());
+            if (u < 0 || v < 0)
+                continue;
+            updateVertex(u);
+            updateVertex(v);
+        }
+    }
+
+    // The route is traced back from the goal along tight arcs, where g[u] + w == g[v], breadth
+    // first and visiting each node once: zero-weight roads give equal g values on both ends, and a
+    // greedy walk between them could go round forever. Any tight chain from the goal that reaches
+    // the start weighs exactly g[goal], so it is a shortest route.
+    PathResult result() {
+        if (!computeShortestPath())
+            return PathResult.unreachable().asTruncated();
+        String startName = graph.nodeName(start);
+        if (start == goal)
+            return new PathResult(List.of(startName), 0, List.of());
+        if (g[goal] == INFINITY)
+            return PathResult.unreachable();
+
+        int head = 0, tail = 0;
+        queue[tail++] = goal;
+        next[goal] = goal;
+        while (head < tail && next[start] < 0) {
+            int v = queue[head++];
+            for (int a = graph.firstArc(v), end = graph.endArc(v); a < end; a++) {
+                int edge = graph.arcEdge(a), u = graph.arcTarget(a);
+                int weight = graph.bestWeight(edge);
+                if (weight == GraphSnapshot.BLOCKED || g[u] == INFINITY || next[u] >= 0
+                        || (long) g[u] + weight != g[v])
+                    continue;
+                next[u] = v;
+                nextEdge[u] = edge;
+                queue[tail++] = u;
+            }
+        }
+
+        PathResult result = null;
+        // Only unreachable if the search left g inconsistent along every shortest route.
+        if (next[start] >= 0) {
+            List<String> path = new ArrayList<>();
+            List<Step> steps = new ArrayList<>();
+            path.add(startName);
+            for (int u = start; u != goal; u = next[u]) {
+                String from = graph.nodeName(u), to = graph.nodeName(next[u]);
+                path.add(to);
+                steps.add(new Step(from, to, graph.bestMode(nextEdge[u]), graph.bestWeight(nextEdge[u])));
+            }
+            result = new PathResult(path, g[goal], steps);
+        }
+        for (int i = 0; i < tail; i++)
+            next[queue[i]] = -1;
+        return result;
+    }
+
+    // False when the budget expired before the goal was consistent.
+    private boolean computeShortestPath() {
+        SearchBudget budget = SearchBudget.current();
+        long settled = 0, relaxed = 0;
+        while (!open.isEmpty() && (open.peekKey() < key(goal) || rhs[goal] != g[goal])) {
+            if ((++settled & 1023) == 0 && budget.expired()) {
+                SearchEffort.record(settled, relaxed);
+                return false;
+            }
+            int u = open.pop();
+            relaxed += graph.endArc(u) - graph.firstArc(u);
+            if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++)
+                    updateVertex(graph.arcTarget(a));
+            } else {
+                g[u] = INFINITY;
+                updateVertex(u);
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++)
+                    updateVertex(graph.arcTarget(a));
+            }
+        }
+        SearchEffort.record(settled, relaxed);
+        return true;
+    }
+
+    private void updateVertex(int u) {
+        if (u != start) {
+            int best = INFINITY;
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int weight = graph.bestWeight(graph.arcEdge(a)), v = graph.arcTarget(a);
+                if (weight != GraphSnapshot.BLOCKED && g[v] != INFINITY)
+                    best = Math.min(best, g[v] + weight);
+            }
+            rhs[u] = best;
+        }
+        if (g[u] != rhs[u])
+            open.push(u, key(u));
+        else
+            open.remove(u);
+    }
+
+    private long key(int u) {
+        long second = Math.min(g[u], rhs[u]);
+        long first = second == INFINITY ? INFINITY : Math.min(INFINITY, second + h[u]);
+        return (first << 32) | second;
+    }
+
+    private int cheapestIncident(int node) {
+        int min = INFINITY;
+        for (int a = graph.firstArc(node), end = graph.endArc(node); a < end; a++)
+            min = Math.min(min, graph.bestWeight(graph.arcEdge(a)));
+        return min == GraphSnapshot.BLOCKED ? 0 : min;
+    }
+}
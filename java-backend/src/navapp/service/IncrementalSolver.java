@@ -0,0 +1,68 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.SimulationEvent;
+
+import java.util.*;
+
+// Keeps the search state of recently requested start/end pairs and repairs it with the events
+// published since, instead of searching the whole map again after every event.
+public class IncrementalSolver implements PathSolver {
+    private static final int MAX_ROUTES = 64;
+
+    private final Graph source;
+    private final PathSolver fallback = new AStarSolver();
+    private final Map<String, IncrementalRoute> routes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IncrementalRoute> eldest) {
+            return size() > MAX_ROUTES;
+        }
+    };
+
+    public IncrementalSolver(Graph source) {
+        this.source = source;
+    }
+
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        int start = graph.nodeId(startNode), end = graph.nodeId(endNode);
+        if (start < 0 || end < 0)
+            return fallback.findShortestPath(graph, startNode, endNode);
+
+        String key = startNode + "\u0000" + endNode;
+        IncrementalRoute route;
+        synchronized (routes) {
+            route = routes.get(key);
+        }
+        if (route == null) {
+            route = new IncrementalRoute(graph, start, end);
+            synchronized (routes) {
+                routes.put(key, route);
+            }
+        }
+
+        synchronized (route) {
+            // A request pinned to an older snapshot than the route has already moved past cannot
+            // be answered by rolling the route back, so it gets a plain search.
+            if (graph.getVersion() < route.getVersion())
+                return fallback.findShortestPath(graph, startNode, endNode);
+
+            if (graph.getVersion() > route.getVersion()) {
+                List<SimulationEvent> changes = source.eventsBetween(route.getVersion(), graph.getVersion());
+                if (changes == null) {
+                    IncrementalRoute fresh = new IncrementalRoute(graph, start, end);
+                    synchronized (routes) {
+                        routes.put(key, fresh);
+                    }
+                    return orFallback(fresh.result(), graph, startNode, endNode);
+                }
+                route.repair(graph, changes);
+            }
+            return orFallback(route.result(), graph, startNode, endNode);
+        }
+    }
+
+    private PathResult orFallback(PathResult result, GraphSnapshot graph, String startNode, String endNode) {
+        return result != null ? result : fallback.findShortestPath(graph, startNode, endNode);
+    }
+}
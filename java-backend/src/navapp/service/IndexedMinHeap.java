@@ -0,0 +1,113 @@
+package src.navapp.service;
+
+import java.util.Arrays;
+
+// Binary min-heap over dense int ids with decrease-key, so solvers never box a queue entry.
+final class IndexedMinHeap {
+    private final int[] heap;
+    private final int[] position;
+    private final long[] keys;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++)
+            position[heap[i]] = -1;
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    long peekKey() {
+        return keys[heap[0]];
+    }
+
+    void push(int id, long key) {
+        if (position[id] >= 0) {
+            long old = keys[id];
+            keys[id] = key;
+            if (key < old)
+                siftUp(position[id]);
+            else
+                siftDown(position[id]);
+            return;
+        }
+        keys[id] = key;
+        heap[size] = id;
+        position[id] = size;
+        siftUp(size++);
+    }
+
+    int pop() {
+        int top = heap[0];
+        position[top] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    void remove(int id) {
+        int i = position[id];
+        if (i < 0)
+            return;
+        position[id] = -1;
+        if (i == --size)
+            return;
+        int moved = heap[size];
+        heap[i] = moved;
+        position[moved] = i;
+        siftUp(i);
+        siftDown(position[moved]);
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[id])
+                break;
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+                child++;
+            if (keys[heap[child]] >= keys[id])
+                break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+}
@@ -0,0 +1,97 @@
+package src.navapp.service;
+
+import src.navapp.model.SimulationEvent;
+import src.navapp.model.TravelMode;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// A* with ALT bounds from a landmark table kept in step with the live graph. Landmarks are chosen
+// in the background once per topology. Weight increases leave the current table admissible, so
+// after a batch of events the tables are recomputed only once the refresh delay has passed,
+// coalescing everything that arrived meanwhile. Until the first table is ready, and for snapshots
+// older than it, queries use the plain A* bounds.
+public class LandmarkSolver extends AStarSolver implements GraphListener {
+    private static final long SEED = 42;
+
+    private final Graph source;
+    private final int landmarkCount;
+    private final LandmarkTable.Selection selection;
+    private final long refreshDelayMillis;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "alt-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private volatile LandmarkTable table;
+    private volatile long lastRefreshNanos;
+
+    public LandmarkSolver(Graph source) {
+        this(source, 16, LandmarkTable.Selection.AVOID, Duration.ofSeconds(5));
+    }
+
+    public LandmarkSolver(Graph source, int landmarkCount, LandmarkTable.Selection selection,
+            Duration refreshDelay) {
+        this.source = source;
+        this.landmarkCount = landmarkCount;
+        this.selection = selection;
+        this.refreshDelayMillis = refreshDelay.toMillis();
+        source.addListener(this);
+        refresher.execute(this::refresh);
+    }
+
+    @Override
+    protected Estimator estimator(GraphSnapshot graph, int target) {
+        Estimator base = super.estimator(graph, target);
+        LandmarkTable.Bound bound = bounds(graph, null, target);
+        if (bound == null)
+            return base;
+        return node -> node == target ? 0 : Math.max(base.estimate(node), bound.estimate(node));
+    }
+
+    // Bounds toward `target` for routes using only `mode`, or any mode when it is null; null when
+    // no table fits the snapshot yet.
+    public LandmarkTable.Bound bounds(GraphSnapshot graph, TravelMode mode, int target) {
+        LandmarkTable current = table;
+        if (current == null || !current.fits(graph))
+            return null;
+        return current.toward(LandmarkTable.metric(mode), target);
+    }
+
+    public LandmarkTable getTable() {
+        return table;
+    }
+
+    public long getLastRefreshNanos() {
+        return lastRefreshNanos;
+    }
+
+    @Override
+    public void onEvents(GraphSnapshot snapshot, List<SimulationEvent> batch) {
+        if (refreshQueued.compareAndSet(false, true))
+            refresher.schedule(this::refresh, refreshDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // The old table is unusable on a new topology, so this refresh does not wait.
+    @Override
+    public void onTopologyChange(GraphSnapshot snapshot) {
+        refresher.execute(this::refresh);
+    }
+
+    private void refresh() {
+        refreshQueued.set(false);
+        GraphSnapshot graph = source.snapshot();
+        LandmarkTable current = table;
+        if (current != null && current.getVersion() == graph.getVersion() && current.fits(graph))
+            return;
+        long startedAt = System.nanoTime();
+        table = current != null && current.fits(graph) ? current.refresh(graph)
+                : LandmarkTable.build(graph, landmarkCount, selection, SEED);
+        lastRefreshNanos = System.nanoTime() - startedAt;
+    }
+}
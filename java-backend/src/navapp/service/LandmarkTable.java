@@ -0,0 +1,274 @@
+package src.navapp.service;
+
+import src.navapp.model.TravelMode;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// Distances from a handful of landmark nodes, for ALT lower bounds. Roads are undirected, so by the
+// triangle inequality d(v, t) >= |d(L, t) - d(L, v)| for every landmark L. One table is kept per
+// metric: the best weight over all modes, which bounds any route, and each single mode, which
+// bounds routes restricted to it far more tightly. Each table is node-major (the distances of one
+// node to every landmark are adjacent), so a bound reads one short run per endpoint.
+//
+// Events only ever raise weights or close roads, so a table computed on an older version of the
+// same topology still gives admissible, consistent bounds; it is merely looser than a fresh one.
+public final class LandmarkTable {
+    private static final int INF = Integer.MAX_VALUE;
+    public static final int BEST = 0;
+    static final int METRICS = TravelMode.values().length + 1;
+
+    public enum Selection {
+        // Each landmark is the node farthest from those already chosen.
+        FARTHEST,
+        // Goldberg and Werneck's avoid: grow a shortest-path tree from a random root, weigh each
+        // node by how badly the current landmarks bound its distance from the root, and place the
+        // next landmark at a leaf below the worst-covered subtree.
+        AVOID
+    }
+
+    private final long version, topologyVersion;
+    private final int[] landmarks;
+    private final int[][] distances;
+
+    private LandmarkTable(long version, long topologyVersion, int[] landmarks, int[][] distances) {
+        this.version = version;
+        this.topologyVersion = topologyVersion;
+        this.landmarks = landmarks;
+        this.distances = distances;
+    }
+
+    public static int metric(TravelMode mode) {
+        return mode == null ? BEST : mode.ordinal() + 1;
+    }
+
+    // Chooses `count` landmarks on the best-weight metric, then fills the per-mode tables with one
+    // Dijkstra per landmark and mode, run in parallel.
+    public static LandmarkTable build(GraphSnapshot graph, int count, Selection selection, long seed) {
+        int n = graph.nodeCount();
+        count = Math.min(count, n);
+        int[] landmarks = new int[count];
+        int[] best = new int[n * count];
+        Random rand = new Random(seed);
+        for (int l = 0; l < count; l++) {
+            int landmark = selection == Selection.AVOID ? avoid(graph, landmarks, best, l, rand)
+                    : farthest(graph, landmarks, best, l, rand);
+            landmarks[l] = landmark;
+            store(best, count, l, distancesFrom(graph, landmark, BEST));
+        }
+
+        int[][] distances = new int[METRICS][];
+        distances[BEST] = best;
+        for (int metric = 1; metric < METRICS; metric++)
+            distances[metric] = new int[n * count];
+        fill(graph, landmarks, distances, 1);
+        return new LandmarkTable(graph.getVersion(), graph.getTopologyVersion(), landmarks, distances);
+    }
+
+    // The same landmarks with every table recomputed on a newer version of the same topology.
+    public LandmarkTable refresh(GraphSnapshot graph) {
+        if (graph.getTopologyVersion() != topologyVersion)
+            throw new IllegalArgumentException("Landmarks were chosen on another topology");
+        int[][] next = new int[METRICS][landmarks.length * graph.nodeCount()];
+        fill(graph, landmarks, next, 0);
+        return new LandmarkTable(graph.getVersion(), topologyVersion, landmarks, next);
+    }
+
+    // Usable on the version it was computed on and any later version of the same topology.
+    public boolean fits(GraphSnapshot graph) {
+        return graph.getTopologyVersion() == topologyVersion && graph.getVersion() >= version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    public Bound toward(int metric, int target) {
+        return new Bound(distances[metric], landmarks.length, target);
+    }
+
+    // Lower bounds on the distance from any node to one target under one metric. Landmarks that
+    // cannot reach the target or the node say nothing and are skipped.
+    public static final class Bound {
+        private final int[] table;
+        private final int count, targetRow;
+
+        private Bound(int[] table, int count, int target) {
+            this.table = table;
+            this.count = count;
+            this.targetRow = target * count;
+        }
+
+        public int estimate(int node) {
+            int row = node * count, bound = 0;
+            for (int l = 0; l < count; l++) {
+                int toTarget = table[targetRow + l], toNode = table[row + l];
+                if (toTarget == INF || toNode == INF)
+                    continue;
+                bound = Math.max(bound, Math.abs(toTarget - toNode));
+            }
+            return bound;
+        }
+    }
+
+    private static void fill(GraphSnapshot graph, int[] landmarks, int[][] distances, int firstMetric) {
+        int count = landmarks.length;
+        IntStream.range(firstMetric * count, METRICS * count).parallel().forEach(task -> {
+            int metric = task / count, l = task % count;
+            store(distances[metric], count, l, distancesFrom(graph, landmarks[l], metric));
+        });
+    }
+
+    private static void store(int[] table, int count, int l, int[] dist) {
+        for (int v = 0; v < dist.length; v++)
+            table[v * count + l] = dist[v];
+    }
+
+    private static int farthest(GraphSnapshot graph, int[] landmarks, int[] best, int chosen, Random rand) {
+        int n = graph.nodeCount();
+        if (chosen == 0) {
+            // A random start lands mid-map; the node farthest from it sits on the periphery.
+            int[] dist = distancesFrom(graph, rand.nextInt(n), BEST);
+            int far = 0;
+            for (int v = 1; v < n; v++)
+                if (dist[v] != INF && (dist[far] == INF || dist[v] > dist[far]))
+                    far = v;
+            return far;
+        }
+        // Unreachable from every landmark counts as farthest, so other components get covered.
+        int far = -1;
+        long farDistance = -1;
+        for (int v = 0; v < n; v++) {
+            long nearest = Long.MAX_VALUE;
+            for (int l = 0; l < chosen; l++) {
+                if (landmarks[l] == v) {
+                    nearest = -1;
+                    break;
+                }
+                int d = best[v * landmarks.length + l];
+                nearest = Math.min(nearest, d == INF ? Long.MAX_VALUE : d);
+            }
+            if (nearest > farDistance) {
+                farDistance = nearest;
+                far = v;
+            }
+        }
+        return far;
+    }
+
+    private static int avoid(GraphSnapshot graph, int[] landmarks, int[] best, int chosen, Random rand) {
+        int n = graph.nodeCount(), count = landmarks.length;
+        int root = rand.nextInt(n);
+        Tree tree = shortestPathTree(graph, root);
+        boolean[] isLandmark = new boolean[n];
+        for (int l = 0; l < chosen; l++)
+            isLandmark[landmarks[l]] = true;
+
+        // Subtree sizes: the bound's shortfall summed over the subtree, or zero once the subtree
+        // holds a landmark, since that part of the map is already covered.
+        long[] size = new long[n];
+        boolean[] covered = new boolean[n];
+        int[] heaviestChild = new int[n];
+        Arrays.fill(heaviestChild, -1);
+        for (int i = tree.order.length - 1; i >= 0; i--) {
+            int v = tree.order[i];
+            int toRoot = tree.dist[v];
+            int bound = 0;
+            for (int l = 0; l < chosen; l++) {
+                int a = best[root * count + l], b = best[v * count + l];
+                if (a != INF && b != INF)
+                    bound = Math.max(bound, Math.abs(a - b));
+            }
+            size[v] += toRoot - bound;
+            if (isLandmark[v])
+                covered[v] = true;
+            if (covered[v])
+                size[v] = 0;
+            int p = tree.parent[v];
+            if (p >= 0) {
+                covered[p] |= covered[v];
+                size[p] += size[v];
+                if (heaviestChild[p] < 0 || size[v] > size[heaviestChild[p]])
+                    heaviestChild[p] = v;
+            }
+        }
+
+        int heaviest = root;
+        for (int v : tree.order)
+            if (size[v] > size[heaviest])
+                heaviest = v;
+        if (size[heaviest] == 0)
+            return farthest(graph, landmarks, best, chosen, rand);
+        int leaf = heaviest;
+        while (heaviestChild[leaf] >= 0)
+            leaf = heaviestChild[leaf];
+        return leaf;
+    }
+
+    private static final class Tree {
+        final int[] dist, parent, order;
+
+        Tree(int[] dist, int[] parent, int[] order) {
+            this.dist = dist;
+            this.parent = parent;
+            this.order = order;
+        }
+    }
+
+    private static Tree shortestPathTree(GraphSnapshot graph, int root) {
+        int n = graph.nodeCount();
+        int[] dist = new int[n], parent = new int[n], order = new int[n];
+        Arrays.fill(dist, INF);
+        Arrays.fill(parent, -1);
+        int settled = search(graph, root, BEST, dist, parent, order);
+        return new Tree(dist, parent, Arrays.copyOf(order, settled));
+    }
+
+    static int[] distancesFrom(GraphSnapshot graph, int source, int metric) {
+        int[] dist = new int[graph.nodeCount()];
+        Arrays.fill(dist, INF);
+        search(graph, source, metric, dist, null, null);
+        return dist;
+    }
+
+    // Full Dijkstra from `source`; returns how many nodes it settled, in settle order when `order`
+    // is given.
+    private static int search(GraphSnapshot graph, int source, int metric, int[] dist, int[] parent, int[] order) {
+        TravelMode mode = metric == BEST ? null : TravelMode.of(metric - 1);
+        IndexedMinHeap heap = new IndexedMinHeap(graph.nodeCount());
+        dist[source] = 0;
+        heap.push(source, 0);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            if (order != null)
+                order[settled] = u;
+            settled++;
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int edge = graph.arcEdge(a);
+                int weight;
+                if (mode == null) {
+                    weight = graph.bestWeight(edge);
+                } else {
+                    weight = graph.isBlocked(edge) ? INF : graph.weight(edge, mode);
+                }
+                if (weight == INF)
+                    continue;
+                int v = graph.arcTarget(a);
+                long candidate = (long) dist[u] + weight;
+                if (candidate < dist[v]) {
+                    dist[v] = (int) candidate;
+                    if (parent != null)
+                        parent[v] = u;
+                    heap.push(v, candidate);
+                }
+            }
+        }
+        return settled;
+    }
+}
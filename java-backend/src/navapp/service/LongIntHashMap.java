@@ -0,0 +1,66 @@
+package src.navapp.service;
+
+import java.util.Arrays;
+
+// Open-addressing long -> int map used while loading, where a boxed HashMap<Long, Integer>
+// would allocate two objects per edge.
+final class LongIntHashMap {
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    int get(long key) {
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            if (values[i] == MISSING)
+                return MISSING;
+            if (keys[i] == key)
+                return values[i];
+        }
+    }
+
+    void put(long key, int value) {
+        if (2 * (size + 1) > keys.length)
+            resize();
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            if (values[i] == MISSING) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, MISSING);
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldValues[i] != MISSING)
+                put(oldKeys[i], oldValues[i]);
+    }
+}
@@ -0,0 +1,130 @@
+package src.navapp.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Registry of named histograms and gauges, read out in the shape Spring Boot Actuator serves from
+// /actuator/metrics, so the same dashboards and scrapers work against either. Histograms carry at
+// most one tag (an algorithm, an endpoint); timers record nanoseconds and report seconds.
+public final class Metrics {
+    private static final double[] PERCENTILES = { 0.5, 0.9, 0.99 };
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+
+    public Histogram timer(String name, String description, String tag, String value) {
+        return meter(name, Kind.TIMER, description, "seconds", tag).series(value);
+    }
+
+    public Histogram summary(String name, String description, String baseUnit, String tag, String value) {
+        return meter(name, Kind.SUMMARY, description, baseUnit, tag).series(value);
+    }
+
+    // Publishes a histogram some other component already records into.
+    public void timer(String name, String description, Histogram histogram) {
+        meter(name, Kind.TIMER, description, "seconds", null).series.put("", histogram);
+    }
+
+    public void gauge(String name, String description, String baseUnit, Supplier<Number> value) {
+        meters.put(name, new Meter(Kind.GAUGE, description, baseUnit, null, value));
+    }
+
+    public SortedSet<String> names() {
+        return new TreeSet<>(meters.keySet());
+    }
+
+    // tagFilters are "key:value" pairs as in Actuator's ?tag= parameter. Returns null when the
+    // meter does not exist or no series matches the filters.
+    public Map<String, Object> describe(String name, List<String> tagFilters) {
+        Meter meter = meters.get(name);
+        if (meter == null)
+            return null;
+
+        String wanted = null;
+        for (String filter : tagFilters) {
+            int colon = filter.indexOf(':');
+            if (colon < 0 || !filter.substring(0, colon).equals(meter.tag))
+                return null;
+            wanted = filter.substring(colon + 1);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("name", name);
+        response.put("description", meter.description);
+        response.put("baseUnit", meter.baseUnit);
+        if (meter.kind == Kind.GAUGE) {
+            response.put("measurements", List.of(measurement("VALUE", meter.gauge.get().doubleValue())));
+            response.put("availableTags", List.of());
+            return response;
+        }
+
+        Histogram.Snapshot merged = Histogram.Snapshot.empty();
+        boolean matched = false;
+        for (Map.Entry<String, Histogram> series : meter.series.entrySet()) {
+            if (wanted == null || wanted.equals(series.getKey())) {
+                merged = merged.merge(series.getValue().snapshot());
+                matched = true;
+            }
+        }
+        if (!matched)
+            return null;
+
+        double scale = meter.kind == Kind.TIMER ? 1 / NANOS_PER_SECOND : 1;
+        response.put("measurements", List.of(
+                measurement("COUNT", merged.getCount()),
+                measurement(meter.kind == Kind.TIMER ? "TOTAL_TIME" : "TOTAL", merged.getTotal() * scale),
+                measurement("MAX", merged.getMax() * scale)));
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double p : PERCENTILES)
+            percentiles.put(String.valueOf(p), merged.getCount() == 0 ? 0 : merged.percentile(p) * scale);
+        response.put("percentiles", percentiles);
+        if (meter.tag != null && wanted == null)
+            response.put("availableTags", List.of(Map.of("tag", meter.tag, "values", new TreeSet<>(meter.series.keySet()))));
+        else
+            response.put("availableTags", List.of());
+        return response;
+    }
+
+    private Meter meter(String name, Kind kind, String description, String baseUnit, String tag) {
+        Meter meter = meters.get(name);
+        if (meter == null)
+            meter = meters.computeIfAbsent(name, key -> new Meter(kind, description, baseUnit, tag, null));
+        if (meter.kind != kind)
+            throw new IllegalArgumentException(name + " is already registered as a " + meter.kind);
+        return meter;
+    }
+
+    private static Map<String, Object> measurement(String statistic, double value) {
+        Map<String, Object> measurement = new LinkedHashMap<>();
+        measurement.put("statistic", statistic);
+        measurement.put("value", value);
+        return measurement;
+    }
+
+    private enum Kind {
+        TIMER, SUMMARY, GAUGE
+    }
+
+    private static final class Meter {
+        final Kind kind;
+        final String description;
+        final String baseUnit;
+        final String tag;
+        final Supplier<Number> gauge;
+        final Map<String, Histogram> series = new ConcurrentHashMap<>();
+
+        Meter(Kind kind, String description, String baseUnit, String tag, Supplier<Number> gauge) {
+            this.kind = kind;
+            this.description = description;
+            this.baseUnit = baseUnit;
+            this.tag = tag;
+            this.gauge = gauge;
+        }
+
+        Histogram series(String value) {
+            Histogram histogram = series.get(value);
+            return histogram != null ? histogram : series.computeIfAbsent(value, key -> new Histogram());
+        }
+    }
+}
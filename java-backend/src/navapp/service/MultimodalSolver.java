@@ -0,0 +1,145 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+import src.navapp.model.Transfer;
+import src.navapp.model.TravelMode;
+
+import java.util.*;
+
+// Dijkstra over the layered graph whose states are (node, current mode). Riding an edge keeps the
+// mode; switching modes at a node pays the policy's transfer penalty, so routes only change mode
+// where the saving outweighs getting on or off.
+public class MultimodalSolver implements PathSolver {
+    private static final int MODES = TravelMode.values().length;
+
+    private final TransferPolicy policy;
+    private final LandmarkSolver landmarks;
+
+    public MultimodalSolver(TransferPolicy policy) {
+        this(policy, null);
+    }
+
+    // With landmarks the search is goal-directed by their bounds: the single-mode table when the
+    // policy allows one mode, otherwise the best-weight table, which no mix of modes can beat.
+    public MultimodalSolver(TransferPolicy policy, LandmarkSolver landmarks) {
+        this.policy = policy;
+        this.landmarks = landmarks;
+    }
+
+    public MultimodalSolver withPolicy(TransferPolicy next) {
+        return new MultimodalSolver(next, landmarks);
+    }
+
+    public TransferPolicy getPolicy() {
+        return policy;
+    }
+
+    private TravelMode onlyMode() {
+        TravelMode only = null;
+        for (TravelMode mode : TravelMode.values()) {
+            if (!policy.isAvailable(mode))
+                continue;
+            if (only != null)
+                return null;
+            only = mode;
+        }
+        return only;
+    }
+
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
+
+        int source = graph.nodeId(startNode), target = graph.nodeId(endNode);
+        if (source < 0 || target < 0)
+            return PathResult.unreachable();
+
+        int states = graph.nodeCount() * MODES;
+        int[] dist = new int[states];
+        int[] parent = new int[states];
+        int[] parentEdge = new int[states];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        IndexedMinHeap heap = new IndexedMinHeap(states);
+
+        // The rider stands at the start on foot; leaving it in any mode goes through the
+        // ordinary transfer relaxation, even when walking itself is not an allowed mode.
+        int walk = TravelMode.WALK.ordinal();
+        int origin = source * MODES + walk;
+        dist[origin] = 0;
+        parent[origin] = -1;
+        LandmarkTable.Bound bound = landmarks != null ? landmarks.bounds(graph, onlyMode(), target) : null;
+        heap.push(origin, bound != null ? bound.estimate(source) : 0);
+
+        int reached = -1;
+        SearchBudget budget = SearchBudget.current();
+        boolean truncated = false;
+        long settled = 0, relaxed = 0;
+        while (!heap.isEmpty()) {
+            int state = heap.pop();
+            int u = state / MODES, mode = state % MODES;
+            settled++;
+            if (u == target) {
+                reached = state;
+                break;
+            }
+            if ((settled & 1023) == 0 && budget.expired()) {
+                truncated = true;
+                break;
+            }
+
+            relaxed += graph.endArc(u) - graph.firstArc(u);
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int edge = graph.arcEdge(a);
+                if (graph.isBlocked(edge))
+                    continue;
+                int v = graph.arcTarget(a);
+                for (int next = 0; next < MODES; next++) {
+                    if (!policy.isAvailable(next))
+                        continue;
+                    int weight = graph.weight(edge, TravelMode.of(next));
+                    if (weight == Integer.MAX_VALUE)
+                        continue;
+
+                    int nextState = v * MODES + next;
+                    int candidate = dist[state] + policy.penalty(mode, next) + weight;
+                    if (candidate < dist[nextState]) {
+                        dist[nextState] = candidate;
+                        parent[nextState] = state;
+                        parentEdge[nextState] = edge;
+                        heap.push(nextState, bound != null ? (long) candidate + bound.estimate(v) : candidate);
+                    }
+                }
+            }
+        }
+        SearchEffort.record(settled, relaxed);
+
+        if (truncated)
+            return PathResult.unreachable().asTruncated();
+        if (reached < 0)
+            return PathResult.unreachable();
+
+        List<Integer> chain = new ArrayList<>();
+        for (int state = reached; state >= 0; state = parent[state])
+            chain.add(state);
+        Collections.reverse(chain);
+
+        List<String> path = new ArrayList<>();
+        List<Step> steps = new ArrayList<>();
+        List<Transfer> transfers = new ArrayList<>();
+        path.add(startNode);
+        for (int i = 1; i < chain.size(); i++) {
+            int previous = chain.get(i - 1), state = chain.get(i);
+            int from = previous / MODES, previousMode = previous % MODES;
+            int to = state / MODES, mode = state % MODES;
+            if (mode != previousMode)
+                transfers.add(new Transfer(graph.nodeName(from), TravelMode.of(previousMode).getLabel(),
+                        TravelMode.of(mode).getLabel(), policy.penalty(previousMode, mode)));
+            path.add(graph.nodeName(to));
+            steps.add(new Step(graph.nodeName(from), graph.nodeName(to), TravelMode.of(mode),
+                    graph.weight(parentEdge[state], TravelMode.of(mode))));
+        }
+        return new PathResult(path, dist[reached], steps, transfers);
+    }
+}
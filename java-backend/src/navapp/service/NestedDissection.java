@@ -0,0 +1,141 @@
+package src.navapp.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Metric-independent node order for the customizable hierarchy. Each piece of the graph is split
+// by a BFS level taken from a peripheral node: the level separates the ones before it from the
+// ones after, so both halves are ordered first and the separator last. Pieces below LEAF_SIZE are
+// kept in input order.
+final class NestedDissection {
+    private static final int LEAF_SIZE = 16;
+
+    private final GraphSnapshot graph;
+    private final int[] stamp, depth, order;
+    private int stampCount, orderCount;
+
+    NestedDissection(GraphSnapshot graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        stamp = new int[n];
+        depth = new int[n];
+        order = new int[n];
+    }
+
+    int[] order() {
+        int[] all = new int[graph.nodeCount()];
+        for (int u = 0; u < all.length; u++)
+            all[u] = u;
+
+        // Explicit stack of pieces still to split; a separator is pushed beneath its halves so it
+        // is emitted after both.
+        List<int[]> pending = new ArrayList<>();
+        List<Boolean> emit = new ArrayList<>();
+        pending.add(all);
+        emit.add(false);
+        while (!pending.isEmpty()) {
+            int[] piece = pending.remove(pending.size() - 1);
+            if (emit.remove(emit.size() - 1) || piece.length <= LEAF_SIZE) {
+                System.arraycopy(piece, 0, order, orderCount, piece.length);
+                orderCount += piece.length;
+                continue;
+            }
+            split(piece, pending, emit);
+        }
+        return order;
+    }
+
+    private void split(int[] piece, List<int[]> pending, List<Boolean> emit) {
+        int mark = ++stampCount;
+        for (int u : piece)
+            stamp[u] = mark;
+
+        int[] queue = new int[piece.length];
+        int reached = bfs(piece, piece[0], mark, queue);
+        if (reached < piece.length) {
+            // Disconnected: the component and the rest are independent, so order them apart.
+            int[] component = Arrays.copyOf(queue, reached);
+            int[] rest = new int[piece.length - reached];
+            int r = 0;
+            for (int u : piece)
+                if (depth[u] < 0)
+                    rest[r++] = u;
+            pending.add(rest);
+            emit.add(false);
+            pending.add(component);
+            emit.add(false);
+            return;
+        }
+
+        // Two sweeps: the farthest node from an arbitrary start is close to the periphery.
+        reached = bfs(piece, queue[reached - 1], mark, queue);
+        int levels = depth[queue[reached - 1]] + 1;
+        if (levels < 3) {
+            pending.add(piece);
+            emit.add(true);
+            return;
+        }
+        int[] levelSize = new int[levels];
+        for (int i = 0; i < reached; i++)
+            levelSize[depth[queue[i]]]++;
+
+        // Smallest level that leaves at least a fifth of the piece on each side, else the middle.
+        int best = -1, before = 0, lowest = piece.length / 5;
+        for (int l = 0; l < levels; l++) {
+            int after = piece.length - before - levelSize[l];
+            if (before >= lowest && after >= lowest && (best < 0 || levelSize[l] < levelSize[best]))
+                best = l;
+            before += levelSize[l];
+        }
+        if (best < 0)
+            best = levels / 2;
+
+        int below = 0, at = 0;
+        for (int l = 0; l < levels; l++) {
+            if (l < best)
+                below += levelSize[l];
+            else if (l == best)
+                at = levelSize[l];
+        }
+        int[] lower = new int[below], separator = new int[at], upper = new int[piece.length - below - at];
+        int lo = 0, se = 0, hi = 0;
+        for (int i = 0; i < reached; i++) {
+            int u = queue[i];
+            if (depth[u] < best)
+                lower[lo++] = u;
+            else if (depth[u] == best)
+                separator[se++] = u;
+            else
+                upper[hi++] = u;
+        }
+        pending.add(separator);
+        emit.add(true);
+        pending.add(upper);
+        emit.add(false);
+        pending.add(lower);
+        emit.add(false);
+    }
+
+    // Breadth-first search over the piece, recording depths and visiting order in `queue`;
+    // unreached nodes of the piece are left at depth -1. Closed roads count: the order must not
+    // depend on the metric.
+    private int bfs(int[] piece, int start, int mark, int[] queue) {
+        for (int u : piece)
+            depth[u] = -1;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        depth[start] = 0;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int v = graph.arcTarget(a);
+                if (stamp[v] == mark && depth[v] < 0) {
+                    depth[v] = depth[u] + 1;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,187 @@
+package src.navapp.service;
+
+import java.util.Arrays;
+
+// Node positions from the optional lat/lon CSV columns, with a k-d tree over the located nodes for
+// snapping arbitrary coordinates to the nearest node. Positions are projected onto a plane
+// (equirectangular around the mean latitude), which is accurate to well under a percent across a
+// city and keeps distances Euclidean, so the A* bound built on them is consistent. The bound is
+// only offered when every node is located: a road to or from an unplaced node has no measurable
+// speed, and a route through one could beat the fastest speed measured on the others.
+public final class NodeCoordinates {
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    final double[] latitude, longitude;
+    private final double originLatitude, metersPerDegreeLat, metersPerDegreeLon;
+    private final double[] x, y;
+    // Located nodes in k-d order: each range [lo, hi) has its splitting node at its midpoint,
+    // split on x at even depths and y at odd ones.
+    private final int[] tree;
+    private final double metersPerMinute;
+
+    // latitude/longitude hold NaN for nodes without a position.
+    NodeCoordinates(double[] latitude, double[] longitude, int[] edgeFrom, int[] edgeTo, int[] walk,
+            int[] mixcommute, int[] jeepney) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        int n = latitude.length, located = 0;
+        double latSum = 0;
+        for (int u = 0; u < n; u++) {
+            if (located(u)) {
+                located++;
+                latSum += latitude[u];
+            }
+        }
+        originLatitude = located > 0 ? latSum / located : 0;
+        metersPerDegreeLat = Math.toRadians(EARTH_RADIUS_METERS);
+        metersPerDegreeLon = metersPerDegreeLat * Math.cos(Math.toRadians(originLatitude));
+
+        x = new double[n];
+        y = new double[n];
+        tree = new int[located];
+        int next = 0;
+        for (int u = 0; u < n; u++) {
+            if (located(u)) {
+                x[u] = longitude[u] * metersPerDegreeLon;
+                y[u] = latitude[u] * metersPerDegreeLat;
+                tree[next++] = u;
+            }
+        }
+        build(0, located, 0);
+        metersPerMinute = located == n ? fastestSpeed(edgeFrom, edgeTo, walk, mixcommute, jeepney)
+                : Double.POSITIVE_INFINITY;
+    }
+
+    public boolean located(int node) {
+        return !Double.isNaN(latitude[node]) && !Double.isNaN(longitude[node]);
+    }
+
+    public double latitude(int node) {
+        return latitude[node];
+    }
+
+    public double longitude(int node) {
+        return longitude[node];
+    }
+
+    public int locatedCount() {
+        return tree.length;
+    }
+
+    // True when every node is located, which lowerBound needs to return anything but zero.
+    public boolean complete() {
+        return tree.length == latitude.length;
+    }
+
+    // Straight-line distance in meters between two located nodes.
+    public double distance(int from, int to) {
+        return Math.hypot(x[from] - x[to], y[from] - y[to]);
+    }
+
+    // Meters from the given coordinates to a located node.
+    public double distance(double lat, double lon, int node) {
+        return Math.hypot(lon * metersPerDegreeLon - x[node], lat * metersPerDegreeLat - y[node]);
+    }
+
+    // The located node closest to the given coordinates, or -1 when no node has a position.
+    public int nearest(double lat, double lon) {
+        if (tree.length == 0)
+            return -1;
+        Nearest best = new Nearest(lon * metersPerDegreeLon, lat * metersPerDegreeLat);
+        best.search(0, tree.length, 0);
+        return best.node;
+    }
+
+    // A lower bound on the travel time from `from` to `to`: no road covers more straight-line
+    // distance per minute than the fastest one did when the topology was loaded, and events only
+    // slow roads down. Zero unless every node is located, and when some road takes no time at all.
+    public int lowerBound(int from, int to) {
+        if (metersPerMinute == Double.POSITIVE_INFINITY)
+            return 0;
+        return (int) Math.min(Integer.MAX_VALUE - 1L, (long) (distance(from, to) / metersPerMinute));
+    }
+
+    private double fastestSpeed(int[] edgeFrom, int[] edgeTo, int[] walk, int[] mixcommute, int[] jeepney) {
+        double fastest = 0;
+        for (int e = 0; e < edgeFrom.length; e++) {
+            int u = edgeFrom[e], v = edgeTo[e];
+            int weight = Math.min(walk[e], mixcommute[e]);
+            if (jeepney[e] != Graph.NO_WEIGHT)
+                weight = Math.min(weight, jeepney[e]);
+            double length = distance(u, v);
+            if (weight <= 0 && length > 0)
+                return Double.POSITIVE_INFINITY;
+            if (weight > 0)
+                fastest = Math.max(fastest, length / weight);
+        }
+        // Without any measurable edge there is nothing to bound speed by.
+        return fastest > 0 ? fastest : Double.POSITIVE_INFINITY;
+    }
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1)
+            return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, depth % 2 == 0 ? x : y);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    // Quickselect: leaves the k-th smallest of tree[lo..hi] by `key` at k, smaller ones before it.
+    private void select(int lo, int hi, int k, double[] key) {
+        while (lo < hi) {
+            double pivot = key[tree[(lo + hi) >>> 1]];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[tree[i]] < pivot)
+                    i++;
+                while (key[tree[j]] > pivot)
+                    j--;
+                if (i <= j) {
+                    int swap = tree[i];
+                    tree[i++] = tree[j];
+                    tree[j--] = swap;
+                }
+            }
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                return;
+        }
+    }
+
+    private final class Nearest {
+        final double qx, qy;
+        int node = -1;
+        double bestSquared = Double.POSITIVE_INFINITY;
+
+        Nearest(double qx, double qy) {
+            this.qx = qx;
+            this.qy = qy;
+        }
+
+        void search(int lo, int hi, int depth) {
+            if (lo >= hi)
+                return;
+            int mid = (lo + hi) >>> 1, u = tree[mid];
+            double dx = x[u] - qx, dy = y[u] - qy, squared = dx * dx + dy * dy;
+            if (squared < bestSquared) {
+                bestSquared = squared;
+                node = u;
+            }
+            double offset = depth % 2 == 0 ? qx - x[u] : qy - y[u];
+            boolean lowFirst = offset < 0;
+            search(lowFirst ? lo : mid + 1, lowFirst ? mid : hi, depth + 1);
+            if (offset * offset < bestSquared)
+                search(lowFirst ? mid + 1 : lo, lowFirst ? hi : mid, depth + 1);
+        }
+    }
+
+    static double[] unplaced(int n) {
+        double[] values = new double[n];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+}
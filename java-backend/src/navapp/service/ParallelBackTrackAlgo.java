@@ -0,0 +1,242 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Branch-and-bound version of BackTrackAlgo. It still enumerates simple paths, but drops a branch
+// as soon as its distance plus a lower bound on the rest of the trip can no longer beat the best
+// path any task has found, so it returns the same optimum without walking the whole tree.
+public class ParallelBackTrackAlgo implements PathSolver {
+    // Every branch above this depth is its own task; below it a task searches sequentially. A few
+    // levels give enough tasks for work stealing to balance uneven subtrees.
+    private static final int SPLIT_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+
+    public ParallelBackTrackAlgo() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelBackTrackAlgo(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
+
+        int start = graph.nodeId(startNode), end = graph.nodeId(endNode);
+        if (start < 0 || end < 0)
+            return PathResult.unreachable();
+
+        Incumbent best = new Incumbent(graph, end, SearchBudget.current());
+        if (best.remaining[start] == Integer.MAX_VALUE)
+            return PathResult.unreachable();
+
+        pool.invoke(new Branch(best, new int[] {start}, new int[0], 0));
+        SearchEffort.record(best.settled.sum(), best.relaxed.sum());
+
+        PathResult result = best.bestDistance == Integer.MAX_VALUE ? PathResult.unreachable()
+                : BackTrackAlgo.result(graph, start, best.bestEdges, best.bestDepth, best.bestDistance);
+        return best.stopped ? result.asTruncated() : result;
+    }
+
+    // State shared by every task of one query: the best complete path so far, published through
+    // an atomic bound that the tasks read before each descent, the per-node lower bounds, and the
+    // caller's budget, which stops every task once any of them sees it expire.
+    private static final class Incumbent {
+        private final GraphSnapshot graph;
+        private final int endNode;
+        private final SearchBudget budget;
+        private final int[] remaining;
+        private final AtomicInteger bound = new AtomicInteger(Integer.MAX_VALUE);
+        private final LongAdder settled = new LongAdder();
+        private final LongAdder relaxed = new LongAdder();
+        private final int[] bestEdges;
+        private int bestDepth;
+        private int bestDistance = Integer.MAX_VALUE;
+        private volatile boolean stopped;
+
+        Incumbent(GraphSnapshot graph, int endNode, SearchBudget budget) {
+            this.graph = graph;
+            this.endNode = endNode;
+            this.budget = budget;
+            this.remaining = lowerBounds(graph, endNode);
+            this.bestEdges = new int[graph.nodeCount()];
+        }
+
+        // Every open edge costs at least the cheapest one, so the fewest hops to the destination
+        // times that weight never overestimates. Nodes that cannot reach it at all get MAX_VALUE,
+        // which prunes them outright.
+        private static int[] lowerBounds(GraphSnapshot graph, int endNode) {
+            int minWeight = Integer.MAX_VALUE;
+            for (int e = 0; e < graph.edgeCount(); e++)
+                if (!graph.isBlocked(e))
+                    minWeight = Math.min(minWeight, graph.bestWeight(e));
+
+            int[] hops = new int[graph.nodeCount()];
+            Arrays.fill(hops, -1);
+            int[] queue = new int[graph.nodeCount()];
+            int head = 0, tail = 0;
+            hops[endNode] = 0;
+            queue[tail++] = endNode;
+            while (head < tail) {
+                int node = queue[head++];
+                for (int a = graph.firstArc(node), end = graph.endArc(node); a < end; a++) {
+                    int neighbor = graph.arcTarget(a);
+                    if (hops[neighbor] < 0 && !graph.isBlocked(graph.arcEdge(a))) {
+                        hops[neighbor] = hops[node] + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+
+            int[] remaining = new int[graph.nodeCount()];
+            for (int v = 0; v < remaining.length; v++)
+                remaining[v] = hops[v] < 0 ? Integer.MAX_VALUE
+                        : (int) Math.min((long) hops[v] * minWeight, Integer.MAX_VALUE - 1);
+            return remaining;
+        }
+
+        private boolean worthEntering(int distance, int weight, int neighbor) {
+            return (long) distance + weight + remaining[neighbor] < bound.get();
+        }
+
+        private synchronized void offer(int distance, int[] edges, int depth) {
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestDepth = depth;
+                System.arraycopy(edges, 0, bestEdges, 0, depth);
+                bound.set(distance);
+            }
+        }
+    }
+
+    // A task carries only its prefix: the nodes and edges from the start down to its own node,
+    // at most SPLIT_DEPTH long, so forking copies a few ints rather than n-sized arrays. A task
+    // at the split depth rebuilds the visited set from its prefix in its thread's PathStack and
+    // searches sequentially; it never forks, so nothing else runs on that thread meanwhile.
+    @SuppressWarnings("serial") // tasks are never serialised
+    private static final class Branch extends RecursiveAction {
+        private final Incumbent best;
+        private final int[] nodes, edges;
+        private final int distance;
+        private long settled, relaxed;
+
+        Branch(Incumbent best, int[] nodes, int[] edges, int distance) {
+            this.best = best;
+            this.nodes = nodes;
+            this.edges = edges;
+            this.distance = distance;
+        }
+
+        @Override
+        protected void compute() {
+            if (best.stopped)
+                return;
+            GraphSnapshot graph = best.graph;
+            int node = nodes[nodes.length - 1], depth = edges.length;
+            if (depth >= SPLIT_DEPTH || node == best.endNode) {
+                PathStack stack = PathStack.get(graph.nodeCount());
+                for (int v : nodes)
+                    stack.visited[v] = true;
+                System.arraycopy(edges, 0, stack.edges, 0, depth);
+                try {
+                    backtrack(stack, node, depth, distance);
+                } finally {
+                    for (int v : nodes)
+                        stack.visited[v] = false;
+                }
+                best.settled.add(settled);
+                best.relaxed.add(relaxed);
+                return;
+            }
+
+            best.settled.increment();
+            best.relaxed.add(graph.endArc(node) - graph.firstArc(node));
+            List<Branch> children = new ArrayList<>();
+            for (int a = graph.firstArc(node), end = graph.endArc(node); a < end; a++) {
+                int edge = graph.arcEdge(a);
+                int neighbor = graph.arcTarget(a);
+                int weight = graph.bestWeight(edge);
+                if (!onPrefix(neighbor) && weight != GraphSnapshot.BLOCKED
+                        && best.worthEntering(distance, weight, neighbor)) {
+                    int[] childNodes = Arrays.copyOf(nodes, nodes.length + 1);
+                    int[] childEdges = Arrays.copyOf(edges, depth + 1);
+                    childNodes[nodes.length] = neighbor;
+                    childEdges[depth] = edge;
+                    children.add(new Branch(best, childNodes, childEdges, distance + weight));
+                }
+            }
+            invokeAll(children);
+        }
+
+        private boolean onPrefix(int node) {
+            for (int v : nodes)
+                if (v == node)
+                    return true;
+            return false;
+        }
+
+        private void backtrack(PathStack stack, int current, int depth, int currentDistance) {
+            settled++;
+            if ((settled & 1023) == 0 && best.budget.expired())
+                best.stopped = true;
+            if (best.stopped)
+                return;
+            if (current == best.endNode) {
+                best.offer(currentDistance, stack.edges, depth);
+                return;
+            }
+
+            GraphSnapshot graph = best.graph;
+            boolean[] visited = stack.visited;
+            relaxed += graph.endArc(current) - graph.firstArc(current);
+            for (int a = graph.firstArc(current), end = graph.endArc(current); a < end; a++) {
+                int edge = graph.arcEdge(a);
+                int neighbor = graph.arcTarget(a);
+                int weight = graph.bestWeight(edge);
+                if (!visited[neighbor] && weight != GraphSnapshot.BLOCKED
+                        && best.worthEntering(currentDistance, weight, neighbor)) {
+                    visited[neighbor] = true;
+                    stack.edges[depth] = edge;
+
+                    backtrack(stack, neighbor, depth + 1, currentDistance + weight);
+
+                    visited[neighbor] = false;
+                }
+            }
+        }
+    }
+
+    // Per-thread visited set and edge stack for the sequential part of the search. Backtracking
+    // unmarks every node it marks, so the set is clear again whenever a task finishes.
+    private static final class PathStack {
+        private static final ThreadLocal<PathStack> LOCAL = new ThreadLocal<>();
+
+        final boolean[] visited;
+        final int[] edges;
+
+        private PathStack(int n) {
+            visited = new boolean[n];
+            edges = new int[n];
+        }
+
+        static PathStack get(int n) {
+            PathStack stack = LOCAL.get();
+            if (stack == null || stack.visited.length != n) {
+                stack = new PathStack(n);
+                LOCAL.set(stack);
+            }
+            return stack;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Multi-level overlay over a GraphPartition: every cell keeps a clique holding the shortest
+// distance inside the cell between each pair of its boundary nodes. The finest level's cliques
+// come from searches on the road graph restricted to the cell, and each coarser level's from
+// searches over the level below it (subcell cliques plus the roads between subcells), so building
+// the overlay for a new version of the weights never searches a large cell road by road.
+//
+// A query runs Dijkstra where each node uses the coarsest level at which its cell holds neither
+// endpoint: it relaxes that cell's clique and the roads leaving the cell. Near the endpoints it
+// falls back to the road graph. A clique arc on the result is expanded by repeating its cell's
+// search with parents recorded, which yields roads and clique arcs of the level below, expanded
+// in turn; only the finest cells are ever searched road by road.
+public final class PartitionOverlay {
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final GraphPartition partition;
+    private final long version;
+    // Per level: each cell's clique as a row-major |boundary| x |boundary| block, at cliqueOffsets.
+    private final long[][] cliqueOffsets;
+    private final int[][] cliques;
+
+    private PartitionOverlay(GraphPartition partition, long version, long[][] cliqueOffsets, int[][] cliques) {
+        this.partition = partition;
+        this.version = version;
+        this.cliqueOffsets = cliqueOffsets;
+        this.cliques = cliques;
+    }
+
+    public static PartitionOverlay customize(GraphPartition partition, GraphSnapshot graph) {
+        if (!partition.fits(graph))
+            throw new IllegalArgumentException("Partition was built for another topology");
+        int levels = partition.levels();
+        long[][] offsets = new long[levels][];
+        int[][] cliques = new int[levels][];
+        for (int l = levels - 1; l >= 0; l--) {
+            int cells = partition.cellCount(l);
+            long[] start = new long[cells + 1];
+            for (int c = 0; c < cells; c++) {
+                long size = partition.boundaryOffsets[l][c + 1] - partition.boundaryOffsets[l][c];
+                start[c + 1] = start[c] + size * size;
+            }
+            if (start[cells] > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("Level " + l + " cliques are too large; use smaller cells");
+            offsets[l] = start;
+            cliques[l] = new int[(int) start[cells]];
+            int level = l;
+            CellSearch.Factory factory = level == levels - 1 ? RoadSearch::new : OverlaySearch::new;
+            // Finer levels are complete by now, which is all a level's searches read.
+            PartitionOverlay building = new PartitionOverlay(partition, graph.getVersion(), offsets, cliques);
+            IntStream.range(0, cells).parallel()
+                    .forEach(c -> building.fillClique(factory.create(building, graph, level, c)));
+        }
+        return new PartitionOverlay(partition, graph.getVersion(), offsets, cliques);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public GraphPartition getPartition() {
+        return partition;
+    }
+
+    // Distance inside the cell between two of its boundary nodes; INF when the cell does not
+    // connect them.
+    public int clique(int level, int cell, int from, int to) {
+        int size = boundarySize(level, cell);
+        return cliques[level][(int) cliqueOffsets[level][cell] + partition.boundaryIndex[level][from] * size
+                + partition.boundaryIndex[level][to]];
+    }
+
+    private int boundarySize(int level, int cell) {
+        return partition.boundaryOffsets[level][cell + 1] - partition.boundaryOffsets[level][cell];
+    }
+
+    private void fillClique(CellSearch search) {
+        int l = search.level, c = search.cell, size = boundarySize(l, c), base = (int) cliqueOffsets[l][c];
+        int first = partition.boundaryOffsets[l][c];
+        for (int i = 0; i < size; i++) {
+            search.run(partition.boundary[l][first + i]);
+            for (int j = 0; j < size; j++)
+                cliques[l][base + i * size + j] = search.distance(partition.boundary[l][first + j]);
+        }
+    }
+
+    // One-to-all Dijkstra confined to a single cell, over nodes numbered locally.
+    private abstract static class CellSearch {
+        interface Factory {
+            CellSearch create(PartitionOverlay overlay, GraphSnapshot graph, int level, int cell);
+        }
+
+        final PartitionOverlay overlay;
+        final GraphPartition partition;
+        final GraphSnapshot graph;
+        final int level, cell;
+        final int[] dist;
+        final IndexedMinHeap heap;
+        // Only recorded by trace(): the local node each label came from, and how, as in query().
+        int[] parent, parentVia;
+
+        CellSearch(PartitionOverlay overlay, GraphSnapshot graph, int level, int cell, int size) {
+            this.overlay = overlay;
+            this.partition = overlay.partition;
+            this.graph = graph;
+            this.level = level;
+            this.cell = cell;
+            dist = new int[size];
+            heap = new IndexedMinHeap(size);
+        }
+
+        abstract int local(int node);
+
+        abstract int node(int local);
+
+        abstract void relax(int u);
+
+        // Stops once every boundary node of the cell is settled; the rest of the cell only
+        // matters on the way to them.
+        void run(int source) {
+            Arrays.fill(dist, INF);
+            heap.clear();
+            int s = local(source);
+            dist[s] = 0;
+            heap.push(s, 0);
+            int remaining = overlay.boundarySize(level, cell);
+            while (!heap.isEmpty()) {
+                int u = heap.pop();
+                if (partition.boundaryIndex[level][node(u)] >= 0 && --remaining == 0)
+                    break;
+                relax(u);
+            }
+        }
+
+        // Searches from `source` until `target` is settled, keeping parents for unpack().
+        void trace(int source, int target) {
+            parent = new int[dist.length];
+            parentVia = new int[dist.length];
+            Arrays.fill(dist, INF);
+            heap.clear();
+            int s = local(source), t = local(target);
+            dist[s] = 0;
+            heap.push(s, 0);
+            while (!heap.isEmpty()) {
+                int u = heap.pop();
+                if (u == t)
+                    break;
+                relax(u);
+            }
+        }
+
+        int distance(int node) {
+            return dist[local(node)];
+        }
+
+        void reach(int v, long candidate, int from, int via) {
+            if (candidate < dist[v]) {
+                dist[v] = (int) candidate;
+                heap.push(v, candidate);
+                if (parent != null) {
+                    parent[v] = from;
+                    parentVia[v] = via;
+                }
+            }
+        }
+    }
+
+    // Finest level: the roads inside the cell, nodes numbered by their place among its members.
+    private static final class RoadSearch extends CellSearch {
+        RoadSearch(PartitionOverlay overlay, GraphSnapshot graph, int level, int cell) {
+            super(overlay, graph, level, cell, overlay.partition.memberOffsets[level][cell + 1]
+                    - overlay.partition.memberOffsets[level][cell]);
+        }
+
+        @Override
+        int local(int node) {
+            return partition.position[level][node];
+        }
+
+        @Override
+        int node(int local) {
+            return partition.members[level][partition.memberOffsets[level][cell] + local];
+        }
+
+        @Override
+        void relax(int u) {
+            int node = node(u);
+            for (int a = graph.firstArc(node), end = graph.endArc(node); a < end; a++) {
+                int v = graph.arcTarget(a), edge = graph.arcEdge(a), weight = graph.bestWeight(edge);
+                if (weight != GraphSnapshot.BLOCKED && partition.cell[level][v] == cell)
+                    reach(local(v), (long) dist[u] + weight, u, -1 - edge);
+            }
+        }
+    }
+
+    // Coarser levels: the boundary nodes of the cell's subcells, joined by the subcells' cliques
+    // and by the roads running between subcells. Subcells have consecutive ids, so their boundary
+    // lists form one run of the finer level's boundary array and a node's local id is its offset
+    // into that run.
+    private static final class OverlaySearch extends CellSearch {
+        private final int sub, first;
+
+        OverlaySearch(PartitionOverlay overlay, GraphSnapshot graph, int level, int cell) {
+            super(overlay, graph, level, cell, subBoundaryEnd(overlay.partition, level, cell)
+                    - subBoundaryStart(overlay.partition, level, cell));
+            sub = level + 1;
+            first = subBoundaryStart(partition, level, cell);
+        }
+
+        private static int subBoundaryStart(GraphPartition partition, int level, int cell) {
+            return partition.boundaryOffsets[level + 1][partition.childOffsets[level][cell]];
+        }
+
+        private static int subBoundaryEnd(GraphPartition partition, int level, int cell) {
+            return partition.boundaryOffsets[level + 1][partition.childOffsets[level][cell + 1]];
+        }
+
+        @Override
+        int local(int node) {
+            int subcell = partition.cell[sub][node];
+            return partition.boundaryOffsets[sub][subcell] + partition.boundaryIndex[sub][node] - first;
+        }
+
+        @Override
+        int node(int local) {
+            return partition.boundary[sub][first + local];
+        }
+
+        @Override
+        void relax(int u) {
+            int node = node(u), subcell = partition.cell[sub][node];
+            int first = partition.boundaryOffsets[sub][subcell], size = overlay.boundarySize(sub, subcell);
+            int row = (int) overlay.cliqueOffsets[sub][subcell] + partition.boundaryIndex[sub][node] * size;
+            for (int j = 0; j < size; j++) {
+                int weight = overlay.cliques[sub][row + j];
+                if (weight != INF)
+                    reach(local(partition.boundary[sub][first + j]), (long) dist[u] + weight, u, sub);
+            }
+            for (int a = graph.firstArc(node), end = graph.endArc(node); a < end; a++) {
+                int v = graph.arcTarget(a), edge = graph.arcEdge(a), weight = graph.bestWeight(edge);
+                if (weight != GraphSnapshot.BLOCKED && partition.cell[level][v] == cell
+                        && partition.cell[sub][v] != subcell)
+                    reach(local(v), (long) dist[u] + weight, u, -1 - edge);
+            }
+        }
+    }
+
+    public PathResult query(GraphSnapshot graph, String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
+        int source = graph.nodeId(startNode), target = graph.nodeId(endNode);
+        if (source < 0 || target < 0)
+            return PathResult.unreachable();
+
+        int n = graph.nodeCount(), levels = partition.levels();
+        int[] dist = new int[n], parent = new int[n], parentVia = new int[n];
+        Arrays.fill(dist, INF);
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        dist[source] = 0;
+        heap.push(source, 0);
+
+        SearchBudget budget = SearchBudget.current();
+        boolean truncated = false;
+        long settled = 0, relaxed = 0;
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            settled++;
+            if (u == target)
+                break;
+            if ((settled & 1023) == 0 && budget.expired()) {
+                truncated = true;
+                break;
+            }
+
+            int l = queryLevel(u, source, target, levels);
+            if (l >= 0) {
+                int c = partition.cell[l][u], size = boundarySize(l, c);
+                int first = partition.boundaryOffsets[l][c];
+                int row = (int) cliqueOffsets[l][c] + partition.boundaryIndex[l][u] * size;
+                relaxed += size;
+                for (int j = 0; j < size; j++) {
+                    int weight = cliques[l][row + j], v = partition.boundary[l][first + j];
+                    if (weight != INF && (long) dist[u] + weight < dist[v]) {
+                        dist[v] = dist[u] + weight;
+                        parent[v] = u;
+                        // Clique arcs are tagged by level, roads by edge id, below zero.
+                        parentVia[v] = l;
+                        heap.push(v, dist[v]);
+                    }
+                }
+            }
+            relaxed += graph.endArc(u) - graph.firstArc(u);
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int v = graph.arcTarget(a), edge = graph.arcEdge(a), weight = graph.bestWeight(edge);
+                if (weight == GraphSnapshot.BLOCKED || (l >= 0 && partition.cell[l][v] == partition.cell[l][u]))
+                    continue;
+                if ((long) dist[u] + weight < dist[v]) {
+                    dist[v] = dist[u] + weight;
+                    parent[v] = u;
+                    parentVia[v] = -1 - edge;
+                    heap.push(v, dist[v]);
+                }
+            }
+        }
+        SearchEffort.record(settled, relaxed);
+
+        if (truncated)
+            return PathResult.unreachable().asTruncated();
+        if (dist[target] == INF)
+            return PathResult.unreachable();
+
+        List<Integer> chain = new ArrayList<>();
+        for (int v = target; v != source; v = parent[v])
+            chain.add(v);
+        chain.add(source);
+        Collections.reverse(chain);
+
+        List<String> path = new ArrayList<>();
+        List<Step> steps = new ArrayList<>();
+        path.add(startNode);
+        for (int i = 1; i < chain.size(); i++) {
+            int from = chain.get(i - 1), to = chain.get(i), via = parentVia[to];
+            if (via < 0)
+                step(graph, from, to, -1 - via, path, steps);
+            else
+                unpack(graph, via, from, to, path, steps);
+        }
+        return new PathResult(path, dist[target], steps);
+    }
+
+    // The coarsest level whose cell around `u` holds neither endpoint, or -1 near an endpoint.
+    // Nodes the search reaches that way are always boundary nodes of that cell.
+    private int queryLevel(int u, int source, int target, int levels) {
+        for (int l = 0; l < levels; l++) {
+            int c = partition.cell[l][u];
+            if (c != partition.cell[l][source] && c != partition.cell[l][target])
+                return l;
+        }
+        return -1;
+    }
+
+    // Expands a clique arc of `level` into roads. Its cell's search is repeated from `from` to `to`
+    // over the same arcs that produced the clique entry, and every subcell clique arc on the way is
+    // expanded one level down, so each search covers only a cell's subcell boundaries or, at the
+    // finest level, one small cell.
+    private void unpack(GraphSnapshot graph, int level, int from, int to, List<String> path, List<Step> steps) {
+        int cell = partition.cell[level][from];
+        CellSearch search = level == partition.levels() - 1 ? new RoadSearch(this, graph, level, cell)
+                : new OverlaySearch(this, graph, level, cell);
+        search.trace(from, to);
+
+        List<Integer> chain = new ArrayList<>();
+        for (int v = search.local(to), s = search.local(from); v != s; v = search.parent[v])
+            chain.add(v);
+        Collections.reverse(chain);
+        int at = from;
+        for (int v : chain) {
+            int next = search.node(v), via = search.parentVia[v];
+            if (via < 0)
+                step(graph, at, next, -1 - via, path, steps);
+            else
+                unpack(graph, via, at, next, path, steps);
+            at = next;
+        }
+    }
+
+    private static void step(GraphSnapshot graph, int from, int to, int edge, List<String> path, List<Step> steps) {
+        path.add(graph.nodeName(to));
+        steps.add(new Step(graph.nodeName(from), graph.nodeName(to), graph.bestMode(edge), graph.bestWeight(edge)));
+    }
+}
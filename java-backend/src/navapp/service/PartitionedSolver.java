@@ -0,0 +1,69 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.SimulationEvent;
+
+import java.util.List;
+
+// Keeps a multi-level partition overlay in step with the live graph. The partition is built once
+// per topology in the background; after each batch of events a single thread rebuilds the cliques
+// for the newest snapshot, coalescing bursts. Requests on a version the overlay was not built for
+// fall back to A*.
+public class PartitionedSolver implements PathSolver, GraphListener {
+    private final Graph source;
+    private final int[] maxCellSizes;
+    private final PathSolver fallback = new AStarSolver();
+    private final BackgroundCustomizer customizer = new BackgroundCustomizer("overlay-customize", this::refresh);
+    private volatile GraphPartition partition;
+    private volatile PartitionOverlay overlay;
+    private volatile long lastCustomizeNanos;
+
+    public PartitionedSolver(Graph source) {
+        this(source, 4096, 256);
+    }
+
+    public PartitionedSolver(Graph source, int... maxCellSizes) {
+        this.source = source;
+        this.maxCellSizes = maxCellSizes.clone();
+        source.addListener(this);
+        customizer.schedule();
+    }
+
+    @Override
+    public PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode) {
+        PartitionOverlay current = overlay;
+        if (current == null || current.getVersion() != graph.getVersion() || !current.getPartition().fits(graph))
+            return fallback.findShortestPath(graph, startNode, endNode);
+        return current.query(graph, startNode, endNode);
+    }
+
+    public PartitionOverlay getOverlay() {
+        return overlay;
+    }
+
+    public long getLastCustomizeNanos() {
+        return lastCustomizeNanos;
+    }
+
+    @Override
+    public void onEvents(GraphSnapshot snapshot, List<SimulationEvent> batch) {
+        customizer.schedule();
+    }
+
+    @Override
+    public void onTopologyChange(GraphSnapshot snapshot) {
+        customizer.schedule();
+    }
+
+    private void refresh() {
+        GraphSnapshot graph = source.snapshot();
+        GraphPartition current = partition;
+        if (current == null || !current.fits(graph)) {
+            current = GraphPartition.build(graph, maxCellSizes);
+            partition = current;
+        }
+        long startedAt = System.nanoTime();
+        overlay = PartitionOverlay.customize(current, graph);
+        lastCustomizeNanos = System.nanoTime() - startedAt;
+    }
+}
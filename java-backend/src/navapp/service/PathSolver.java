@@ -0,0 +1,9 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+
+// Solvers are stateless: every call works on the snapshot it is given and returns its own result,
+// so one instance can serve any number of concurrent requests.
+public interface PathSolver {
+    PathResult findShortestPath(GraphSnapshot graph, String startNode, String endNode);
+}
@@ -0,0 +1,211 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.SimulationEvent;
+import src.navapp.model.Step;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU/TTL cache of solved routes keyed by policy, start and end. Each entry records the
+// graph version it was solved on and serves any later version until an event touches one of its
+// edges: events only raise weights or close roads, so an untouched route stays optimal. Listeners
+// drop touched entries eagerly, but a new version is published before its listeners run, so a hit
+// on a newer snapshot also checks the events in between against the route's edges itself.
+//
+// A hit takes no lock: entries sit in a ConcurrentHashMap, and a hit only stamps the entry's last
+// use and raises its checked version. Puts, removals and the edge index share the cache's monitor,
+// and a put past capacity evicts the least recently used tenth in one pass, so recency is exact
+// per entry but capacity is enforced in batches.
+public class RouteCache implements GraphListener {
+    private final Graph graph;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> keysByEdge = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RouteCache(Graph graph, int maxEntries, Duration ttl) {
+        this.graph = graph;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        graph.addListener(this);
+    }
+
+    public PathResult getOrCompute(GraphSnapshot snapshot, String policy, String startNode, String endNode,
+            PathSolver solver) {
+        String key = policy + "\u0000" + startNode + "\u0000" + endNode;
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.createdAt > ttlNanos) {
+            if (remove(key, entry))
+                expirations.increment();
+            entry = null;
+        } else if (entry != null && entry.version > snapshot.getVersion()) {
+            entry = null;
+        }
+
+        if (entry != null) {
+            long version = snapshot.getVersion(), checked = entry.checked.get();
+            if (checked >= version || untouched(entry, checked, version)) {
+                entry.checked.accumulateAndGet(version, Math::max);
+                entry.lastUsed = now;
+                hits.increment();
+                return entry.result;
+            }
+            if (remove(key, entry))
+                invalidations.increment();
+        }
+
+        misses.increment();
+        PathResult result = solver.findShortestPath(snapshot, startNode, endNode);
+        // A search cut short by its time budget is not an answer worth serving to anyone else.
+        if (result.isTruncated())
+            return result;
+        put(key, new Entry(result, snapshot.getVersion(), now));
+        return result;
+    }
+
+    // Whether no event after version `checked`, up to `version`, touched the entry's route. Reads
+    // the graph's published log, so it never waits on the graph's writers.
+    private boolean untouched(Entry entry, long checked, long version) {
+        List<SimulationEvent> events = graph.eventsBetween(checked, version);
+        if (events == null)
+            return false;
+        Set<String> touched = new HashSet<>();
+        for (SimulationEvent event : events)
+            touched.add(edgeKey(event.getFrom(), event.getTo()));
+        for (String edge : entry.edges)
+            if (touched.contains(edge))
+                return false;
+        return true;
+    }
+
+    @Override
+    public void onEvents(GraphSnapshot snapshot, List<SimulationEvent> batch) {
+        invalidate(batch);
+    }
+
+    @Override
+    public void onTopologyChange(GraphSnapshot snapshot) {
+        invalidateAll();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry replaced = entries.put(key, entry);
+        if (replaced != null)
+            unindex(key, replaced);
+        for (String edge : entry.edges)
+            keysByEdge.computeIfAbsent(edge, k -> new HashSet<>()).add(key);
+        if (entries.size() > maxEntries)
+            evictLeastRecentlyUsed(entries.size() - maxEntries + maxEntries / 10);
+    }
+
+    private void evictLeastRecentlyUsed(int count) {
+        List<Map.Entry<String, Entry>> byLastUse = new ArrayList<>(entries.entrySet());
+        byLastUse.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+        for (Map.Entry<String, Entry> evicted : byLastUse.subList(0, Math.min(count, byLastUse.size()))) {
+            if (entries.remove(evicted.getKey(), evicted.getValue())) {
+                unindex(evicted.getKey(), evicted.getValue());
+                evictions.increment();
+            }
+        }
+    }
+
+    private synchronized void invalidate(List<SimulationEvent> events) {
+        for (SimulationEvent event : events) {
+            Set<String> keys = keysByEdge.get(edgeKey(event.getFrom(), event.getTo()));
+            if (keys == null)
+                continue;
+            for (String key : new ArrayList<>(keys)) {
+                remove(key);
+                invalidations.increment();
+            }
+        }
+    }
+
+    private synchronized void invalidateAll() {
+        invalidations.add(entries.size());
+        entries.clear();
+        keysByEdge.clear();
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null)
+            unindex(key, entry);
+    }
+
+    // Removes `entry` only if it is still the one cached under `key`.
+    private synchronized boolean remove(String key, Entry entry) {
+        if (!entries.remove(key, entry))
+            return false;
+        unindex(key, entry);
+        return true;
+    }
+
+    private void unindex(String key, Entry entry) {
+        for (String edge : entry.edges) {
+            Set<String> keys = keysByEdge.get(edge);
+            if (keys != null && keys.remove(key) && keys.isEmpty())
+                keysByEdge.remove(edge);
+        }
+    }
+
+    private static String edgeKey(String from, String to) {
+        return from.compareTo(to) <= 0 ? from + "\u0000" + to : to + "\u0000" + from;
+    }
+
+    private static final class Entry {
+        private final PathResult result;
+        private final long version;
+        private final long createdAt;
+        private final String[] edges;
+        // The newest version the route is known to be untouched up to; it only ever rises.
+        private final AtomicLong checked;
+        private volatile long lastUsed;
+
+        Entry(PathResult result, long version, long createdAt) {
+            this.result = result;
+            this.version = version;
+            this.checked = new AtomicLong(version);
+            this.createdAt = createdAt;
+            this.lastUsed = createdAt;
+            List<Step> steps = result.getSteps();
+            this.edges = new String[steps.size()];
+            for (int i = 0; i < edges.length; i++)
+                edges[i] = edgeKey(steps.get(i).getFrom(), steps.get(i).getTo());
+        }
+    }
+}
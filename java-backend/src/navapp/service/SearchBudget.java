@@ -0,0 +1,32 @@
+package src.navapp.service;
+
+// Per-thread deadline for route searches. Long-running solvers check it every 1024 steps, as
+// AlternativeRouteFinder does with its own budget, and return what they have once it passes or
+// once the thread that owns it is interrupted.
+public final class SearchBudget {
+    private static final ThreadLocal<SearchBudget> CURRENT = ThreadLocal.withInitial(SearchBudget::new);
+
+    private final Thread owner = Thread.currentThread();
+    private volatile long deadline = Long.MAX_VALUE;
+
+    private SearchBudget() {
+    }
+
+    public static SearchBudget current() {
+        return CURRENT.get();
+    }
+
+    // A System.nanoTime() value; Long.MAX_VALUE removes the limit.
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    public void clear() {
+        deadline = Long.MAX_VALUE;
+    }
+
+    // Safe to call from helper threads working on the owner's behalf.
+    public boolean expired() {
+        return System.nanoTime() > deadline || owner.isInterrupted();
+    }
+}
@@ -0,0 +1,39 @@
+package src.navapp.service;
+
+// Per-thread tally of search work. Solvers count in locals and add their totals once per query,
+// so the inner loops pay nothing extra; a caller resets the tally before a query and reads it
+// after. Work done on other threads (fork-join tasks) is added by the solver on the caller's.
+public final class SearchEffort {
+    private static final ThreadLocal<SearchEffort> CURRENT = ThreadLocal.withInitial(SearchEffort::new);
+
+    private long settled;
+    private long relaxed;
+
+    private SearchEffort() {
+    }
+
+    public static SearchEffort current() {
+        return CURRENT.get();
+    }
+
+    static void record(long settled, long relaxed) {
+        SearchEffort effort = CURRENT.get();
+        effort.settled += settled;
+        effort.relaxed += relaxed;
+    }
+
+    public void reset() {
+        settled = 0;
+        relaxed = 0;
+    }
+
+    // Nodes taken off a queue (or entered, for the backtracking solvers).
+    public long getSettled() {
+        return settled;
+    }
+
+    // Arcs examined from settled nodes.
+    public long getRelaxed() {
+        return relaxed;
+    }
+}
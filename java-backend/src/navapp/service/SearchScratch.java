@@ -0,0 +1,54 @@
+package src.navapp.service;
+
+import java.util.Arrays;
+
+// Per-thread labels for one direction of a Dijkstra-style search: distances, parents and a heap,
+// sized to the graph and reused across queries. label() remembers each node it labels, so reset()
+// clears only those instead of all n. A search holds its scratch until reset() and must not start
+// another search on the same thread and side meanwhile.
+final class SearchScratch {
+    static final int UNLABELLED = Integer.MAX_VALUE;
+
+    // One slot per side, so a bidirectional search can hold a forward and a backward scratch.
+    private static final ThreadLocal<SearchScratch[]> LOCAL = ThreadLocal.withInitial(() -> new SearchScratch[2]);
+
+    final int[] dist, parent, parentEdge;
+    final IndexedMinHeap heap;
+    private int[] touched = new int[64];
+    private int touchedCount;
+
+    private SearchScratch(int n) {
+        dist = new int[n];
+        parent = new int[n];
+        parentEdge = new int[n];
+        Arrays.fill(dist, UNLABELLED);
+        heap = new IndexedMinHeap(n);
+    }
+
+    static SearchScratch get(int n) {
+        return get(n, 0);
+    }
+
+    static SearchScratch get(int n, int side) {
+        SearchScratch[] sides = LOCAL.get();
+        if (sides[side] == null || sides[side].dist.length != n)
+            sides[side] = new SearchScratch(n);
+        return sides[side];
+    }
+
+    void label(int v, int distance) {
+        if (dist[v] == UNLABELLED) {
+            if (touchedCount == touched.length)
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            touched[touchedCount++] = v;
+        }
+        dist[v] = distance;
+    }
+
+    void reset() {
+        for (int i = 0; i < touchedCount; i++)
+            dist[touched[i]] = UNLABELLED;
+        touchedCount = 0;
+        heap.clear();
+    }
+}
@@ -0,0 +1,98 @@
+package src.navapp.service;
+
+import src.navapp.model.PathResult;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Runs route computations on a fixed pool of solver threads behind a bounded queue, so a
+// pathological query ties up a solver thread instead of a servlet thread, and a backlog is
+// refused rather than left to grow. Each task runs under the caller's deadline as its
+// SearchBudget; one that has not returned shortly after the deadline is interrupted and the
+// caller gets a truncated result.
+public class SolverExecutor implements AutoCloseable {
+    private static final long GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ThreadPoolExecutor pool;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    public SolverExecutor(int threads, int queueCapacity) {
+        AtomicInteger ids = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "solver-" + ids.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // The budget counts from submission, so time spent queued is part of it. Throws
+    // RejectedExecutionException when every thread is busy and the queue is full.
+    public PathResult solve(Supplier<PathResult> task, Duration budget) {
+        return run(task, budget, () -> PathResult.unreachable().asTruncated());
+    }
+
+    // As solve, for any answer; `timedOut` supplies the answer for a task that overruns its deadline.
+    public <T> T run(Supplier<T> task, Duration budget, Supplier<T> timedOut) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                SearchBudget searchBudget = SearchBudget.current();
+                searchBudget.setDeadline(deadline);
+                try {
+                    return task.get();
+                } finally {
+                    searchBudget.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+
+        try {
+            return future.get(Math.max(0, deadline + GRACE_NANOS - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            abandoned.increment();
+            return timedOut.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return timedOut.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Tasks that ignored their deadline and were interrupted.
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
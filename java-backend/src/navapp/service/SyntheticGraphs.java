@@ -0,0 +1,134 @@
+package src.navapp.service;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Writes synthetic road maps in the same CSV layout the service loads, so benchmarks and the local
+// shard runner exercise the real loader and graph. Weights follow the real data's pattern: walking
+// is slowest, mixed commute faster, and only some roads carry a jeepney fare.
+public final class SyntheticGraphs {
+    private SyntheticGraphs() {
+    }
+
+    public static Path generate(String shape, int nodes, int degree, long seed) {
+        return switch (shape) {
+            case "grid" -> grid((int) Math.ceil(Math.sqrt(nodes)), seed);
+            case "geometric" -> geometric(nodes, degree, seed);
+            case "located" -> located(nodes, degree, seed);
+            default -> Path.of(shape);
+        };
+    }
+
+    public static Path grid(int side, long seed) {
+        Random rand = new Random(seed);
+        return write("grid", out -> {
+            for (int r = 0; r < side; r++) {
+                for (int c = 0; c < side; c++) {
+                    if (c + 1 < side)
+                        row(out, rand, "G" + r + "_" + c, "G" + r + "_" + (c + 1), 1);
+                    if (r + 1 < side)
+                        row(out, rand, "G" + r + "_" + c, "G" + (r + 1) + "_" + c, 1);
+                }
+            }
+        });
+    }
+
+    // Random geometric graph: points in the unit square, each joined to its `degree` nearest
+    // neighbours found through a uniform bucket grid, with weights scaled by distance.
+    public static Path geometric(int nodes, int degree, long seed) {
+        return geometric(nodes, degree, seed, false);
+    }
+
+    // The same graph with each point's position written as lat/lon columns, spread over a box
+    // about 11 km on a side.
+    public static Path located(int nodes, int degree, long seed) {
+        return geometric(nodes, degree, seed, true);
+    }
+
+    private static Path geometric(int nodes, int degree, long seed, boolean coordinates) {
+        Random rand = new Random(seed);
+        double[] x = new double[nodes], y = new double[nodes];
+        int cells = Math.max(1, (int) Math.sqrt(nodes / 2.0));
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int i = 0; i < cells * cells; i++)
+            buckets.add(new ArrayList<>());
+        for (int i = 0; i < nodes; i++) {
+            x[i] = rand.nextDouble();
+            y[i] = rand.nextDouble();
+            buckets.get(cell(x[i], cells) * cells + cell(y[i], cells)).add(i);
+        }
+
+        return write("geometric", out -> {
+            for (int i = 0; i < nodes; i++) {
+                PriorityQueue<double[]> nearest = new PriorityQueue<>((a, b) -> Double.compare(b[1], a[1]));
+                int cx = cell(x[i], cells), cy = cell(y[i], cells);
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        int bx = cx + dx, by = cy + dy;
+                        if (bx < 0 || by < 0 || bx >= cells || by >= cells)
+                            continue;
+                        for (int j : buckets.get(bx * cells + by)) {
+                            if (j <= i)
+                                continue;
+                            double d = Math.hypot(x[i] - x[j], y[i] - y[j]);
+                            nearest.add(new double[] { j, d });
+                            if (nearest.size() > degree)
+                                nearest.poll();
+                        }
+                    }
+                }
+                for (double[] n : nearest) {
+                    int j = (int) n[0];
+                    String position = !coordinates ? ""
+                            : "," + latitude(y[i]) + "," + longitude(x[i]) + "," + latitude(y[j]) + "," + longitude(x[j]);
+                    row(out, rand, "P" + i, "P" + j, 1 + (int) (n[1] * cells * 10), position);
+                }
+            }
+        });
+    }
+
+    private static double latitude(double y) {
+        return 14.55 + y * 0.1;
+    }
+
+    private static double longitude(double x) {
+        return 121.0 + x * 0.1;
+    }
+
+    private static int cell(double v, int cells) {
+        return Math.min(cells - 1, (int) (v * cells));
+    }
+
+    private static void row(PrintWriter out, Random rand, String from, String to, int length) {
+        row(out, rand, from, to, length, "");
+    }
+
+    private static void row(PrintWriter out, Random rand, String from, String to, int length, String position) {
+        int walk = length * (10 + rand.nextInt(10));
+        int mixcommute = Math.max(1, walk / (2 + rand.nextInt(3)));
+        String jeep = rand.nextInt(3) == 0 ? Integer.toString(Math.max(1, mixcommute - rand.nextInt(3))) : "";
+        out.println(from + "," + to + "," + walk + "," + mixcommute + "," + jeep + position);
+    }
+
+    private interface RowWriter {
+        void writeRows(PrintWriter out);
+    }
+
+    private static Path write(String prefix, RowWriter rows) {
+        try {
+            Path file = Files.createTempFile(prefix, ".csv");
+            file.toFile().deleteOnExit();
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                rows.writeRows(out);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package src.navapp.service;
+
+import src.navapp.model.TravelMode;
+
+import java.util.*;
+
+// Cost of changing travel mode at a node, plus which modes a rider is willing to use. A trip is
+// treated as starting on foot, so the first boarding of a jeepney pays the walk -> jeep penalty.
+public class TransferPolicy {
+    private final int[][] penalties;
+    private final boolean[] available;
+
+    public TransferPolicy(int[][] penalties, Set<TravelMode> available) {
+        int modes = TravelMode.values().length;
+        this.penalties = new int[modes][];
+        for (int m = 0; m < modes; m++)
+            this.penalties[m] = Arrays.copyOf(penalties[m], modes);
+        this.available = new boolean[modes];
+        for (TravelMode mode : available)
+            this.available[mode.ordinal()] = true;
+    }
+
+    public static TransferPolicy defaults() {
+        return new TransferPolicy(new int[][] {
+                { 0, 3, 5 },
+                { 2, 0, 5 },
+                { 2, 3, 0 },
+        }, EnumSet.allOf(TravelMode.class));
+    }
+
+    public TransferPolicy withAvailable(Set<TravelMode> modes) {
+        return new TransferPolicy(penalties, modes);
+    }
+
+    public int penalty(TravelMode from, TravelMode to) {
+        return penalties[from.ordinal()][to.ordinal()];
+    }
+
+    public boolean isAvailable(TravelMode mode) {
+        return available[mode.ordinal()];
+    }
+
+    int penalty(int from, int to) {
+        return penalties[from][to];
+    }
+
+    boolean isAvailable(int mode) {
+        return available[mode];
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (TravelMode mode : TravelMode.values())
+            if (isAvailable(mode))
+                sb.append(sb.length() > 0 ? "," : "").append(mode.getLabel());
+        return sb.append(Arrays.deepToString(penalties)).toString();
+    }
+}
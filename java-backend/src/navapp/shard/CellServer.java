@@ -0,0 +1,162 @@
+package src.navapp.shard;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import src.navapp.model.DistanceMatrix;
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+import src.navapp.service.DistanceMatrixSolver;
+import src.navapp.service.Graph;
+import src.navapp.service.GraphSnapshot;
+import src.navapp.service.PartitionedSolver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Serves one shard of a ShardLayout from its own process. Everything it answers stays inside the
+// cell, which is all the coordinator needs to stitch routes across cells:
+//   GET /health                 ok and the graph version
+//   GET /clique                 distances between every pair of boundary nodes, one row per line
+//   GET /distances?node=X       distances from X to each boundary node, on one line
+//   GET /route?from=X&to=Y      the distance, then one from/to/mode/weight line per step
+// Responses are tab-separated text with -1 for unreachable. Routes inside the cell use a
+// PartitionedSolver over finer levels of the cell itself.
+//
+//   java src.navapp.shard.CellServer <cell.csv> <cell.boundary> <port>
+public class CellServer implements AutoCloseable {
+    static final int UNREACHABLE = -1;
+
+    private final Graph graph;
+    private final List<String> boundary;
+    private final PartitionedSolver solver;
+    private final DistanceMatrixSolver matrixSolver = new DistanceMatrixSolver();
+    private final HttpServer server;
+    private final ExecutorService handlers;
+
+    public CellServer(Graph graph, List<String> boundary, int port) throws IOException {
+        this.graph = graph;
+        this.boundary = List.copyOf(boundary);
+        this.solver = new PartitionedSolver(graph);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.handlers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(handlers);
+        handle("/health", exchange -> "ok\t" + graph.snapshot().getVersion() + "\n");
+        handle("/clique", exchange -> clique());
+        handle("/distances", exchange -> distances(parameter(exchange, "node")));
+        handle("/route", exchange -> route(parameter(exchange, "from"), parameter(exchange, "to")));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: CellServer <cell.csv> <cell.boundary> <port>");
+            System.exit(2);
+        }
+        Graph graph = new Graph(List.of(args[0]));
+        List<String> boundary = Files.readAllLines(Path.of(args[1]), StandardCharsets.UTF_8);
+        CellServer server = new CellServer(graph, boundary, Integer.parseInt(args[2]));
+        server.start();
+        System.out.println("Cell " + args[0] + " serving " + graph.snapshot().nodeCount() + " nodes on port "
+                + args[2]);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private interface Handler {
+        String answer(HttpExchange exchange);
+    }
+
+    private void handle(String path, Handler handler) {
+        server.createContext(path, exchange -> {
+            try {
+                respond(exchange, 200, handler.answer(exchange));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+            } catch (RuntimeException e) {
+                // Without a response the exchange is dropped and the coordinator sees only a reset.
+                System.err.println("Cell request " + exchange.getRequestURI() + " failed: " + e);
+                respond(exchange, 500, e + "\n");
+            }
+        });
+    }
+
+    private String clique() {
+        GraphSnapshot snapshot = graph.snapshot();
+        DistanceMatrix matrix = matrixSolver.solve(snapshot, boundary, boundary);
+        StringBuilder out = new StringBuilder().append(snapshot.getVersion()).append('\n');
+        for (int i = 0; i < boundary.size(); i++) {
+            for (int j = 0; j < boundary.size(); j++) {
+                if (j > 0)
+                    out.append('\t');
+                // A boundary node with no road inside the cell is missing from the cell graph.
+                out.append(i == j ? 0 : encode(matrix.getDistance(i, j)));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    private String distances(String node) {
+        DistanceMatrix matrix = matrixSolver.solve(graph.snapshot(), List.of(node), boundary);
+        StringBuilder out = new StringBuilder();
+        for (int j = 0; j < boundary.size(); j++) {
+            if (j > 0)
+                out.append('\t');
+            out.append(boundary.get(j).equals(node) ? 0 : encode(matrix.getDistance(0, j)));
+        }
+        return out.append('\n').toString();
+    }
+
+    private String route(String from, String to) {
+        PathResult result = solver.findShortestPath(graph.snapshot(), from, to);
+        StringBuilder out = new StringBuilder().append(encode(result.getDistance())).append('\n');
+        for (Step step : result.getSteps())
+            out.append(step.getFrom()).append('\t').append(step.getTo()).append('\t').append(step.getModeUsed())
+                    .append('\t').append(step.getWeightUsed()).append('\n');
+        return out.toString();
+    }
+
+    private static int encode(int distance) {
+        return distance == Integer.MAX_VALUE ? UNREACHABLE : distance;
+    }
+
+    private static String parameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0 && pair.substring(0, eq).equals(name))
+                    return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        throw new IllegalArgumentException("Missing parameter: " + name);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/tab-separated-values; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package src.navapp.shard;
+
+import src.navapp.model.PathResult;
+import src.navapp.service.DijkstraSolver;
+import src.navapp.service.Graph;
+import src.navapp.service.GraphPartition;
+import src.navapp.service.GraphSnapshot;
+import src.navapp.service.SyntheticGraphs;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Runs a sharded map on one machine: partitions it, starts one CellServer JVM per shard on
+// consecutive ports, and routes random trips through a ShardCoordinator, checking every distance
+// against Dijkstra over the whole map. The map is a CSV path or a SyntheticGraphs shape.
+//
+//   java src.navapp.shard.LocalShards <map.csv|grid|geometric|located> [nodes] [maxShardSize] [trips] [basePort]
+public class LocalShards {
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: LocalShards <map.csv|shape> [nodes] [maxShardSize] [trips] [basePort]");
+            System.exit(2);
+        }
+        int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int maxShardSize = args.length > 2 ? Integer.parseInt(args[2]) : nodes / 4;
+        int trips = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        int basePort = args.length > 4 ? Integer.parseInt(args[4]) : 9100;
+
+        Graph graph = new Graph(List.of(SyntheticGraphs.generate(args[0], nodes, 4, 42).toString()));
+        GraphSnapshot snapshot = graph.snapshot();
+        GraphPartition partition = GraphPartition.build(snapshot, maxShardSize);
+        Path directory = Files.createTempDirectory("shards");
+        ShardLayout layout = ShardLayout.write(snapshot, partition, directory);
+        System.out.printf("%d nodes in %d shards, %d boundary nodes, %d roads cut; layout in %s%n",
+                snapshot.nodeCount(), layout.cellCount(), partition.boundaryCount(0), partition.cutEdges(0),
+                directory);
+
+        List<Process> processes = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> processes.forEach(Process::destroy)));
+        try {
+            List<URI> endpoints = new ArrayList<>();
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            for (int c = 0; c < layout.cellCount(); c++) {
+                int port = basePort + c;
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        CellServer.class.getName(), layout.cellFile(c).toString(),
+                        layout.boundaryFile(c).toString(), Integer.toString(port)).inheritIO().start());
+                endpoints.add(URI.create("http://127.0.0.1:" + port + "/"));
+            }
+            for (URI endpoint : endpoints)
+                awaitHealthy(endpoint, Duration.ofMinutes(2));
+
+            long startedAt = System.nanoTime();
+            ShardCoordinator coordinator = new ShardCoordinator(layout, endpoints);
+            System.out.printf("Coordinator ready in %d ms with %d overlay nodes%n",
+                    (System.nanoTime() - startedAt) / 1_000_000, coordinator.overlayNodes());
+
+            DijkstraSolver reference = new DijkstraSolver();
+            Random rand = new Random(7);
+            int mismatches = 0;
+            long routingNanos = 0;
+            for (int i = 0; i < trips; i++) {
+                String from = snapshot.nodeName(rand.nextInt(snapshot.nodeCount()));
+                String to = snapshot.nodeName(rand.nextInt(snapshot.nodeCount()));
+                long routedAt = System.nanoTime();
+                PathResult sharded = coordinator.findShortestPath(from, to);
+                routingNanos += System.nanoTime() - routedAt;
+                PathResult expected = reference.findShortestPath(snapshot, from, to);
+                if (sharded.getDistance() != expected.getDistance()) {
+                    mismatches++;
+                    System.out.printf("Mismatch %s -> %s: sharded %d, whole map %d%n", from, to,
+                            sharded.getDistance(), expected.getDistance());
+                }
+            }
+            System.out.printf("%d trips, %d mismatches, %.2f ms per sharded route%n", trips, mismatches,
+                    routingNanos / 1e6 / Math.max(1, trips));
+            if (mismatches > 0)
+                System.exit(1);
+        } finally {
+            processes.forEach(Process::destroy);
+        }
+    }
+
+    private static void awaitHealthy(URI endpoint, Duration timeout) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(endpoint.resolve("/health")).build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                    return;
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("Shard at " + endpoint + " did not come up");
+    }
+}
@@ -0,0 +1,327 @@
+package src.navapp.shard;
+
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+import src.navapp.service.Graph;
+import src.navapp.service.GraphSnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Answers routes across shards served by CellServer processes. The coordinator holds only the
+// overlay: every shard's boundary nodes, the clique each shard reports between them, and the roads
+// of cut.csv joining shards. A query asks the two endpoint shards for distances to their boundary,
+// searches the overlay between those seeds, and then fetches each leg of the winning route from
+// the shard it runs through, all concurrently. Cliques are fetched at startup and by refresh().
+public class ShardCoordinator {
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final ShardLayout layout;
+    private final List<URI> cells;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final GraphSnapshot cut;
+    // Overlay nodes are every shard's boundary nodes, numbered shard by shard.
+    private final int[] cellStart;
+    private final String[] names;
+    private final int[] cellOf;
+    private final Map<String, Integer> ids = new HashMap<>();
+    // Roads between shards, as overlay arcs in CSR form, with the cut graph edge for each.
+    private final int[] cutOffsets, cutTargets, cutEdges;
+    private volatile int[][] cliques;
+
+    public ShardCoordinator(ShardLayout layout, List<URI> cells) {
+        if (cells.size() != layout.cellCount())
+            throw new IllegalArgumentException("Expected " + layout.cellCount() + " shard endpoints, got "
+                    + cells.size());
+        this.layout = layout;
+        this.cells = List.copyOf(cells);
+        this.cut = new Graph(List.of(layout.cutFile().toString())).snapshot();
+
+        int count = layout.cellCount();
+        cellStart = new int[count + 1];
+        for (int c = 0; c < count; c++)
+            cellStart[c + 1] = cellStart[c] + layout.boundary(c).size();
+        names = new String[cellStart[count]];
+        cellOf = new int[names.length];
+        for (int c = 0; c < count; c++) {
+            List<String> boundary = layout.boundary(c);
+            for (int i = 0; i < boundary.size(); i++) {
+                names[cellStart[c] + i] = boundary.get(i);
+                cellOf[cellStart[c] + i] = c;
+                ids.put(boundary.get(i), cellStart[c] + i);
+            }
+        }
+
+        cutOffsets = new int[names.length + 1];
+        int[] cutFrom = new int[2 * cut.edgeCount()];
+        int[] cutTo = new int[cutFrom.length], cutEdge = new int[cutFrom.length];
+        int arcs = 0;
+        for (int e = 0; e < cut.edgeCount(); e++) {
+            Integer u = ids.get(cut.nodeName(cut.edgeFrom(e))), v = ids.get(cut.nodeName(cut.edgeTo(e)));
+            if (u == null || v == null)
+                throw new IllegalArgumentException("Cut road between non-boundary nodes: "
+                        + cut.nodeName(cut.edgeFrom(e)) + " - " + cut.nodeName(cut.edgeTo(e)));
+            cutFrom[arcs] = u;
+            cutTo[arcs] = v;
+            cutEdge[arcs++] = e;
+            cutFrom[arcs] = v;
+            cutTo[arcs] = u;
+            cutEdge[arcs++] = e;
+        }
+        for (int a = 0; a < arcs; a++)
+            cutOffsets[cutFrom[a] + 1]++;
+        for (int u = 0; u < names.length; u++)
+            cutOffsets[u + 1] += cutOffsets[u];
+        cutTargets = new int[arcs];
+        cutEdges = new int[arcs];
+        int[] fill = Arrays.copyOf(cutOffsets, names.length);
+        for (int a = 0; a < arcs; a++) {
+            int slot = fill[cutFrom[a]]++;
+            cutTargets[slot] = cutTo[a];
+            cutEdges[slot] = cutEdge[a];
+        }
+        refresh();
+    }
+
+    // Fetches every shard's clique again, for instance after the shards' weights changed.
+    public void refresh() {
+        List<CompletableFuture<int[]>> pending = new ArrayList<>();
+        for (int c = 0; c < cells.size(); c++)
+            pending.add(fetch(c, "/clique").thenApply(ShardCoordinator::matrix));
+        int[][] next = new int[cells.size()][];
+        for (int c = 0; c < next.length; c++) {
+            next[c] = join(pending.get(c));
+            int size = layout.boundary(c).size();
+            if (next[c].length != size * size)
+                throw new IllegalStateException("Shard " + c + " sent a clique for " + next[c].length
+                        + " pairs, expected " + size * size);
+        }
+        cliques = next;
+    }
+
+    public int overlayNodes() {
+        return names.length;
+    }
+
+    public PathResult findShortestPath(String startNode, String endNode) {
+        if (startNode.equals(endNode))
+            return new PathResult(List.of(startNode), 0, List.of());
+        int source = layout.cellOf(startNode), target = layout.cellOf(endNode);
+        if (source < 0 || target < 0)
+            return PathResult.unreachable();
+
+        CompletableFuture<int[]> fromStart = fetch(source, "/distances?node=" + encode(startNode))
+                .thenApply(ShardCoordinator::row);
+        CompletableFuture<int[]> toEnd = fetch(target, "/distances?node=" + encode(endNode))
+                .thenApply(ShardCoordinator::row);
+        CompletableFuture<Leg> direct = source == target ? leg(source, startNode, endNode) : null;
+        Search search = new Search(source, target, join(fromStart), join(toEnd));
+        search.run(direct != null ? join(direct).distance : INF);
+
+        if (search.meeting < 0)
+            return direct != null && join(direct).distance != INF ? join(direct).result(startNode)
+                    : PathResult.unreachable();
+
+        // Legs in order: into the overlay, across it, and out to the end.
+        List<Integer> chain = new ArrayList<>();
+        for (int v = search.meeting; v >= 0; v = search.parent[v])
+            chain.add(v);
+        Collections.reverse(chain);
+        List<CompletableFuture<Leg>> legs = new ArrayList<>();
+        legs.add(leg(source, startNode, names[chain.get(0)]));
+        for (int i = 1; i < chain.size(); i++) {
+            int from = chain.get(i - 1), to = chain.get(i), edge = search.parentEdge[to];
+            legs.add(edge >= 0 ? CompletableFuture.completedFuture(cutLeg(edge, names[from], names[to]))
+                    : leg(cellOf[from], names[from], names[to]));
+        }
+        legs.add(leg(target, names[search.meeting], endNode));
+
+        List<String> path = new ArrayList<>(List.of(startNode));
+        List<Step> steps = new ArrayList<>();
+        int distance = 0;
+        for (CompletableFuture<Leg> pending : legs) {
+            Leg leg = join(pending);
+            if (leg.distance == INF)
+                throw new IllegalStateException("A shard could not route a leg its clique reported reachable");
+            distance += leg.distance;
+            for (Step step : leg.steps) {
+                steps.add(step);
+                path.add(step.getTo());
+            }
+        }
+        return new PathResult(path, distance, steps);
+    }
+
+    // Dijkstra over the overlay, seeded with the start's distances to its shard's boundary and
+    // finished through the end shard's boundary. It stops once nothing left can beat the best
+    // complete route, which starts as the direct route inside a shared shard.
+    private final class Search {
+        final int source, target;
+        final int[] fromStart, toEnd;
+        final int[] dist = new int[names.length], parent = new int[names.length], parentEdge = new int[names.length];
+        int meeting = -1;
+
+        Search(int source, int target, int[] fromStart, int[] toEnd) {
+            this.source = source;
+            this.target = target;
+            this.fromStart = fromStart;
+            this.toEnd = toEnd;
+        }
+
+        void run(int best) {
+            Arrays.fill(dist, INF);
+            PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(entry -> entry[0]));
+            for (int i = 0; i < fromStart.length; i++) {
+                if (fromStart[i] != INF) {
+                    int u = cellStart[source] + i;
+                    dist[u] = fromStart[i];
+                    parent[u] = -1;
+                    queue.add(new long[] { dist[u], u });
+                }
+            }
+            int[][] current = cliques;
+            while (!queue.isEmpty()) {
+                long[] entry = queue.poll();
+                int u = (int) entry[1];
+                if (entry[0] != dist[u])
+                    continue;
+                if (dist[u] >= best)
+                    break;
+                if (cellOf[u] == target) {
+                    int out = toEnd[u - cellStart[target]];
+                    if (out != INF && (long) dist[u] + out < best) {
+                        best = dist[u] + out;
+                        meeting = u;
+                    }
+                }
+
+                int c = cellOf[u], size = cellStart[c + 1] - cellStart[c], row = (u - cellStart[c]) * size;
+                for (int j = 0; j < size; j++) {
+                    int weight = current[c][row + j];
+                    if (weight != INF)
+                        reach(queue, u, cellStart[c] + j, (long) dist[u] + weight, -1);
+                }
+                for (int a = cutOffsets[u]; a < cutOffsets[u + 1]; a++) {
+                    int weight = cut.bestWeight(cutEdges[a]);
+                    if (weight != GraphSnapshot.BLOCKED)
+                        reach(queue, u, cutTargets[a], (long) dist[u] + weight, cutEdges[a]);
+                }
+            }
+        }
+
+        private void reach(PriorityQueue<long[]> queue, int u, int v, long candidate, int edge) {
+            if (candidate < dist[v]) {
+                dist[v] = (int) candidate;
+                parent[v] = u;
+                parentEdge[v] = edge;
+                queue.add(new long[] { candidate, v });
+            }
+        }
+    }
+
+    private static final class Leg {
+        final int distance;
+        final List<Step> steps;
+
+        Leg(int distance, List<Step> steps) {
+            this.distance = distance;
+            this.steps = steps;
+        }
+
+        PathResult result(String start) {
+            List<String> path = new ArrayList<>(List.of(start));
+            for (Step step : steps)
+                path.add(step.getTo());
+            return new PathResult(path, distance, steps);
+        }
+    }
+
+    private Leg cutLeg(int edge, String from, String to) {
+        int weight = cut.bestWeight(edge);
+        return new Leg(weight, List.of(new Step(from, to, cut.bestMode(edge), weight)));
+    }
+
+    private CompletableFuture<Leg> leg(int cell, String from, String to) {
+        if (from.equals(to))
+            return CompletableFuture.completedFuture(new Leg(0, List.of()));
+        return fetch(cell, "/route?from=" + encode(from) + "&to=" + encode(to)).thenApply(body -> {
+            String[] lines = body.split("\n");
+            int distance = decode(lines[0]);
+            List<Step> steps = new ArrayList<>();
+            for (int i = 1; i < lines.length; i++) {
+                String[] fields = lines[i].split("\t");
+                steps.add(new Step(fields[0], fields[1], fields[2], Integer.parseInt(fields[3])));
+            }
+            return new Leg(distance, steps);
+        });
+    }
+
+    private CompletableFuture<String> fetch(int cell, String path) {
+        HttpRequest request = HttpRequest.newBuilder(cells.get(cell).resolve(path))
+                .timeout(Duration.ofSeconds(30)).build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> {
+                    if (response.statusCode() != 200)
+                        throw new IllegalStateException("Shard " + cell + " answered " + response.statusCode()
+                                + " to " + path + ": " + response.body().strip());
+                    return response.body();
+                });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io)
+                throw new UncheckedIOException(io);
+            if (e.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            throw e;
+        }
+    }
+
+    // The clique body: the shard's version on the first line, then one row per boundary node.
+    private static int[] matrix(String body) {
+        String[] lines = body.split("\n");
+        int size = lines.length - 1;
+        int[] values = new int[size * size];
+        for (int i = 0; i < size; i++) {
+            int[] row = row(lines[i + 1]);
+            if (row.length != size)
+                throw new IllegalStateException("Clique row " + i + " has " + row.length + " entries, expected "
+                        + size);
+            System.arraycopy(row, 0, values, i * size, size);
+        }
+        return values;
+    }
+
+    private static int[] row(String line) {
+        line = line.strip();
+        if (line.isEmpty())
+            return new int[0];
+        String[] fields = line.split("\t");
+        int[] values = new int[fields.length];
+        for (int i = 0; i < fields.length; i++)
+            values[i] = decode(fields[i]);
+        return values;
+    }
+
+    private static int decode(String field) {
+        int value = Integer.parseInt(field.strip());
+        return value == CellServer.UNREACHABLE ? INF : value;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
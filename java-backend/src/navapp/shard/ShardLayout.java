@@ -0,0 +1,164 @@
+package src.navapp.shard;
+
+import src.navapp.model.TravelMode;
+import src.navapp.service.GraphPartition;
+import src.navapp.service.GraphSnapshot;
+import src.navapp.service.NodeCoordinates;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// The on-disk split of a map into shards, one per level-0 cell of a GraphPartition. Each shard gets
+// a CSV holding the roads inside its cell, in the layout the service already loads, and a list of
+// its boundary nodes. The roads between cells go to cut.csv, and nodes.tsv maps every node to its
+// shard so a coordinator can place query endpoints without loading any roads. Closed roads are
+// left out: a shard starts from the open network.
+public final class ShardLayout {
+    static final String MANIFEST = "shards.tsv";
+    static final String NODES = "nodes.tsv";
+    static final String CUT = "cut.csv";
+
+    private final Path directory;
+    private final List<Path> cellFiles, boundaryFiles;
+    private final List<List<String>> boundaries;
+    private final Map<String, Integer> cellOf;
+
+    private ShardLayout(Path directory, List<Path> cellFiles, List<Path> boundaryFiles,
+            List<List<String>> boundaries, Map<String, Integer> cellOf) {
+        this.directory = directory;
+        this.cellFiles = cellFiles;
+        this.boundaryFiles = boundaryFiles;
+        this.boundaries = boundaries;
+        this.cellOf = cellOf;
+    }
+
+    // Node names go into the shard CSVs unquoted, as the loader reads them, so a name the loader
+    // would split or trim is refused before anything is written.
+    public static ShardLayout write(GraphSnapshot graph, GraphPartition partition, Path directory) {
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            String name = graph.nodeName(node);
+            if (name.indexOf(',') >= 0 || name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0
+                    || !name.equals(name.trim()))
+                throw new IllegalArgumentException("Node name cannot be written to a shard: \"" + name + "\"");
+        }
+        int cells = partition.cellCount(0);
+        try {
+            Files.createDirectories(directory);
+            PrintWriter[] rows = new PrintWriter[cells];
+            try (PrintWriter cut = writer(directory.resolve(CUT))) {
+                for (int c = 0; c < cells; c++)
+                    rows[c] = writer(directory.resolve(cellFileName(c)));
+                for (int e = 0; e < graph.edgeCount(); e++) {
+                    if (graph.isBlocked(e))
+                        continue;
+                    int from = partition.cell(0, graph.edgeFrom(e)), to = partition.cell(0, graph.edgeTo(e));
+                    (from == to ? rows[from] : cut).println(row(graph, e));
+                }
+            } finally {
+                for (PrintWriter out : rows)
+                    if (out != null)
+                        out.close();
+            }
+
+            try (PrintWriter manifest = writer(directory.resolve(MANIFEST));
+                    PrintWriter nodes = writer(directory.resolve(NODES))) {
+                for (int c = 0; c < cells; c++) {
+                    manifest.println(c + "\t" + cellFileName(c) + "\t" + boundaryFileName(c));
+                    try (PrintWriter boundary = writer(directory.resolve(boundaryFileName(c)))) {
+                        for (int node : partition.boundary(0, c))
+                            boundary.println(graph.nodeName(node));
+                    }
+                }
+                for (int node = 0; node < graph.nodeCount(); node++)
+                    nodes.println(graph.nodeName(node) + "\t" + partition.cell(0, node));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return read(directory);
+    }
+
+    public static ShardLayout read(Path directory) {
+        List<Path> cellFiles = new ArrayList<>(), boundaryFiles = new ArrayList<>();
+        List<List<String>> boundaries = new ArrayList<>();
+        Map<String, Integer> cellOf = new HashMap<>();
+        try {
+            for (String line : Files.readAllLines(directory.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t");
+                if (Integer.parseInt(fields[0]) != cellFiles.size())
+                    throw new IllegalArgumentException("Shards out of order in " + MANIFEST + ": " + line);
+                cellFiles.add(directory.resolve(fields[1]));
+                boundaryFiles.add(directory.resolve(fields[2]));
+                boundaries.add(List.copyOf(Files.readAllLines(directory.resolve(fields[2]), StandardCharsets.UTF_8)));
+            }
+            try (BufferedReader nodes = Files.newBufferedReader(directory.resolve(NODES), StandardCharsets.UTF_8)) {
+                for (String line = nodes.readLine(); line != null; line = nodes.readLine()) {
+                    int tab = line.lastIndexOf('\t');
+                    cellOf.put(line.substring(0, tab), Integer.parseInt(line.substring(tab + 1)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ShardLayout(directory, List.copyOf(cellFiles), List.copyOf(boundaryFiles), List.copyOf(boundaries),
+                cellOf);
+    }
+
+    public int cellCount() {
+        return cellFiles.size();
+    }
+
+    public Path cellFile(int cell) {
+        return cellFiles.get(cell);
+    }
+
+    public Path boundaryFile(int cell) {
+        return boundaryFiles.get(cell);
+    }
+
+    public Path cutFile() {
+        return directory.resolve(CUT);
+    }
+
+    public List<String> boundary(int cell) {
+        return boundaries.get(cell);
+    }
+
+    // The shard holding the node, or -1 for a name the map does not have.
+    public int cellOf(String node) {
+        return cellOf.getOrDefault(node, -1);
+    }
+
+    private static String cellFileName(int cell) {
+        return "cell-" + cell + ".csv";
+    }
+
+    private static String boundaryFileName(int cell) {
+        return "cell-" + cell + ".boundary";
+    }
+
+    private static PrintWriter writer(Path file) throws IOException {
+        return new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    private static String row(GraphSnapshot graph, int edge) {
+        int from = graph.edgeFrom(edge), to = graph.edgeTo(edge);
+        int jeepney = graph.weight(edge, TravelMode.JEEP);
+        StringBuilder row = new StringBuilder()
+                .append(graph.nodeName(from)).append(',').append(graph.nodeName(to)).append(',')
+                .append(graph.weight(edge, TravelMode.WALK)).append(',')
+                .append(graph.weight(edge, TravelMode.MIXCOMMUTE)).append(',')
+                .append(jeepney == Integer.MAX_VALUE ? "" : Integer.toString(jeepney));
+        NodeCoordinates coordinates = graph.coordinates();
+        if (coordinates != null && coordinates.located(from) && coordinates.located(to))
+            row.append(',').append(coordinates.latitude(from)).append(',').append(coordinates.longitude(from))
+                    .append(',').append(coordinates.latitude(to)).append(',').append(coordinates.longitude(to));
+        return row.toString();
+    }
+}
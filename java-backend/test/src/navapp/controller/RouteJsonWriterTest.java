@@ -0,0 +1,152 @@
+package src.navapp.controller;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.PathResult;
+import src.navapp.model.RouteResponse;
+import src.navapp.model.Step;
+import src.navapp.model.TravelMode;
+import src.navapp.service.DijkstraSolver;
+import src.navapp.service.Graph;
+import src.navapp.service.GraphSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteJsonWriterTest {
+    // The loader keeps quotes, backslashes and inner control characters in node names as they are.
+    private static final List<String> MAP = List.of("A,B\"q,4,2,1", "B\"q,C\\d,3,3,", "C\\d,D\u0001e,5,1,2",
+            "A,D\u0001e,20,20,");
+
+    @Test
+    void escapesQuotesBackslashesAndControlCharacters() throws IOException {
+        PathResult result = new PathResult(List.of("A\"1", "B\\2"), 7,
+                List.of(new Step("A\"1", "B\\2", TravelMode.WALK, 7)));
+        String event = "line\nbreak\ttab\rreturn\u0001\u001f \"quoted\" back\\slash";
+        String json = write(new RouteResponse(event, 3, 1, result, false), null, false);
+        assertEquals("{\"event\":\"line\\nbreak\\ttab\\rreturn\\u0001\\u001f \\\"quoted\\\" back\\\\slash\""
+                + ",\"version\":3,\"distance\":7,\"truncated\":false"
+                + ",\"path\":[\"A\\\"1\",\"B\\\\2\"]"
+                + ",\"steps\":[{\"from\":\"A\\\"1\",\"to\":\"B\\\\2\",\"mode\":\"walk\",\"weight\":7}]}", json);
+    }
+
+    // The names form keeps its fields in a fixed order, and only multimodal routes add transfers.
+    @Test
+    void namesFormHasTheDocumentedFieldsInOrder() throws IOException {
+        PathResult result = new PathResult(List.of("A", "B", "C"), 5,
+                List.of(new Step("A", "B", TravelMode.JEEP, 2), new Step("B", "C", TravelMode.MIXCOMMUTE, 3)));
+        assertEquals("{\"event\":\"None\",\"version\":9,\"distance\":5,\"truncated\":false"
+                + ",\"path\":[\"A\",\"B\",\"C\"]"
+                + ",\"steps\":[{\"from\":\"A\",\"to\":\"B\",\"mode\":\"jeep\",\"weight\":2}"
+                + ",{\"from\":\"B\",\"to\":\"C\",\"mode\":\"mixcommute\",\"weight\":3}]}",
+                write(new RouteResponse("None", 9, 2, result, false), null, false));
+        assertEquals("{\"event\":\"None\",\"version\":9,\"distance\":" + Integer.MAX_VALUE
+                + ",\"truncated\":true,\"path\":[],\"steps\":[],\"transfers\":[]}",
+                write(new RouteResponse("None", 9, 2, PathResult.unreachable().asTruncated(), true), null, false));
+    }
+
+    // Decoding a compact route through the dictionary gives back the names form's path and modes.
+    @Test
+    void compactRouteDecodesThroughTheDictionary() throws IOException {
+        GraphSnapshot graph = graph(MAP);
+        for (String end : List.of("B\"q", "C\\d", "D\u0001e")) {
+            PathResult result = new DijkstraSolver().findShortestPath(graph, "A", end);
+            String compact = write(new RouteResponse("None", graph.getVersion(), graph.getTopologyVersion(), result,
+                    false), graph, true);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            RouteJsonWriter.writeDictionary(graph, bytes);
+            String dictionary = bytes.toString(StandardCharsets.UTF_8);
+
+            assertEquals(Long.toString(graph.getTopologyVersion()), field(compact, "topology"));
+            assertEquals(field(compact, "topology"), field(dictionary, "topology"));
+            List<String> nodes = strings(field(dictionary, "nodes")), modes = strings(field(dictionary, "modes"));
+            List<String> path = new ArrayList<>();
+            for (String id : numbers(field(compact, "path")))
+                path.add(nodes.get(Integer.parseInt(id)));
+            assertEquals(result.getPath(), path);
+
+            List<String> stepModes = numbers(field(compact, "modes")), weights = numbers(field(compact, "weights"));
+            assertEquals(result.getSteps().size(), stepModes.size());
+            for (int i = 0; i < stepModes.size(); i++) {
+                Step step = result.getSteps().get(i);
+                assertEquals(step.getModeUsed(), modes.get(Integer.parseInt(stepModes.get(i))));
+                assertEquals(Integer.toString(step.getWeightUsed()), weights.get(i));
+            }
+        }
+    }
+
+    private static String write(RouteResponse response, GraphSnapshot graph, boolean compact) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RouteJsonWriter.writeRoute(response, graph, compact, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static GraphSnapshot graph(List<String> rows) throws IOException {
+        Path file = Files.createTempFile("test-map", ".csv");
+        file.toFile().deleteOnExit();
+        Files.write(file, rows, StandardCharsets.UTF_8);
+        return new Graph(List.of(file.toString())).snapshot();
+    }
+
+    // The raw value of a top-level number or array field; enough for the flat objects written here.
+    private static String field(String json, String name) {
+        int start = json.indexOf("\"" + name + "\":");
+        assertTrue(start >= 0, () -> name + " missing from " + json);
+        start += name.length() + 3;
+        int end = start;
+        if (json.charAt(start) == '[') {
+            boolean inString = false;
+            for (end = start + 1; inString || json.charAt(end) != ']'; end++) {
+                if (json.charAt(end) == '\\')
+                    end++;
+                else if (json.charAt(end) == '"')
+                    inString = !inString;
+            }
+            return json.substring(start, end + 1);
+        }
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}')
+            end++;
+        return json.substring(start, end);
+    }
+
+    private static List<String> numbers(String array) {
+        String inner = array.substring(1, array.length() - 1);
+        return inner.isEmpty() ? List.of() : List.of(inner.split(","));
+    }
+
+    private static List<String> strings(String array) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = null;
+        for (int i = 1; i < array.length() - 1; i++) {
+            char c = array.charAt(i);
+            if (value == null) {
+                if (c == '"')
+                    value = new StringBuilder();
+            } else if (c == '"') {
+                values.add(value.toString());
+                value = null;
+            } else if (c == '\\') {
+                char escaped = array.charAt(++i);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        value.append((char) Integer.parseInt(array.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,111 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.PathResult;
+import src.navapp.model.RouteAlternatives;
+import src.navapp.model.Step;
+import src.navapp.model.TravelMode;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlternativeRouteFinderTest {
+    private static final Duration BUDGET = Duration.ofSeconds(10);
+
+    // The first route is the shortest one, and every later route is a real, no cheaper route that
+    // overlaps each earlier one by at most maxSimilarity.
+    @Test
+    void firstRouteMatchesDijkstraAndOthersAreDistinct() {
+        AlternativeRouteFinder finder = new AlternativeRouteFinder();
+        PathSolver reference = new DijkstraSolver();
+        for (long seed = 0; seed < 6; seed++) {
+            GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(120, 200, seed));
+            for (int from = 0; from < graph.nodeCount(); from += 11) {
+                for (int to = 1; to < graph.nodeCount(); to += 9) {
+                    String start = graph.nodeName(from), end = graph.nodeName(to);
+                    RouteAlternatives alternatives = finder.find(graph, start, end, 4, 0.6, BUDGET);
+                    assertFalse(alternatives.isTimedOut());
+                    List<PathResult> routes = alternatives.getRoutes();
+                    int expected = reference.findShortestPath(graph, start, end).getDistance();
+                    assertFalse(routes.isEmpty(), () -> start + " -> " + end);
+                    DijkstraSolverTest.assertRoute(graph, start, end, expected, routes.get(0));
+                    for (int i = 1; i < routes.size(); i++) {
+                        assertWalk(graph, start, end, routes.get(i));
+                        assertTrue(routes.get(i).getDistance() >= expected);
+                        for (int j = 0; j < i; j++)
+                            assertTrue(similarity(routes.get(i), routes.get(j)) <= 0.6,
+                                    () -> "overlapping routes " + start + " -> " + end);
+                    }
+                }
+            }
+        }
+    }
+
+    // The scratch labels are reused across attempts, queries and graph sizes; a label left behind
+    // by one search would corrupt the next one's first route.
+    @Test
+    void reusesScratchAcrossGraphs() {
+        AlternativeRouteFinder finder = new AlternativeRouteFinder();
+        PathSolver reference = new DijkstraSolver();
+        Graph graph = TestGraphs.graph(TestGraphs.random(150, 150, 5));
+        GraphSnapshot other = TestGraphs.snapshot(TestGraphs.random(90, 100, 6));
+        Random rand = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+            graph.flush();
+            for (GraphSnapshot snapshot : List.of(graph.snapshot(), other)) {
+                String start = TestGraphs.name(rand.nextInt(90)), end = TestGraphs.name(rand.nextInt(90));
+                List<PathResult> routes = finder.find(snapshot, start, end, 3, 0.5, BUDGET).getRoutes();
+                int expected = reference.findShortestPath(snapshot, start, end).getDistance();
+                if (expected == Integer.MAX_VALUE)
+                    assertTrue(routes.isEmpty());
+                else
+                    DijkstraSolverTest.assertRoute(snapshot, start, end, expected, routes.get(0));
+            }
+        }
+    }
+
+    // The budget covers the first search as well.
+    @Test
+    void expiredBudgetReturnsNoRoutes() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(2000, 2000, 8));
+        RouteAlternatives alternatives = new AlternativeRouteFinder().find(graph, TestGraphs.name(0),
+                TestGraphs.name(1999), 3, 0.7, Duration.ofNanos(-1));
+        assertTrue(alternatives.isTimedOut());
+        assertTrue(alternatives.getRoutes().isEmpty());
+    }
+
+    // Consecutive steps join up from start to end and add up to the distance.
+    private static void assertWalk(GraphSnapshot graph, String start, String end, PathResult route) {
+        String at = start;
+        int total = 0;
+        for (Step step : route.getSteps()) {
+            assertEquals(at, step.getFrom());
+            assertTrue(graph.edgeBetween(graph.nodeId(step.getFrom()), graph.nodeId(step.getTo())) >= 0);
+            total += step.getWeightUsed();
+            at = step.getTo();
+        }
+        assertEquals(end, at);
+        assertEquals(route.getDistance(), total);
+    }
+
+    // Shared length over the shorter route's length, with roads keyed by their unordered end nodes.
+    private static double similarity(PathResult a, PathResult b) {
+        Set<String> roads = new HashSet<>();
+        for (Step step : b.getSteps())
+            roads.add(road(step));
+        int shared = 0;
+        for (Step step : a.getSteps())
+            if (roads.contains(road(step)))
+                shared += step.getWeightUsed();
+        int shorter = Math.min(a.getDistance(), b.getDistance());
+        return shorter == 0 ? 0 : (double) shared / shorter;
+    }
+
+    private static String road(Step step) {
+        return step.getFrom().compareTo(step.getTo()) < 0 ? step.getFrom() + "|" + step.getTo()
+                : step.getTo() + "|" + step.getFrom();
+    }
+}
@@ -0,0 +1,44 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.TravelMode;
+
+import java.util.Random;
+
+class BidirectionalDijkstraSolverTest {
+    @Test
+    void matchesDijkstraOnRandomMaps() {
+        PathSolver solver = new BidirectionalDijkstraSolver(), reference = new DijkstraSolver();
+        for (long seed = 0; seed < 10; seed++) {
+            GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(150, 200, seed));
+            for (int from = 0; from < graph.nodeCount(); from += 7) {
+                for (int to = 0; to < graph.nodeCount(); to += 2) {
+                    String start = graph.nodeName(from), end = graph.nodeName(to);
+                    DijkstraSolverTest.assertRoute(graph, start, end,
+                            reference.findShortestPath(graph, start, end).getDistance(),
+                            solver.findShortestPath(graph, start, end));
+                }
+            }
+        }
+    }
+
+    // The per-thread scratch is reused across queries and graph versions, so stale labels from an
+    // earlier search must never leak into a later one.
+    @Test
+    void reusesScratchAcrossVersions() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(200, 250, 33));
+        PathSolver solver = new BidirectionalDijkstraSolver(), reference = new DijkstraSolver();
+        Random rand = new Random(34);
+        for (int round = 0; round < 30; round++) {
+            graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+            graph.flush();
+            GraphSnapshot snapshot = graph.snapshot();
+            for (int i = 0; i < 10; i++) {
+                String start = TestGraphs.name(rand.nextInt(200)), end = TestGraphs.name(rand.nextInt(200));
+                DijkstraSolverTest.assertRoute(snapshot, start, end,
+                        reference.findShortestPath(snapshot, start, end).getDistance(),
+                        solver.findShortestPath(snapshot, start, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.TravelMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractionHierarchyTest {
+    @Test
+    void matchesDijkstraOnRandomMaps() {
+        PathSolver reference = new DijkstraSolver();
+        for (long seed = 0; seed < 10; seed++) {
+            GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(150, 250, seed));
+            ContractionHierarchy ch = ContractionHierarchy.build(graph);
+            for (int from = 0; from < graph.nodeCount(); from += 5) {
+                for (int to = 0; to < graph.nodeCount(); to += 3) {
+                    String start = graph.nodeName(from), end = graph.nodeName(to);
+                    DijkstraSolverTest.assertRoute(graph, start, end,
+                            reference.findShortestPath(graph, start, end).getDistance(), ch.query(graph, start, end));
+                }
+            }
+        }
+    }
+
+    // Contracting B or C first must not lose the free road between them: every pair of their
+    // neighbours is only connected at the right distance through it.
+    @Test
+    void keepsConnectionsAcrossZeroWeightRoads() {
+        GraphSnapshot graph = TestGraphs.snapshot("A,B,3,3,", "B,C,0,0,", "C,D,4,4,", "B,E,0,0,", "E,C,9,9,",
+                "D,F,0,0,", "F,G,0,0,", "G,A,20,20,");
+        ContractionHierarchy ch = ContractionHierarchy.build(graph);
+        PathSolver reference = new DijkstraSolver();
+        for (int from = 0; from < graph.nodeCount(); from++)
+            for (int to = 0; to < graph.nodeCount(); to++) {
+                String start = graph.nodeName(from), end = graph.nodeName(to);
+                DijkstraSolverTest.assertRoute(graph, start, end,
+                        reference.findShortestPath(graph, start, end).getDistance(), ch.query(graph, start, end));
+            }
+    }
+
+    @Test
+    void singleModeHierarchiesUseThatModesWeights() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(120, 200, 11));
+        ContractionHierarchy walk = ContractionHierarchy.build(graph, TravelMode.WALK);
+        Random rand = new Random(12);
+        for (int i = 0; i < 100; i++) {
+            int source = rand.nextInt(120), target = rand.nextInt(120);
+            int[] dist = LandmarkTable.distancesFrom(graph, source, LandmarkTable.metric(TravelMode.WALK));
+            assertEquals(dist[target], walk.query(graph, graph.nodeName(source), graph.nodeName(target)).getDistance());
+        }
+    }
+
+    // With a rebuild delay far longer than the test, every answer after the events comes from
+    // the old hierarchy when its route is untouched and from A* otherwise.
+    @Test
+    void servesRoutesUntouchedByEventsFromTheOldHierarchy() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(200, 300, 13));
+        ContractionHierarchySolver solver = new ContractionHierarchySolver(graph, null, Duration.ofHours(1));
+        TestGraphs.await(() -> solver.getHierarchy() != null);
+        long built = solver.getHierarchy().getVersion();
+
+        Random rand = new Random(14);
+        PathSolver reference = new DijkstraSolver();
+        for (int round = 0; round < 20; round++) {
+            graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+            graph.flush();
+            GraphSnapshot snapshot = graph.snapshot();
+            for (int i = 0; i < 20; i++) {
+                String start = TestGraphs.name(rand.nextInt(200)), end = TestGraphs.name(rand.nextInt(200));
+                DijkstraSolverTest.assertRoute(snapshot, start, end,
+                        reference.findShortestPath(snapshot, start, end).getDistance(),
+                        solver.findShortestPath(snapshot, start, end));
+            }
+        }
+        assertEquals(built, solver.getHierarchy().getVersion());
+    }
+
+    @Test
+    void installsTheHierarchyEvenWhenSavingItFails() throws Exception {
+        Graph graph = TestGraphs.graph(TestGraphs.random(50, 60, 15));
+        Path unwritable = Files.createTempDirectory("ch");
+        ContractionHierarchySolver solver = new ContractionHierarchySolver(graph, unwritable);
+        TestGraphs.await(() -> solver.getHierarchy() != null);
+        GraphSnapshot snapshot = graph.snapshot();
+        assertEquals(new DijkstraSolver().findShortestPath(snapshot, "N0", "N49").getDistance(),
+                solver.getHierarchy().query(snapshot, "N0", "N49").getDistance());
+    }
+
+    @Test
+    void readsASavedHierarchy() throws Exception {
+        Graph graph = TestGraphs.graph(TestGraphs.random(80, 100, 16));
+        GraphSnapshot snapshot = graph.snapshot();
+        Path file = Files.createTempFile("test-map", ContractionHierarchyFile.EXTENSION);
+        file.toFile().deleteOnExit();
+        ContractionHierarchyFile.write(ContractionHierarchy.build(snapshot), snapshot, file);
+        ContractionHierarchySolver solver = new ContractionHierarchySolver(graph, file);
+        assertNotNull(solver.getHierarchy());
+        assertEquals(new DijkstraSolver().findShortestPath(snapshot, "N0", "N79").getDistance(),
+                solver.getHierarchy().query(snapshot, "N0", "N79").getDistance());
+    }
+
+    // Any prefix of a saved file fails as an IOException, and the solver rebuilds instead.
+    @Test
+    void rebuildsFromADamagedFile() throws Exception {
+        Graph graph = TestGraphs.graph(TestGraphs.random(30, 40, 17));
+        GraphSnapshot snapshot = graph.snapshot();
+        Path file = Files.createTempFile("test-map", ContractionHierarchyFile.EXTENSION);
+        file.toFile().deleteOnExit();
+        ContractionHierarchyFile.write(ContractionHierarchy.build(snapshot), snapshot, file);
+        byte[] bytes = Files.readAllBytes(file);
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> ContractionHierarchyFile.read(file, snapshot, null),
+                    "length " + length);
+        }
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        ContractionHierarchySolver solver = new ContractionHierarchySolver(graph, file);
+        TestGraphs.await(() -> solver.getHierarchy() != null);
+        assertEquals(new DijkstraSolver().findShortestPath(snapshot, "N0", "N29").getDistance(),
+                solver.getHierarchy().query(snapshot, "N0", "N29").getDistance());
+    }
+}
@@ -0,0 +1,65 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.LoadReport;
+import src.navapp.model.TravelMode;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvGraphLoaderTest {
+    @Test
+    void countsMalformedRowsWithTheirLineNumbers() {
+        Path file = TestGraphs.csv(List.of("A,B,5,3,", "broken", "", "B,C,x,1,", "C,D,4,2,1", "A,B,6,2,"));
+        Graph graph = new Graph(List.of(file.toString()));
+        LoadReport report = graph.getLoadReport();
+        GraphSnapshot snapshot = graph.snapshot();
+
+        assertEquals(5, report.getRows());
+        assertEquals(2, report.getMalformedRows());
+        String name = file.getFileName().toString();
+        assertEquals(List.of(name + ":2", name + ":4"), report.getMalformedSamples());
+        assertEquals(2, snapshot.edgeCount());
+        // The later row for the same road wins, as in a sequential load.
+        int ab = snapshot.edgeBetween(snapshot.nodeId("A"), snapshot.nodeId("B"));
+        assertEquals(6, snapshot.weight(ab, TravelMode.WALK));
+        assertEquals(1, snapshot.bestWeight(snapshot.edgeBetween(snapshot.nodeId("C"), snapshot.nodeId("D"))));
+    }
+
+    // Solvers assume non-negative weights, and a jeepney fare of -1 would read as no jeepney.
+    @Test
+    void rejectsNegativeWeights() {
+        Path file = TestGraphs.csv(List.of("A,B,5,3,", "B,C,2,2,", "C,D,-1,7,-1", "B,D,4,-2,", "C,E,3,3,-5"));
+        Graph graph = new Graph(List.of(file.toString()));
+        LoadReport report = graph.getLoadReport();
+        GraphSnapshot snapshot = graph.snapshot();
+
+        assertEquals(3, report.getMalformedRows());
+        String name = file.getFileName().toString();
+        assertEquals(List.of(name + ":3", name + ":4", name + ":5"), report.getMalformedSamples());
+        assertEquals(2, snapshot.edgeCount());
+        assertEquals(5, new DijkstraSolver().findShortestPath(snapshot, "A", "C").getDistance());
+    }
+
+    // Large enough to be cut into several chunks, so names and line numbers have to carry across
+    // chunk boundaries during the merge.
+    @Test
+    void mergesChunksInFileOrder() {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 800_000; i++)
+            rows.add(i % 200_000 == 199_999 ? "bad row" : "N" + (i % 50_000) + ",N" + (i % 50_000 + 1) + "," + (i + 1) + ",7,");
+        Path file = TestGraphs.csv(rows);
+        Graph graph = new Graph(List.of(file.toString()));
+        LoadReport report = graph.getLoadReport();
+        GraphSnapshot snapshot = graph.snapshot();
+
+        assertEquals(4, report.getMalformedRows());
+        assertEquals(file.getFileName() + ":800000", report.getMalformedSamples().get(3));
+        assertEquals(50_000, snapshot.edgeCount());
+        int first = snapshot.edgeBetween(snapshot.nodeId("N0"), snapshot.nodeId("N1"));
+        assertEquals(750_001, snapshot.weight(first, TravelMode.WALK));
+    }
+}
@@ -0,0 +1,81 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.TravelMode;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomizableHierarchyTest {
+    @Test
+    void matchesDijkstraAfterEachCustomization() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(300, 450, 21));
+        CustomizableHierarchy ch = CustomizableHierarchy.build(graph.snapshot());
+        PathSolver reference = new DijkstraSolver();
+        Random rand = new Random(22);
+        for (int round = 0; round < 5; round++) {
+            GraphSnapshot snapshot = graph.snapshot();
+            CustomizableHierarchy.Metric metric = ch.customize(snapshot);
+            for (int i = 0; i < 100; i++) {
+                String start = TestGraphs.name(rand.nextInt(300)), end = TestGraphs.name(rand.nextInt(300));
+                DijkstraSolverTest.assertRoute(snapshot, start, end,
+                        reference.findShortestPath(snapshot, start, end).getDistance(),
+                        ch.query(metric, snapshot, start, end));
+            }
+            for (int i = 0; i < 10; i++)
+                graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+            graph.flush();
+        }
+    }
+
+    @Test
+    void solverFollowsEvents() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(200, 300, 23));
+        CustomizableHierarchySolver solver = new CustomizableHierarchySolver(graph);
+        PathSolver reference = new DijkstraSolver();
+        Random rand = new Random(24);
+        for (int round = 0; round < 5; round++) {
+            graph.simulateRandomEvent("walk", rand);
+            graph.flush();
+            GraphSnapshot snapshot = graph.snapshot();
+            TestGraphs.await(() -> solver.getMetric() != null && solver.getMetric().getVersion() == snapshot.getVersion());
+            for (int i = 0; i < 50; i++) {
+                String start = TestGraphs.name(rand.nextInt(200)), end = TestGraphs.name(rand.nextInt(200));
+                assertEquals(reference.findShortestPath(snapshot, start, end).getDistance(),
+                        solver.findShortestPath(snapshot, start, end).getDistance());
+            }
+        }
+    }
+
+    // Same node and edge counts, different roads: the old elimination order no longer applies.
+    @Test
+    void doesNotFitAnotherTopologyWithTheSameCounts() {
+        String[] names = { "A", "B", "C", "D" };
+        Map<String, Integer> ids = Map.of("A", 0, "B", 1, "C", 2, "D", 3);
+        GraphSnapshot path = GraphSnapshot.build(0, names, ids, new int[] { 0, 1, 2 }, new int[] { 1, 2, 3 },
+                new int[] { 1, 1, 1 }, new int[] { 1, 1, 1 }, new int[] { -1, -1, -1 }, new boolean[3], null, null);
+        GraphSnapshot star = GraphSnapshot.build(1, names, ids, new int[] { 0, 0, 0 }, new int[] { 1, 2, 3 },
+                new int[] { 1, 1, 1 }, new int[] { 1, 1, 1 }, new int[] { -1, -1, -1 }, new boolean[3], null, null);
+        CustomizableHierarchy ch = CustomizableHierarchy.build(path);
+        assertTrue(ch.fits(path));
+        assertFalse(ch.fits(star));
+        assertThrows(IllegalArgumentException.class, () -> ch.customize(star));
+    }
+
+    // Two roads between A and B: the cheaper one must carry the route whichever is listed last.
+    @Test
+    void keepsTheCheapestOfParallelEdges() {
+        String[] names = { "A", "B", "C" };
+        Map<String, Integer> ids = Map.of("A", 0, "B", 1, "C", 2);
+        GraphSnapshot graph = GraphSnapshot.build(0, names, ids, new int[] { 0, 0, 1, 0 }, new int[] { 1, 1, 2, 1 },
+                new int[] { 4, 9, 2, 7 }, new int[] { 4, 9, 2, 7 }, new int[] { -1, -1, -1, -1 }, new boolean[4], null, null);
+        CustomizableHierarchy ch = CustomizableHierarchy.build(graph);
+        CustomizableHierarchy.Metric metric = ch.customize(graph);
+        assertEquals(new DijkstraSolver().findShortestPath(graph, "A", "C").getDistance(),
+                ch.query(metric, graph, "A", "C").getDistance());
+        assertEquals(6, ch.query(metric, graph, "A", "C").getDistance());
+        assertEquals(4, ch.query(metric, graph, "A", "C").getSteps().get(0).getWeightUsed());
+    }
+}
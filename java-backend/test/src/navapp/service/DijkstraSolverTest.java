@@ -0,0 +1,124 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.EdgeWeight;
+import src.navapp.model.PathResult;
+import src.navapp.model.SimulationEvent;
+import src.navapp.model.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DijkstraSolverTest {
+    @Test
+    void matchesBackTrackingOnSmallMaps() {
+        PathSolver reference = new BackTrackAlgo();
+        for (long seed = 0; seed < 20; seed++) {
+            GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(9, 6, seed));
+            for (int from = 0; from < graph.nodeCount(); from++) {
+                for (int to = 0; to < graph.nodeCount(); to++) {
+                    String start = graph.nodeName(from), end = graph.nodeName(to);
+                    int expected = reference.findShortestPath(graph, start, end).getDistance();
+                    assertRoute(graph, start, end, expected, new DijkstraSolver().findShortestPath(graph, start, end));
+                    assertRoute(graph, start, end, expected, new AStarSolver().findShortestPath(graph, start, end));
+                }
+            }
+        }
+    }
+
+    @Test
+    void aStarMatchesDijkstraOnLargerMaps() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(400, 600, 1));
+        Random rand = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            String start = graph.nodeName(rand.nextInt(graph.nodeCount()));
+            String end = graph.nodeName(rand.nextInt(graph.nodeCount()));
+            int expected = new DijkstraSolver().findShortestPath(graph, start, end).getDistance();
+            assertRoute(graph, start, end, expected, new AStarSolver().findShortestPath(graph, start, end));
+        }
+    }
+
+    // S-X is the only placed road of any length, so it sets the speed limit of the geometric bound
+    // (T-W only places T), yet the unplaced U carries X to the far-off T in two minutes. Trusting
+    // that bound at X would settle T through the slow unplaced Y first.
+    @Test
+    void aStarIgnoresCoordinatesOnAPartlyLocatedMap() {
+        GraphSnapshot graph = TestGraphs.snapshot("S,X,1,1,,0,0,0,0.0001", "X,U,1,1,", "U,T,1,1,",
+                "T,W,9,9,,0,0.09,0,0.09", "S,Y,50,50,", "Y,T,50,50,");
+        assertFalse(graph.coordinates().complete());
+        assertRoute(graph, "S", "T", 3, new AStarSolver().findShortestPath(graph, "S", "T"));
+    }
+
+    // A road added at runtime brings in a node without a position, which must switch the
+    // geometric bound off for the new topology.
+    @Test
+    void addedUnplacedNodeDisablesTheGeometricBound() {
+        Graph graph = TestGraphs.graph("S,X,1,1,,0,0,0,0.0001", "X,T,900,900,,0,0.0001,0,0.09",
+                "S,Y,50,50,,0,0,0,0.0002", "Y,T,950,950,,0,0.0002,0,0.09");
+        assertTrue(graph.snapshot().coordinates().complete());
+        graph.addEdge("X", "U", new EdgeWeight(1, 1, null));
+        graph.addEdge("U", "T", new EdgeWeight(1, 1, null));
+        GraphSnapshot snapshot = graph.snapshot();
+        assertFalse(snapshot.coordinates().complete());
+        assertRoute(snapshot, "S", "T", 3, new AStarSolver().findShortestPath(snapshot, "S", "T"));
+    }
+
+    @Test
+    void aStarMatchesDijkstraWithCoordinates() {
+        for (double placed : new double[] { 1.0, 0.7 }) {
+            List<String> rows = new ArrayList<>();
+            Random rand = new Random(3);
+            double[][] position = new double[300][];
+            for (int v = 0; v < position.length; v++)
+                if (rand.nextDouble() < placed)
+                    position[v] = new double[] { 14.5 + rand.nextDouble() * 0.1, 121 + rand.nextDouble() * 0.1 };
+            for (String row : TestGraphs.random(300, 450, 4)) {
+                String[] fields = row.split(",", -1);
+                double[] from = position[Integer.parseInt(fields[0].substring(1))];
+                double[] to = position[Integer.parseInt(fields[1].substring(1))];
+                rows.add(from == null || to == null ? row : row + "," + from[0] + "," + from[1] + "," + to[0] + "," + to[1]);
+            }
+            GraphSnapshot graph = TestGraphs.snapshot(rows);
+            assertEquals(placed == 1.0, graph.coordinates().complete());
+            for (int i = 0; i < 200; i++) {
+                String start = graph.nodeName(rand.nextInt(graph.nodeCount()));
+                String end = graph.nodeName(rand.nextInt(graph.nodeCount()));
+                int expected = new DijkstraSolver().findShortestPath(graph, start, end).getDistance();
+                assertRoute(graph, start, end, expected, new AStarSolver().findShortestPath(graph, start, end));
+            }
+        }
+    }
+
+    @Test
+    void skipsBlockedRoadsAndUnknownNodes() {
+        Graph graph = TestGraphs.graph("A,B,5,5,", "B,C,5,5,", "A,C,30,30,");
+        PathSolver solver = new DijkstraSolver();
+        assertEquals(10, solver.findShortestPath(graph.snapshot(), "A", "C").getDistance());
+
+        graph.submit(new SimulationEvent("block", "A", "B", "closed"));
+        graph.flush();
+        assertEquals(30, solver.findShortestPath(graph.snapshot(), "A", "C").getDistance());
+        assertEquals(Integer.MAX_VALUE, solver.findShortestPath(graph.snapshot(), "A", "Z").getDistance());
+    }
+
+    // The distance must match the reference, and the steps must be real roads that add up to it.
+    static void assertRoute(GraphSnapshot graph, String start, String end, int expected, PathResult result) {
+        assertEquals(expected, result.getDistance(), () -> start + " -> " + end);
+        if (expected == Integer.MAX_VALUE || start.equals(end))
+            return;
+        List<String> path = result.getPath();
+        assertEquals(start, path.get(0));
+        assertEquals(end, path.get(path.size() - 1));
+        int total = 0;
+        for (Step step : result.getSteps()) {
+            int edge = graph.edgeBetween(graph.nodeId(step.getFrom()), graph.nodeId(step.getTo()));
+            assertTrue(edge >= 0 && !graph.isBlocked(edge), () -> "no open road " + step.getFrom() + " - " + step.getTo());
+            assertEquals(graph.bestWeight(edge), step.getWeightUsed());
+            total += step.getWeightUsed();
+        }
+        assertEquals(expected, total, () -> "steps of " + start + " -> " + end);
+    }
+}
@@ -0,0 +1,57 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.DistanceMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceMatrixSolverTest {
+    @Test
+    void everyCellMatchesDijkstra() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(300, 400, 31));
+        Random rand = new Random(32);
+        // Both shapes, so the transposed search is covered; repeats and an unknown name included.
+        int[][] shapes = { { 5, 12 }, { 12, 5 } };
+        for (int[] shape : shapes) {
+            List<String> origins = names(rand, shape[0]), destinations = names(rand, shape[1]);
+            origins.add(origins.get(0));
+            destinations.add("nowhere");
+            DistanceMatrix matrix = new DistanceMatrixSolver().solve(graph, origins, destinations);
+            for (int i = 0; i < origins.size(); i++) {
+                for (int j = 0; j < destinations.size(); j++) {
+                    int expected = new DijkstraSolver().findShortestPath(graph, origins.get(i), destinations.get(j))
+                            .getDistance();
+                    assertEquals(expected, matrix.getDistance(i, j), origins.get(i) + " -> " + destinations.get(j));
+                }
+            }
+        }
+    }
+
+    private static List<String> names(Random rand, int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            names.add(TestGraphs.name(rand.nextInt(300)));
+        return names;
+    }
+
+    @Test
+    void expiredBudgetTruncatesTheMatrix() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(5000, 5000, 35));
+        List<String> origins = List.of(TestGraphs.name(0), TestGraphs.name(1)), destinations = new ArrayList<>();
+        for (int v = 2; v < 5000; v += 50)
+            destinations.add(TestGraphs.name(v));
+        SearchBudget budget = SearchBudget.current();
+        budget.setDeadline(System.nanoTime() - 1);
+        try {
+            DistanceMatrix matrix = new DistanceMatrixSolver().solve(graph, origins, destinations);
+            assertTrue(matrix.isTruncated());
+        } finally {
+            budget.clear();
+        }
+        assertFalse(new DistanceMatrixSolver().solve(graph, origins, destinations).isTruncated());
+    }
+}
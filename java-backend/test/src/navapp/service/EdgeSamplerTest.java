@@ -0,0 +1,85 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeSamplerTest {
+    @Test
+    void neverReturnsABlockedEdge() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(200, 300, 91));
+        EdgeSampler sampler = new EdgeSampler(graph);
+        Random rand = new Random(92);
+        Set<Integer> blocked = new HashSet<>();
+        // Blocking in steps crosses the point where the alias table is rebuilt over the open edges.
+        while (blocked.size() < graph.edgeCount() - 5) {
+            int edge = rand.nextInt(graph.edgeCount());
+            sampler.block(edge);
+            blocked.add(edge);
+            for (int i = 0; i < 50; i++) {
+                int uniform = sampler.uniform(rand), weighted = sampler.weighted(rand);
+                assertTrue(uniform >= 0 && !blocked.contains(uniform), () -> "uniform drew " + uniform);
+                assertTrue(weighted >= 0 && !blocked.contains(weighted), () -> "weighted drew " + weighted);
+            }
+        }
+    }
+
+    @Test
+    void returnsMinusOneOnceEveryEdgeIsBlocked() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(30, 20, 93));
+        EdgeSampler sampler = new EdgeSampler(graph);
+        Random rand = new Random(94);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            assertNotEquals(-1, sampler.uniform(rand));
+            assertNotEquals(-1, sampler.weighted(rand));
+            sampler.block(e);
+        }
+        assertEquals(-1, sampler.uniform(rand));
+        assertEquals(-1, sampler.weighted(rand));
+    }
+
+    // Each open edge is drawn in proportion to the degrees of its two ends, before and after the
+    // busiest road closes.
+    @Test
+    void weightedDrawsFollowEndpointDegree() {
+        GraphSnapshot graph = TestGraphs.snapshot("A,B,1,1,", "A,C,1,1,", "A,D,1,1,", "A,E,1,1,", "B,C,1,1,",
+                "E,F,1,1,", "F,G,1,1,");
+        EdgeSampler sampler = new EdgeSampler(graph);
+        Random rand = new Random(95);
+        assertFrequencies(graph, sampler, rand, Set.of());
+
+        int busiest = 0;
+        for (int e = 1; e < graph.edgeCount(); e++)
+            if (busyness(graph, e) > busyness(graph, busiest))
+                busiest = e;
+        sampler.block(busiest);
+        assertFrequencies(graph, sampler, rand, Set.of(busiest));
+    }
+
+    private static void assertFrequencies(GraphSnapshot graph, EdgeSampler sampler, Random rand, Set<Integer> blocked) {
+        int draws = 200_000;
+        int[] counts = new int[graph.edgeCount()];
+        for (int i = 0; i < draws; i++)
+            counts[sampler.weighted(rand)]++;
+        double total = 0;
+        for (int e = 0; e < graph.edgeCount(); e++)
+            if (!blocked.contains(e))
+                total += busyness(graph, e);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            double expected = blocked.contains(e) ? 0 : busyness(graph, e) / total;
+            double actual = (double) counts[e] / draws;
+            int edge = e;
+            assertTrue(Math.abs(expected - actual) < 0.01,
+                    () -> "edge " + edge + " drawn " + actual + ", expected " + expected);
+        }
+    }
+
+    private static int busyness(GraphSnapshot graph, int edge) {
+        int from = graph.edgeFrom(edge), to = graph.edgeTo(edge);
+        return graph.endArc(from) - graph.firstArc(from) + graph.endArc(to) - graph.firstArc(to);
+    }
+}
@@ -0,0 +1,127 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.LoadReport;
+import src.navapp.model.TravelMode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphSnapshotFileTest {
+    // Events close and reweigh roads first, so blocked flags and changed weights are written too.
+    @Test
+    void roundTripsAnEditedMap() throws IOException {
+        Graph graph = TestGraphs.graph(TestGraphs.random(300, 400, 71));
+        Random rand = new Random(72);
+        for (int i = 0; i < 40; i++)
+            graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+        graph.flush();
+        GraphSnapshot original = graph.snapshot();
+        assertSameGraph(original, GraphSnapshotFile.read(write(original)));
+    }
+
+    @Test
+    void roundTripsCoordinates() throws IOException {
+        GraphSnapshot original = TestGraphs.snapshot("A,B,4,2,1,14.60,121.00,14.61,121.01",
+                "B,C,3,3,,14.61,121.01,14.62,121.00", "C,A,5,1,2,14.62,121.00,14.60,121.00");
+        GraphSnapshot copy = GraphSnapshotFile.read(write(original));
+        assertSameGraph(original, copy);
+        for (int u = 0; u < original.nodeCount(); u++) {
+            assertTrue(copy.coordinates().located(u));
+            assertEquals(original.coordinates().latitude(u), copy.coordinates().latitude(u));
+            assertEquals(original.coordinates().longitude(u), copy.coordinates().longitude(u));
+        }
+    }
+
+    // Every prefix of a valid file must fail as an IOException, which the Graph turns into a
+    // failed file in its load report instead of crashing on start-up.
+    @Test
+    void truncatedFilesFailCleanly() throws IOException {
+        GraphSnapshot original = TestGraphs.snapshot("A,B,4,2,1,14.60,121.00,14.61,121.01",
+                "B,C,3,3,,14.61,121.01,14.62,121.00", "C,D,5,1,2,14.62,121.00,14.60,121.00");
+        byte[] bytes = Files.readAllBytes(write(original));
+        for (int length = 0; length < bytes.length; length++) {
+            Path truncated = file();
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> GraphSnapshotFile.read(truncated), "length " + length);
+        }
+
+        Path truncated = file();
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        Graph graph = new Graph(List.of(truncated.toString()));
+        LoadReport report = graph.getLoadReport();
+        assertEquals(1, report.getFailedFiles().size());
+        assertEquals(0, graph.snapshot().nodeCount());
+    }
+
+    @Test
+    void outOfRangeCountsAndIndicesFailCleanly() throws IOException {
+        GraphSnapshot original = TestGraphs.snapshot("A,B,4,2,1", "B,C,3,3,", "C,D,5,1,2");
+        byte[] bytes = Files.readAllBytes(write(original));
+        // Header: magic, format, node count, edge count, version.
+        assertCorrupt(bytes, 8, Integer.MAX_VALUE);
+        assertCorrupt(bytes, 8, -1);
+        assertCorrupt(bytes, 12, Integer.MAX_VALUE);
+        assertCorrupt(bytes, 12, -1);
+        // The first name length, then the first arc offset and arc target after the four names.
+        assertCorrupt(bytes, 24, -5);
+        assertCorrupt(bytes, 24, 1 << 20);
+        int offsets = 24 + 4 * (4 + 1);
+        assertCorrupt(bytes, offsets, 1);
+        assertCorrupt(bytes, offsets + 4 * 4, 1 << 20);
+        assertCorrupt(bytes, offsets + 4 * 5, 4);
+        assertCorrupt(bytes, offsets + 4 * 5, -1);
+    }
+
+    private static void assertCorrupt(byte[] bytes, int at, int value) throws IOException {
+        byte[] corrupt = bytes.clone();
+        ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putInt(at, value);
+        Path file = file();
+        Files.write(file, corrupt);
+        assertThrows(IOException.class, () -> GraphSnapshotFile.read(file), () -> at + " = " + value);
+    }
+
+    private static void assertSameGraph(GraphSnapshot expected, GraphSnapshot actual) {
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        assertEquals(expected.coordinates() == null, actual.coordinates() == null);
+        for (int u = 0; u < expected.nodeCount(); u++) {
+            assertEquals(expected.nodeName(u), actual.nodeName(u));
+            assertEquals(u, actual.nodeId(expected.nodeName(u)));
+            assertEquals(expected.firstArc(u), actual.firstArc(u));
+            assertEquals(expected.endArc(u), actual.endArc(u));
+        }
+        for (int a = 0; a < expected.endArc(expected.nodeCount() - 1); a++) {
+            assertEquals(expected.arcTarget(a), actual.arcTarget(a));
+            assertEquals(expected.arcEdge(a), actual.arcEdge(a));
+        }
+        for (int e = 0; e < expected.edgeCount(); e++) {
+            assertEquals(expected.edgeFrom(e), actual.edgeFrom(e));
+            assertEquals(expected.edgeTo(e), actual.edgeTo(e));
+            assertEquals(expected.isBlocked(e), actual.isBlocked(e));
+            for (TravelMode mode : TravelMode.values())
+                assertEquals(expected.weight(e, mode), actual.weight(e, mode));
+        }
+    }
+
+    private static Path write(GraphSnapshot graph) throws IOException {
+        Path file = file();
+        GraphSnapshotFile.write(graph, file);
+        return file;
+    }
+
+    private static Path file() throws IOException {
+        Path file = Files.createTempFile("test-map", GraphSnapshotFile.EXTENSION);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,102 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.EdgeWeight;
+import src.navapp.model.SimulationEvent;
+import src.navapp.model.TravelMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphTest {
+    @Test
+    void replayRebuildsEveryVersion() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(50, 60, 3));
+        Random rand = new Random(4);
+        List<GraphSnapshot> seen = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+            graph.flush();
+            seen.add(graph.snapshot());
+        }
+        for (GraphSnapshot expected : seen) {
+            GraphSnapshot replayed = graph.replay(expected.getVersion());
+            assertEquals(expected.getVersion(), replayed.getVersion());
+            for (int e = 0; e < expected.edgeCount(); e++)
+                assertEquals(expected.bestWeight(e), replayed.bestWeight(e));
+        }
+    }
+
+    @Test
+    void eventsBetweenCoversExactlyTheVersionsAsked() {
+        Graph graph = TestGraphs.graph("A,B,5,5,", "B,C,5,5,");
+        for (int i = 0; i < 5; i++) {
+            graph.submit(new SimulationEvent("traffic", "A", "B", "slow", "walk", 1));
+            graph.flush();
+        }
+        assertEquals(5, graph.eventsBetween(0, 5).size());
+        assertEquals(List.of(3L, 4L), graph.eventsBetween(2, 4).stream().map(SimulationEvent::getVersion).toList());
+        assertTrue(graph.eventsBetween(5, 5).isEmpty());
+
+        // A topology change restarts the history, so older versions can no longer be bridged.
+        graph.addEdge("C", "D", new EdgeWeight(1, 1, null));
+        assertNull(graph.eventsBetween(4, graph.snapshot().getVersion()));
+        assertNull(graph.replay(4));
+    }
+
+    @Test
+    void historyIsTrimmedIntoTheReplayBase() {
+        Graph graph = TestGraphs.graph("A,B,5,5,", "B,C,5,5,");
+        int events = Graph.HISTORY_LIMIT + 10;
+        for (int i = 0; i < events; i++)
+            graph.submit(new SimulationEvent("traffic", "A", "B", "slow", "walk", 1));
+        graph.flush();
+
+        assertTrue(graph.getHistory().size() <= Graph.HISTORY_LIMIT);
+        long latest = graph.snapshot().getVersion();
+        assertNull(graph.eventsBetween(0, latest));
+        assertEquals(5 + events, graph.replay(latest).weight(0, TravelMode.WALK));
+        assertEquals(5 + events, graph.snapshot().weight(0, TravelMode.WALK));
+    }
+
+    // Submitters race each other and a flushing thread for the write lock; whoever loses must
+    // still see its event applied without anyone calling flush afterwards.
+    @Test
+    void concurrentSubmitsAreNeverStranded() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            Graph graph = TestGraphs.graph("A,B,5,5,", "B,C,5,5,");
+            int threads = 4, perThread = 500;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++)
+                        graph.submit(new SimulationEvent("traffic", "B", "C", "slow", "walk", 1));
+                }));
+            }
+            Thread flusher = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted())
+                    graph.flush();
+            });
+            workers.forEach(Thread::start);
+            flusher.start();
+            start.countDown();
+            for (Thread worker : workers)
+                worker.join();
+            flusher.interrupt();
+            flusher.join();
+
+            assertEquals(threads * perThread, graph.getHistory().size());
+            assertEquals(5 + threads * perThread, graph.snapshot().weight(1, TravelMode.WALK));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.PathResult;
+import src.navapp.model.TravelMode;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSolverTest {
+    @Test
+    void matchesDijkstraWhileEventsArrive() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(200, 300, 5));
+        PathSolver solver = new IncrementalSolver(graph), reference = new DijkstraSolver();
+        Random rand = new Random(6);
+        String[][] pairs = new String[10][];
+        for (int i = 0; i < pairs.length; i++)
+            pairs[i] = new String[] { TestGraphs.name(rand.nextInt(200)), TestGraphs.name(rand.nextInt(200)) };
+
+        for (int round = 0; round < 30; round++) {
+            for (int i = 0; i < 3; i++)
+                graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+            graph.flush();
+            GraphSnapshot snapshot = graph.snapshot();
+            for (String[] pair : pairs) {
+                int expected = reference.findShortestPath(snapshot, pair[0], pair[1]).getDistance();
+                DijkstraSolverTest.assertRoute(snapshot, pair[0], pair[1], expected,
+                        solver.findShortestPath(snapshot, pair[0], pair[1]));
+            }
+        }
+    }
+
+    // Y and Z tie at the same g across a free road, and each lists the other first, so always
+    // stepping to the cheapest neighbour would bounce between them.
+    @Test
+    void tracesRoutesAcrossZeroWeightRoads() {
+        GraphSnapshot graph = TestGraphs.snapshot("Y,Z,0,0,", "S,X,1,1,", "X,Y,0,0,", "Z,G,1,1,");
+        PathSolver solver = new IncrementalSolver(null);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            PathResult result = solver.findShortestPath(graph, "S", "G");
+            DijkstraSolverTest.assertRoute(graph, "S", "G", 2, result);
+        });
+    }
+
+    // A search cut short by the budget keeps its open queue, so the next request finishes it.
+    @Test
+    void resumesASearchCutShortByTheBudget() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(5000, 5000, 9));
+        PathSolver solver = new IncrementalSolver(null);
+        String start = TestGraphs.name(0), end = TestGraphs.name(4999);
+        SearchBudget budget = SearchBudget.current();
+        budget.setDeadline(System.nanoTime() - 1);
+        try {
+            PathResult truncated = solver.findShortestPath(graph, start, end);
+            assertTrue(truncated.isTruncated());
+            assertEquals(Integer.MAX_VALUE, truncated.getDistance());
+        } finally {
+            budget.clear();
+        }
+        DijkstraSolverTest.assertRoute(graph, start, end,
+                new DijkstraSolver().findShortestPath(graph, start, end).getDistance(),
+                solver.findShortestPath(graph, start, end));
+    }
+}
@@ -0,0 +1,87 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.EdgeWeight;
+import src.navapp.model.TravelMode;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LandmarkSolverTest {
+    @Test
+    void matchesDijkstraWithEitherSelection() {
+        for (LandmarkTable.Selection selection : LandmarkTable.Selection.values()) {
+            Graph graph = TestGraphs.graph(TestGraphs.random(400, 600, 41));
+            LandmarkSolver solver = new LandmarkSolver(graph, 8, selection, Duration.ofMillis(10));
+            TestGraphs.await(() -> solver.getTable() != null);
+            assertRoutes(graph.snapshot(), solver, new Random(42));
+        }
+    }
+
+    // A long refresh delay keeps the table on an old version while events raise and close roads;
+    // its bounds must stay admissible on every newer snapshot.
+    @Test
+    void staleTableStaysExactAfterEvents() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(300, 450, 43));
+        LandmarkSolver solver = new LandmarkSolver(graph, 8, LandmarkTable.Selection.AVOID, Duration.ofHours(1));
+        TestGraphs.await(() -> solver.getTable() != null);
+        long tableVersion = solver.getTable().getVersion();
+        Random rand = new Random(44);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 5; i++)
+                graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+            graph.flush();
+            GraphSnapshot snapshot = graph.snapshot();
+            assertTrue(solver.getTable().fits(snapshot));
+            assertRoutes(snapshot, solver, rand);
+        }
+        assertEquals(tableVersion, solver.getTable().getVersion());
+    }
+
+    // The bounds for one mode are used by the multimodal solver for single-mode routes, so they
+    // must never exceed the distance using that mode alone.
+    @Test
+    void perModeBoundsNeverOverestimate() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(200, 300, 45));
+        LandmarkTable table = LandmarkTable.build(graph, 6, LandmarkTable.Selection.FARTHEST, 46);
+        for (TravelMode mode : new TravelMode[] { null, TravelMode.WALK, TravelMode.MIXCOMMUTE, TravelMode.JEEP }) {
+            int metric = LandmarkTable.metric(mode);
+            for (int target = 0; target < graph.nodeCount(); target += 13) {
+                LandmarkTable.Bound bound = table.toward(metric, target);
+                int[] exact = LandmarkTable.distancesFrom(graph, target, metric);
+                for (int v = 0; v < graph.nodeCount(); v++) {
+                    int node = v, goal = target;
+                    if (exact[v] != Integer.MAX_VALUE)
+                        assertTrue(bound.estimate(v) <= exact[v],
+                                () -> mode + " bound " + node + " -> " + goal + " overestimates");
+                }
+            }
+        }
+    }
+
+    // Node ids may move with a new road, so queries fall back to plain A* until the table has been
+    // rebuilt for the new topology.
+    @Test
+    void rebuildsAfterATopologyChange() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(300, 400, 47));
+        LandmarkSolver solver = new LandmarkSolver(graph, 8, LandmarkTable.Selection.AVOID, Duration.ofHours(1));
+        TestGraphs.await(() -> solver.getTable() != null);
+        graph.addEdge(TestGraphs.name(0), "Z", new EdgeWeight(3, 2, null));
+        GraphSnapshot snapshot = graph.snapshot();
+        assertRoutes(snapshot, solver, new Random(48));
+        TestGraphs.await(() -> solver.getTable().fits(snapshot));
+        assertRoutes(snapshot, solver, new Random(49));
+    }
+
+    private static void assertRoutes(GraphSnapshot graph, PathSolver solver, Random rand) {
+        PathSolver reference = new DijkstraSolver();
+        for (int i = 0; i < 50; i++) {
+            String start = graph.nodeName(rand.nextInt(graph.nodeCount()));
+            String end = graph.nodeName(rand.nextInt(graph.nodeCount()));
+            DijkstraSolverTest.assertRoute(graph, start, end, reference.findShortestPath(graph, start, end).getDistance(),
+                    solver.findShortestPath(graph, start, end));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+import src.navapp.model.Transfer;
+import src.navapp.model.TravelMode;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultimodalSolverTest {
+    private static final int MODES = TravelMode.values().length;
+
+    @Test
+    void freeTransfersMatchDijkstra() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(300, 400, 7));
+        PathSolver solver = new MultimodalSolver(new TransferPolicy(new int[MODES][MODES], EnumSet.allOf(TravelMode.class)));
+        PathSolver reference = new DijkstraSolver();
+        Random rand = new Random(8);
+        for (int i = 0; i < 100; i++) {
+            String start = TestGraphs.name(rand.nextInt(300)), end = TestGraphs.name(rand.nextInt(300));
+            assertEquals(reference.findShortestPath(graph, start, end).getDistance(),
+                    solver.findShortestPath(graph, start, end).getDistance(), start + " -> " + end);
+        }
+    }
+
+    @Test
+    void matchesBellmanFordOverModeStates() {
+        Set<Set<TravelMode>> choices = Set.of(EnumSet.allOf(TravelMode.class), EnumSet.of(TravelMode.WALK),
+                EnumSet.of(TravelMode.JEEP), EnumSet.of(TravelMode.WALK, TravelMode.JEEP));
+        for (long seed = 0; seed < 5; seed++) {
+            GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(40, 50, seed));
+            for (Set<TravelMode> modes : choices) {
+                TransferPolicy policy = TransferPolicy.defaults().withAvailable(modes);
+                PathSolver solver = new MultimodalSolver(policy);
+                for (int source = 0; source < graph.nodeCount(); source += 7) {
+                    int[] expected = bellmanFord(graph, policy, source);
+                    for (int target = 0; target < graph.nodeCount(); target++) {
+                        if (target == source)
+                            continue;
+                        String start = graph.nodeName(source), end = graph.nodeName(target);
+                        PathResult result = solver.findShortestPath(graph, start, end);
+                        assertEquals(expected[target], result.getDistance(), start + " -> " + end + " " + modes);
+                        if (expected[target] != Integer.MAX_VALUE)
+                            assertEquals(expected[target], cost(graph, policy, result));
+                    }
+                }
+            }
+        }
+    }
+
+    // Steps and transfers must add up to the reported distance, riding each road in a mode the
+    // policy allows.
+    private static int cost(GraphSnapshot graph, TransferPolicy policy, PathResult result) {
+        int total = 0;
+        for (Step step : result.getSteps()) {
+            TravelMode mode = TravelMode.fromLabel(step.getModeUsed());
+            assertTrue(policy.isAvailable(mode));
+            int edge = graph.edgeBetween(graph.nodeId(step.getFrom()), graph.nodeId(step.getTo()));
+            assertEquals(graph.weight(edge, mode), step.getWeightUsed());
+            total += step.getWeightUsed();
+        }
+        for (Transfer transfer : result.getTransfers())
+            total += transfer.getPenalty();
+        return total;
+    }
+
+    private static int[] bellmanFord(GraphSnapshot graph, TransferPolicy policy, int source) {
+        long[] dist = new long[graph.nodeCount() * MODES];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[source * MODES + TravelMode.WALK.ordinal()] = 0;
+        for (boolean changed = true; changed;) {
+            changed = false;
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                if (graph.isBlocked(e))
+                    continue;
+                int[][] ends = { { graph.edgeFrom(e), graph.edgeTo(e) }, { graph.edgeTo(e), graph.edgeFrom(e) } };
+                for (int[] end : ends) {
+                    for (int mode = 0; mode < MODES; mode++) {
+                        long here = dist[end[0] * MODES + mode];
+                        if (here == Long.MAX_VALUE)
+                            continue;
+                        for (int next = 0; next < MODES; next++) {
+                            int weight = graph.weight(e, TravelMode.of(next));
+                            if (!policy.isAvailable(next) || weight == Integer.MAX_VALUE)
+                                continue;
+                            long candidate = here + policy.penalty(mode, next) + weight;
+                            if (candidate < dist[end[1] * MODES + next]) {
+                                dist[end[1] * MODES + next] = candidate;
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        int[] best = new int[graph.nodeCount()];
+        for (int v = 0; v < best.length; v++) {
+            long min = Long.MAX_VALUE;
+            for (int mode = 0; mode < MODES; mode++)
+                min = Math.min(min, dist[v * MODES + mode]);
+            best[v] = min == Long.MAX_VALUE ? Integer.MAX_VALUE : (int) min;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,69 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeCoordinatesTest {
+    private static final int[] NO_EDGES = new int[0];
+
+    // Points are drawn on a coarse grid so many share a position, some nodes have none, and the
+    // queries include exact hits; the tree must always find a node as close as the closest one.
+    @Test
+    void nearestMatchesABruteForceScan() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random rand = new Random(seed);
+            int n = 1 + rand.nextInt(400);
+            double[] latitude = NodeCoordinates.unplaced(n), longitude = NodeCoordinates.unplaced(n);
+            for (int u = 0; u < n; u++) {
+                if (rand.nextInt(5) == 0)
+                    continue;
+                latitude[u] = 14.5 + rand.nextInt(30) * 0.001;
+                longitude[u] = 121.0 + rand.nextInt(30) * 0.001;
+            }
+            NodeCoordinates coordinates = coordinates(latitude, longitude);
+
+            for (int i = 0; i < 200; i++) {
+                double lat, lon;
+                if (i % 4 == 0) {
+                    lat = 14.5 + rand.nextInt(30) * 0.001;
+                    lon = 121.0 + rand.nextInt(30) * 0.001;
+                } else {
+                    lat = 14.49 + rand.nextDouble() * 0.05;
+                    lon = 120.99 + rand.nextDouble() * 0.05;
+                }
+                int expected = bruteForce(coordinates, n, lat, lon);
+                int found = coordinates.nearest(lat, lon);
+                if (expected < 0) {
+                    assertEquals(-1, found);
+                    continue;
+                }
+                assertTrue(coordinates.located(found));
+                assertEquals(coordinates.distance(lat, lon, expected), coordinates.distance(lat, lon, found),
+                        "seed " + seed + ": " + lat + "," + lon);
+            }
+        }
+    }
+
+    @Test
+    void nearestIsMinusOneWithoutLocatedNodes() {
+        NodeCoordinates coordinates = coordinates(NodeCoordinates.unplaced(3), NodeCoordinates.unplaced(3));
+        assertEquals(0, coordinates.locatedCount());
+        assertEquals(-1, coordinates.nearest(14.5, 121.0));
+    }
+
+    private static NodeCoordinates coordinates(double[] latitude, double[] longitude) {
+        return new NodeCoordinates(latitude, longitude, NO_EDGES, NO_EDGES, NO_EDGES, NO_EDGES, NO_EDGES);
+    }
+
+    private static int bruteForce(NodeCoordinates coordinates, int n, double lat, double lon) {
+        int best = -1;
+        for (int u = 0; u < n; u++)
+            if (coordinates.located(u) && (best < 0
+                    || coordinates.distance(lat, lon, u) < coordinates.distance(lat, lon, best)))
+                best = u;
+        return best;
+    }
+}
@@ -0,0 +1,50 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+class ParallelBackTrackAlgoTest {
+    @Test
+    void matchesBackTrackingOnSmallMaps() {
+        PathSolver reference = new BackTrackAlgo();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PathSolver solver = new ParallelBackTrackAlgo(pool);
+            for (long seed = 0; seed < 20; seed++) {
+                GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(10, 8, seed));
+                for (int from = 0; from < graph.nodeCount(); from++) {
+                    for (int to = 0; to < graph.nodeCount(); to++) {
+                        String start = graph.nodeName(from), end = graph.nodeName(to);
+                        DijkstraSolverTest.assertRoute(graph, start, end,
+                                reference.findShortestPath(graph, start, end).getDistance(),
+                                solver.findShortestPath(graph, start, end));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Each worker keeps its visited set between tasks and queries, so a node left marked by one
+    // search, or a set sized for another map, would hide routes from the next.
+    @Test
+    void reusesWorkerStateAcrossMaps() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            PathSolver solver = new ParallelBackTrackAlgo(pool), reference = new DijkstraSolver();
+            for (long seed = 0; seed < 30; seed++) {
+                GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(8 + (int) (seed % 5), 6, seed));
+                for (int from = 0; from < graph.nodeCount(); from += 2) {
+                    String start = graph.nodeName(from), end = graph.nodeName(graph.nodeCount() - 1);
+                    DijkstraSolverTest.assertRoute(graph, start, end,
+                            reference.findShortestPath(graph, start, end).getDistance(),
+                            solver.findShortestPath(graph, start, end));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
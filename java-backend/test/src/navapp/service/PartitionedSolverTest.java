@@ -0,0 +1,94 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.TravelMode;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedSolverTest {
+    // Three levels, so clique arcs on a route expand through a coarse cell's subcell cliques down
+    // to roads, and the steps must still be real roads adding up to Dijkstra's distance.
+    @Test
+    void overlayMatchesDijkstraAcrossLevels() {
+        PathSolver reference = new DijkstraSolver();
+        for (long seed = 0; seed < 4; seed++) {
+            GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(1500, 1500, 50 + seed));
+            PartitionOverlay overlay = PartitionOverlay.customize(GraphPartition.build(graph, 400, 100, 25), graph);
+            assertEquals(3, overlay.getPartition().levels());
+            Random rand = new Random(seed);
+            for (int i = 0; i < 150; i++) {
+                String start = graph.nodeName(rand.nextInt(graph.nodeCount()));
+                String end = graph.nodeName(rand.nextInt(graph.nodeCount()));
+                DijkstraSolverTest.assertRoute(graph, start, end,
+                        reference.findShortestPath(graph, start, end).getDistance(),
+                        overlay.query(graph, start, end));
+            }
+        }
+    }
+
+    @Test
+    void cliquesMatchDistancesInsideTheCell() {
+        GraphSnapshot graph = TestGraphs.snapshot(TestGraphs.random(600, 700, 55));
+        GraphPartition partition = GraphPartition.build(graph, 150, 40);
+        PartitionOverlay overlay = PartitionOverlay.customize(partition, graph);
+        for (int level = 0; level < partition.levels(); level++) {
+            for (int cell = 0; cell < partition.cellCount(level); cell++) {
+                int[] boundary = partition.boundary(level, cell);
+                for (int from : boundary) {
+                    int[] inside = distancesInside(graph, partition, level, cell, from);
+                    for (int to : boundary)
+                        assertEquals(inside[to], overlay.clique(level, cell, from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void followsEventsOnTheLiveGraph() {
+        Graph graph = TestGraphs.graph(TestGraphs.random(800, 900, 57));
+        PartitionedSolver solver = new PartitionedSolver(graph, 200, 50);
+        PathSolver reference = new DijkstraSolver();
+        Random rand = new Random(58);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 5; i++)
+                graph.simulateRandomEvent(TravelMode.values()[rand.nextInt(3)].getLabel(), rand);
+            graph.flush();
+            GraphSnapshot snapshot = graph.snapshot();
+            TestGraphs.await(() -> solver.getOverlay() != null
+                    && solver.getOverlay().getVersion() == snapshot.getVersion());
+            for (int i = 0; i < 30; i++) {
+                String start = snapshot.nodeName(rand.nextInt(snapshot.nodeCount()));
+                String end = snapshot.nodeName(rand.nextInt(snapshot.nodeCount()));
+                DijkstraSolverTest.assertRoute(snapshot, start, end,
+                        reference.findShortestPath(snapshot, start, end).getDistance(),
+                        solver.findShortestPath(snapshot, start, end));
+            }
+        }
+    }
+
+    // Dijkstra over the open roads with both ends in the cell.
+    private static int[] distancesInside(GraphSnapshot graph, GraphPartition partition, int level, int cell,
+            int source) {
+        int[] dist = new int[graph.nodeCount()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        IndexedMinHeap heap = new IndexedMinHeap(graph.nodeCount());
+        dist[source] = 0;
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int v = graph.arcTarget(a), weight = graph.bestWeight(graph.arcEdge(a));
+                if (weight == GraphSnapshot.BLOCKED || partition.cell(level, v) != cell)
+                    continue;
+                if (dist[u] + weight < dist[v]) {
+                    dist[v] = dist[u] + weight;
+                    heap.push(v, dist[v]);
+                }
+            }
+        }
+        return dist;
+    }
+}
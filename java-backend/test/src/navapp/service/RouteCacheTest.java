@@ -0,0 +1,91 @@
+package src.navapp.service;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.PathResult;
+import src.navapp.model.SimulationEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCacheTest {
+    private static final String[] MAP = { "A,B,5,5,", "B,C,5,5,", "A,C,30,30,", "C,D,1,1," };
+
+    @Test
+    void servesLaterVersionsUntilAnEventTouchesTheRoute() {
+        Graph graph = TestGraphs.graph(MAP);
+        RouteCache cache = new RouteCache(graph, 100, Duration.ofMinutes(1));
+        PathSolver solver = new DijkstraSolver();
+        assertEquals(10, cache.getOrCompute(graph.snapshot(), "fastest", "A", "C", solver).getDistance());
+
+        graph.submit(new SimulationEvent("traffic", "C", "D", "slow", "walk", 5));
+        graph.flush();
+        assertEquals(10, cache.getOrCompute(graph.snapshot(), "fastest", "A", "C", solver).getDistance());
+        assertEquals(1, cache.getHits());
+
+        graph.submit(new SimulationEvent("block", "A", "B", "closed"));
+        graph.flush();
+        assertEquals(0, cache.size());
+        assertEquals(30, cache.getOrCompute(graph.snapshot(), "fastest", "A", "C", solver).getDistance());
+    }
+
+    // A listener registered ahead of the cache runs after the new version is published but
+    // before the cache has heard of it, which is exactly the window a concurrent lookup can hit.
+    @Test
+    void doesNotServeARouteAcrossARoadClosedBeforeItsListenerRan() {
+        Graph graph = TestGraphs.graph(MAP);
+        List<PathResult> seen = new ArrayList<>();
+        PathSolver solver = new DijkstraSolver();
+        RouteCache[] cache = new RouteCache[1];
+        graph.addListener(new GraphListener() {
+            @Override
+            public void onEvents(GraphSnapshot snapshot, List<SimulationEvent> batch) {
+                seen.add(cache[0].getOrCompute(snapshot, "fastest", "A", "C", solver));
+            }
+        });
+        cache[0] = new RouteCache(graph, 100, Duration.ofMinutes(1));
+        assertEquals(10, cache[0].getOrCompute(graph.snapshot(), "fastest", "A", "C", solver).getDistance());
+
+        graph.submit(new SimulationEvent("block", "B", "C", "closed"));
+        graph.flush();
+        assertEquals(30, seen.get(0).getDistance());
+    }
+
+    @Test
+    void olderSnapshotsDoNotSeeNewerEntries() {
+        Graph graph = TestGraphs.graph(MAP);
+        RouteCache cache = new RouteCache(graph, 100, Duration.ofMinutes(1));
+        PathSolver solver = new DijkstraSolver();
+        GraphSnapshot before = graph.snapshot();
+        graph.submit(new SimulationEvent("traffic", "A", "B", "slow", "walk", 50));
+        graph.submit(new SimulationEvent("traffic", "A", "B", "slow", "mixcommute", 50));
+        graph.flush();
+        assertEquals(30, cache.getOrCompute(graph.snapshot(), "fastest", "A", "C", solver).getDistance());
+        assertEquals(10, cache.getOrCompute(before, "fastest", "A", "C", solver).getDistance());
+    }
+
+    // Going over capacity evicts the least recently used tenth, so routes hit since they were
+    // cached outlive older ones that were not.
+    @Test
+    void evictsTheLeastRecentlyUsedRoutes() {
+        Graph graph = TestGraphs.graph(MAP);
+        RouteCache cache = new RouteCache(graph, 20, Duration.ofMinutes(1));
+        PathSolver solver = new DijkstraSolver();
+        GraphSnapshot snapshot = graph.snapshot();
+        for (int i = 0; i < 20; i++)
+            cache.getOrCompute(snapshot, "p" + i, "A", "C", solver);
+        for (int i = 0; i < 20; i += 2)
+            cache.getOrCompute(snapshot, "p" + i, "A", "C", solver);
+        assertEquals(10, cache.getHits());
+
+        cache.getOrCompute(snapshot, "p20", "A", "C", solver);
+        assertEquals(3, cache.getEvictions());
+        assertEquals(18, cache.size());
+        for (int i = 0; i < 20; i += 2)
+            cache.getOrCompute(snapshot, "p" + i, "A", "C", solver);
+        assertEquals(20, cache.getHits());
+        assertEquals(21, cache.getMisses());
+    }
+}
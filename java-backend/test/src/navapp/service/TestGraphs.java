@@ -0,0 +1,84 @@
+package src.navapp.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+// Small maps for tests, as rows in the CSV layout the service loads.
+final class TestGraphs {
+    private TestGraphs() {
+    }
+
+    static GraphSnapshot snapshot(String... rows) {
+        return snapshot(List.of(rows));
+    }
+
+    static GraphSnapshot snapshot(List<String> rows) {
+        return graph(rows).snapshot();
+    }
+
+    static Graph graph(String... rows) {
+        return graph(List.of(rows));
+    }
+
+    static Graph graph(List<String> rows) {
+        return new Graph(List.of(csv(rows).toString()));
+    }
+
+    static Path csv(List<String> rows) {
+        try {
+            Path file = Files.createTempFile("test-map", ".csv");
+            file.toFile().deleteOnExit();
+            Files.write(file, rows, StandardCharsets.UTF_8);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A connected random map: a random spanning tree plus `extra` more roads. Some roads are free
+    // in one mode and only a third carry a jeepney, so ties and missing modes both come up.
+    static List<String> random(int nodes, int extra, long seed) {
+        Random rand = new Random(seed);
+        List<String> rows = new ArrayList<>();
+        for (int v = 1; v < nodes; v++)
+            rows.add(row(rand, rand.nextInt(v), v));
+        for (int i = 0; i < extra; i++) {
+            int u = rand.nextInt(nodes), v = rand.nextInt(nodes);
+            if (u != v)
+                rows.add(row(rand, u, v));
+        }
+        return rows;
+    }
+
+    private static String row(Random rand, int u, int v) {
+        int walk = 1 + rand.nextInt(30);
+        int mixcommute = rand.nextInt(8) == 0 ? 0 : 1 + rand.nextInt(walk);
+        String jeep = rand.nextInt(3) == 0 ? Integer.toString(rand.nextInt(walk + 1)) : "";
+        return "N" + u + ",N" + v + "," + walk + "," + mixcommute + "," + jeep;
+    }
+
+    static String name(int node) {
+        return "N" + node;
+    }
+
+    // Waits for background preprocessing, failing the test if it never finishes.
+    static void await(BooleanSupplier ready) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!ready.getAsBoolean()) {
+            if (System.nanoTime() > deadline)
+                throw new AssertionError("Background work did not finish in time");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
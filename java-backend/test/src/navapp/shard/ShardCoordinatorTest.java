@@ -0,0 +1,90 @@
+package src.navapp.shard;
+
+import org.junit.jupiter.api.Test;
+import src.navapp.model.EdgeWeight;
+import src.navapp.model.PathResult;
+import src.navapp.model.Step;
+import src.navapp.service.DijkstraSolver;
+import src.navapp.service.Graph;
+import src.navapp.service.GraphPartition;
+import src.navapp.service.GraphSnapshot;
+import src.navapp.service.PathSolver;
+import src.navapp.service.SyntheticGraphs;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardCoordinatorTest {
+    // Every shard runs in-process on its own port, so routes cross real HTTP and the cut roads.
+    @Test
+    void matchesDijkstraOnTheWholeMap() throws Exception {
+        Graph graph = new Graph(List.of(SyntheticGraphs.generate("geometric", 1200, 4, 81).toString()));
+        GraphSnapshot snapshot = graph.snapshot();
+        ShardLayout layout = ShardLayout.write(snapshot, GraphPartition.build(snapshot, 300),
+                Files.createTempDirectory("shards"));
+        assertTrue(layout.cellCount() > 1);
+
+        List<CellServer> servers = new ArrayList<>();
+        try {
+            List<URI> endpoints = new ArrayList<>();
+            for (int c = 0; c < layout.cellCount(); c++) {
+                CellServer server = new CellServer(new Graph(List.of(layout.cellFile(c).toString())),
+                        layout.boundary(c), 0);
+                servers.add(server);
+                server.start();
+                endpoints.add(URI.create("http://127.0.0.1:" + server.getPort() + "/"));
+            }
+            ShardCoordinator coordinator = new ShardCoordinator(layout, endpoints);
+
+            PathSolver reference = new DijkstraSolver();
+            Random rand = new Random(82);
+            for (int i = 0; i < 60; i++) {
+                String start = snapshot.nodeName(rand.nextInt(snapshot.nodeCount()));
+                String end = snapshot.nodeName(rand.nextInt(snapshot.nodeCount()));
+                int expected = reference.findShortestPath(snapshot, start, end).getDistance();
+                PathResult sharded = coordinator.findShortestPath(start, end);
+                assertEquals(expected, sharded.getDistance(), () -> start + " -> " + end);
+                if (expected != Integer.MAX_VALUE)
+                    assertWalk(snapshot, start, end, sharded);
+            }
+        } finally {
+            servers.forEach(CellServer::close);
+        }
+    }
+
+    // The loader neither unquotes nor keeps surrounding spaces, so these names would not survive.
+    @Test
+    void refusesNodeNamesTheShardFilesCannotHold() throws Exception {
+        Path csv = Files.createTempFile("test-map", ".csv");
+        csv.toFile().deleteOnExit();
+        Files.write(csv, List.of("A,B,1,1,", "B,C,1,1,"));
+        for (String name : List.of("D,E", " D", "D\nE")) {
+            Graph graph = new Graph(List.of(csv.toString()));
+            graph.addEdge("C", name, new EdgeWeight(1, 1, null));
+            GraphSnapshot snapshot = graph.snapshot();
+            Path directory = Files.createTempDirectory("shards");
+            assertThrows(IllegalArgumentException.class,
+                    () -> ShardLayout.write(snapshot, GraphPartition.build(snapshot, 2), directory));
+        }
+    }
+
+    // Consecutive steps join up from start to end over real roads and add up to the distance.
+    private static void assertWalk(GraphSnapshot graph, String start, String end, PathResult route) {
+        String at = start;
+        int total = 0;
+        for (Step step : route.getSteps()) {
+            assertEquals(at, step.getFrom());
+            assertTrue(graph.edgeBetween(graph.nodeId(step.getFrom()), graph.nodeId(step.getTo())) >= 0);
+            total += step.getWeightUsed();
+            at = step.getTo();
+        }
+        assertEquals(end, at);
+        assertEquals(route.getDistance(), total);
+    }
+}
@@ -245,14 +245,9 @@ class BackTrackAlgo {
     }
 
     private String getBestMode(EdgeWeight ew) {
-        Map<String, Integer> modes = new HashMap<>();
-        if (ew.getWalk() != null)
-            modes.put("walk", ew.getWalk());
-        if (ew.getCar() != null)
-            modes.put("car", ew.getCar());
-        if (ew.getJeepney() != null)
-            modes.put("jeep", ew.getJeepney());
-        return modes.entrySet().stream().min(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElseThrow();
+        int walk = ew.getMode("walk"), car = ew.getMode("car"), jeep = ew.getMode("jeep");
+        int min = Math.min(walk, Math.min(car, jeep));
+        return (min == walk) ? "walk" : (min == car) ? "car" : "jeep";
     }
 
     public List<String> getBestPath() {